@@ -1,23 +1,260 @@
 //@flow
 import React from 'react';
 
-import Button from '@atlaskit/button';
+import Button, {ButtonGroup} from '@atlaskit/button';
 import Page from '@atlaskit/page';
 import PageHeader from '@atlaskit/page-header';
 import Breadcrumbs from '@atlaskit/breadcrumbs';
+import Lozenge from '@atlaskit/lozenge';
+import {DynamicTableStateless} from '@atlaskit/dynamic-table';
+
+import type {ResourceOrder, ScriptResourceStats, WarmUpFailure, WarmUpStatus} from './types';
 
 import {ScrollToTop} from '../common/ScrollToTop';
 
 import {extrasService} from '../service';
-import {CommonMessages, PageTitleMessages} from '../i18n/common.i18n';
+import {CommonMessages, FieldMessages, PageTitleMessages} from '../i18n/common.i18n';
+import {CategoryNameMessages} from '../i18n/audit.i18n';
+import {ExtrasMessages, ResourceOrderMessages, WarmUpStateMessages} from '../i18n/extras.i18n';
 import {withRoot} from '../common/script-list/breadcrumbs';
 
 
-export class ExtrasPage extends React.Component<{}> {
+const failuresTableHead = {
+    cells: [
+        {
+            content: FieldMessages.type,
+            width: '150px'
+        },
+        {
+            content: FieldMessages.name,
+            width: '250px'
+        },
+        {
+            content: CommonMessages.error
+        }
+    ]
+};
+
+const resourceTableHead = {
+    cells: [
+        {
+            content: FieldMessages.type,
+            width: '150px'
+        },
+        {
+            content: ExtrasMessages.scriptId
+        },
+        {
+            content: ExtrasMessages.calls
+        },
+        {
+            content: ExtrasMessages.errors
+        },
+        {
+            content: ExtrasMessages.cpuTime
+        },
+        {
+            content: ExtrasMessages.averageCpuTime
+        },
+        {
+            content: ExtrasMessages.allocated
+        },
+        {
+            content: ExtrasMessages.averageAllocated
+        },
+        {
+            content: ExtrasMessages.wallTime
+        }
+    ]
+};
+
+const resourceOrders: $ReadOnlyArray<ResourceOrder> = ['CPU', 'ALLOCATION', 'WALL', 'CALLS'];
+
+function formatBytes(bytes: number): string {
+    if (bytes < 0) {
+        return '-';
+    }
+    return `${(bytes / 1024 / 1024).toFixed(2)} MB`;
+}
+
+function formatTime(time: number): string {
+    return `${time.toFixed(1)} ms`;
+}
+
+type State = {
+    warmUpStatus: ?WarmUpStatus,
+    resourceOrder: ResourceOrder,
+    resourceStats: ?$ReadOnlyArray<ScriptResourceStats>
+};
+
+export class ExtrasPage extends React.Component<{}, State> {
+    state = {
+        warmUpStatus: null,
+        resourceOrder: 'CPU',
+        resourceStats: null
+    };
+
+    _timeout: ?TimeoutID = null;
+
     _clearCache = () => {
         extrasService.clearCache().then(() => alert('done'));
     };
 
+    _loadWarmUpStatus = () => {
+        extrasService
+            .getWarmUpStatus()
+            .then(this._updateWarmUpStatus);
+    };
+
+    _startWarmUp = () => {
+        extrasService
+            .startWarmUp()
+            .then(this._updateWarmUpStatus);
+    };
+
+    _updateWarmUpStatus = (warmUpStatus: WarmUpStatus) => {
+        this.setState({ warmUpStatus });
+
+        if (warmUpStatus.state === 'RUNNING') {
+            this._timeout = setTimeout(this._loadWarmUpStatus, 1000);
+        }
+    };
+
+    _loadResourceStats = (resourceOrder: ResourceOrder) => {
+        this.setState({ resourceOrder });
+
+        extrasService
+            .getResourceStats(resourceOrder)
+            .then((resourceStats: $ReadOnlyArray<ScriptResourceStats>) => this.setState({ resourceStats }));
+    };
+
+    _resetResourceStats = () => {
+        extrasService
+            .resetResourceStats()
+            .then(() => this._loadResourceStats(this.state.resourceOrder));
+    };
+
+    componentDidMount() {
+        this._loadWarmUpStatus();
+        this._loadResourceStats(this.state.resourceOrder);
+    }
+
+    componentWillUnmount() {
+        if (this._timeout) {
+            clearTimeout(this._timeout);
+        }
+    }
+
+    _renderWarmUpStatus() {
+        const {warmUpStatus} = this.state;
+
+        if (!warmUpStatus) {
+            return null;
+        }
+
+        return (
+            <div>
+                <h3>{ExtrasMessages.warmUp}</h3>
+                <p>
+                    <Lozenge appearance={warmUpStatus.state === 'RUNNING' ? 'inprogress' : 'default'}>
+                        {WarmUpStateMessages[warmUpStatus.state]}
+                    </Lozenge>
+                    {' '}
+                    {ExtrasMessages.warmUpProgress(
+                        warmUpStatus.completed.toString(10),
+                        warmUpStatus.total.toString(10),
+                        warmUpStatus.duration.toString(10)
+                    )}
+                </p>
+                <Button isDisabled={warmUpStatus.state === 'RUNNING'} onClick={this._startWarmUp}>
+                    {ExtrasMessages.startWarmUp}
+                </Button>
+                {warmUpStatus.failures.length > 0 &&
+                    <div>
+                        <h4>{ExtrasMessages.warmUpFailures}</h4>
+                        <DynamicTableStateless
+                            head={failuresTableHead}
+                            rows={warmUpStatus.failures.map((failure: WarmUpFailure) => ({
+                                key: `${failure.type}-${failure.id}`,
+                                cells: [
+                                    {
+                                        content: CategoryNameMessages[failure.type]
+                                    },
+                                    {
+                                        content: failure.name || failure.id
+                                    },
+                                    {
+                                        content: <pre>{failure.error}</pre>
+                                    }
+                                ]
+                            }))}
+                        />
+                    </div>
+                }
+            </div>
+        );
+    }
+
+    _renderResourceStats() {
+        const {resourceOrder, resourceStats} = this.state;
+
+        return (
+            <div>
+                <h3>{ExtrasMessages.topScripts}</h3>
+                <ButtonGroup>
+                    {resourceOrders.map(order =>
+                        <Button
+                            key={order}
+                            isSelected={order === resourceOrder}
+                            onClick={() => this._loadResourceStats(order)}
+                        >
+                            {ResourceOrderMessages[order]}
+                        </Button>
+                    )}
+                    <Button appearance="link" onClick={this._resetResourceStats}>
+                        {ExtrasMessages.resetStats}
+                    </Button>
+                </ButtonGroup>
+                <DynamicTableStateless
+                    head={resourceTableHead}
+                    isLoading={!resourceStats}
+                    rows={(resourceStats || []).map((stats: ScriptResourceStats) => ({
+                        key: `${stats.type || ''}-${stats.scriptId || ''}`,
+                        cells: [
+                            {
+                                content: stats.type
+                            },
+                            {
+                                content: stats.scriptId
+                            },
+                            {
+                                content: stats.callCount
+                            },
+                            {
+                                content: stats.errorCount
+                            },
+                            {
+                                content: formatTime(stats.totalCpuTime)
+                            },
+                            {
+                                content: formatTime(stats.averageCpuTime)
+                            },
+                            {
+                                content: formatBytes(stats.totalAllocatedBytes)
+                            },
+                            {
+                                content: formatBytes(stats.averageAllocatedBytes)
+                            },
+                            {
+                                content: formatTime(stats.totalWallTime)
+                            }
+                        ]
+                    }))}
+                />
+            </div>
+        );
+    }
+
     render() {
         return (
             <Page>
@@ -29,6 +266,8 @@ export class ExtrasPage extends React.Component<{}> {
                 <ScrollToTop/>
                 <div className="page-content">
                     <Button appearance="primary" onClick={this._clearCache}>{CommonMessages.clearCache}</Button>
+                    {this._renderWarmUpStatus()}
+                    {this._renderResourceStats()}
                 </div>
             </Page>
         );
@@ -0,0 +1,34 @@
+//@flow
+import type {EntityType} from '../common/types';
+
+
+export type WarmUpState = 'NOT_STARTED' | 'RUNNING' | 'COMPLETED' | 'CANCELLED';
+
+export type WarmUpFailure = {
+    type: EntityType,
+    id: string,
+    name: ?string,
+    error: ?string
+};
+
+export type ResourceOrder = 'CPU' | 'ALLOCATION' | 'WALL' | 'CALLS';
+
+export type ScriptResourceStats = {
+    scriptId: ?string,
+    type: ?string,
+    callCount: number,
+    errorCount: number,
+    totalWallTime: number,
+    totalCpuTime: number,
+    averageCpuTime: number,
+    totalAllocatedBytes: number,
+    averageAllocatedBytes: number
+};
+
+export type WarmUpStatus = {
+    state: WarmUpState,
+    total: number,
+    completed: number,
+    duration: number,
+    failures: $ReadOnlyArray<WarmUpFailure>
+};
@@ -1,5 +1,5 @@
 //@flow
-import React from 'react';
+import React, {type Node} from 'react';
 
 import {Link, Prompt, withRouter} from 'react-router-dom';
 import {connect} from 'react-redux';
@@ -17,12 +17,12 @@ import Breadcrumbs, {BreadcrumbsItem} from '@atlaskit/breadcrumbs';
 
 import {fieldConfigSelectorFactory} from './selectors';
 
-import type {FieldConfig, FieldConfigPreviewResult} from './types';
+import type {FieldBenchmarkResult, FieldConfig, FieldConfigPreviewResult} from './types';
 
 import {fieldConfigService} from '../service';
 import {CommonMessages, ErrorMessages, FieldMessages} from '../i18n/common.i18n';
 import {Bindings} from '../common/bindings';
-import {EditorField, CheckedEditorField, FormField, ErrorMessage, InfoMessage} from '../common/ak';
+import {EditorField, CheckedEditorField, FormField, ErrorMessage, InfoMessage, JqlInput} from '../common/ak';
 import {ConsoleMessages} from '../i18n/console.i18n';
 import type {InputEvent} from '../common/EventTypes';
 import {extractShortClassName} from '../common/classNames';
@@ -40,6 +40,8 @@ type Form = {|
     comment: string,
     scriptBody: string,
     cacheable: boolean,
+    cacheMaxEntries: ?number,
+    cacheTtl: ?number,
     template?: string,
     velocityParamsEnabled: boolean
 |};
@@ -51,6 +53,8 @@ const makeForm: RecordFactory<Form> = Record({
     scriptBody: '',
     template: '',
     cacheable: true,
+    cacheMaxEntries: null,
+    cacheTtl: null,
     velocityParamsEnabled: false
 });
 
@@ -67,6 +71,8 @@ type State = {
     waitingPreview: boolean,
     isModified: boolean,
     previewKey: ?string,
+    previewJql: ?string,
+    previewSampleSize: ?number,
     previewResult: ?FieldConfigPreviewResult,
     error: *,
     previewError: *
@@ -82,6 +88,8 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
             values: makeForm({
                 scriptBody: fieldConfig.scriptBody,
                 cacheable: fieldConfig.cacheable,
+                cacheMaxEntries: fieldConfig.cacheMaxEntries,
+                cacheTtl: fieldConfig.cacheTtl,
                 template: fieldConfig.template || '',
                 velocityParamsEnabled: fieldConfig.velocityParamsEnabled,
                 comment: ''
@@ -90,6 +98,8 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
             waitingPreview: false,
             isModified: false,
             previewKey: '',
+            previewJql: '',
+            previewSampleSize: null,
             previewResult: null,
             error: null,
             previewError: null
@@ -129,6 +139,8 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
                 this.props.id,
                 {
                     issueKey: this.state.previewKey,
+                    jql: this.state.previewJql,
+                    sampleSize: this.state.previewSampleSize,
                     configForm: this.state.values.toJS()
                 }
             )
@@ -164,14 +176,26 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
         this._mutateValue(field, e.currentTarget.checked);
     };
 
+    _setNumberValue = (field: FormFieldType) => (event: InputEvent) => {
+        const value = parseInt(event.currentTarget.value, 10);
+        this._mutateValue(field, isNaN(value) ? null : value);
+    };
+
     _setTemplate = this._setObjectValue('template');
     _setScript = this._setObjectValue('scriptBody');
 
     _setPreviewKey = (e: InputEvent) => this.setState({ previewKey: e.currentTarget.value });
 
+    _setPreviewJql = (e: SyntheticEvent<HTMLTextAreaElement>) => this.setState({ previewJql: e.currentTarget.value });
+
+    _setPreviewSampleSize = (e: InputEvent) => {
+        const value = parseInt(e.currentTarget.value, 10);
+        this.setState({ previewSampleSize: isNaN(value) ? null : value });
+    };
+
     render() {
         const {fieldConfig} = this.props;
-        const {values, error, previewError, waiting, isModified, waitingPreview, previewKey, previewResult} = this.state;
+        const {values, error, previewError, waiting, isModified, waitingPreview, previewKey, previewJql, previewSampleSize, previewResult} = this.state;
 
         let errorMessage: * = null;
         let errorField: ?string = null;
@@ -260,6 +284,42 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
                             }
                         </div>
                     </FormField>
+                    {values.get('cacheable') &&
+                        <FormField
+                            label={ScriptFieldMessages.cacheMaxEntries}
+                            helperText={ScriptFieldMessages.cacheMaxEntriesDescription}
+
+                            isInvalid={errorField === 'cacheMaxEntries'}
+                            invalidMessage={errorMessage || ''}
+                        >
+                            <FieldTextStateless
+                                type="number"
+                                shouldFitContainer={true}
+                                disabled={waiting}
+
+                                value={values.get('cacheMaxEntries') != null ? values.get('cacheMaxEntries').toString(10) : ''}
+                                onChange={this._setNumberValue('cacheMaxEntries')}
+                            />
+                        </FormField>
+                    }
+                    {values.get('cacheable') &&
+                        <FormField
+                            label={ScriptFieldMessages.cacheTtl}
+                            helperText={ScriptFieldMessages.cacheTtlDescription}
+
+                            isInvalid={errorField === 'cacheTtl'}
+                            invalidMessage={errorMessage || ''}
+                        >
+                            <FieldTextStateless
+                                type="number"
+                                shouldFitContainer={true}
+                                disabled={waiting}
+
+                                value={values.get('cacheTtl') != null ? values.get('cacheTtl').toString(10) : ''}
+                                onChange={this._setNumberValue('cacheTtl')}
+                            />
+                        </FormField>
+                    }
                     <FormField
                         label={FieldMessages.scriptCode}
                         isRequired={true}
@@ -324,6 +384,28 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
                             shouldFitContainer={true}
                         />
                     </FormField>
+                    <JqlInput
+                        label={ScriptFieldMessages.benchmarkJql}
+                        isDisabled={waiting}
+
+                        shouldFitContainer={true}
+
+                        value={previewJql || ''}
+                        onChange={this._setPreviewJql}
+                    />
+                    <div className="ak-description">
+                        {ScriptFieldMessages.benchmarkJqlDescription}
+                    </div>
+                    <FormField
+                        label={ScriptFieldMessages.benchmarkSampleSize}
+                    >
+                        <FieldTextStateless
+                            type="number"
+                            value={previewSampleSize || ''}
+                            onChange={this._setPreviewSampleSize}
+                            shouldFitContainer={true}
+                        />
+                    </FormField>
                     <div style={{marginTop: '10px'}}>
                         <ButtonGroup>
                             <Button
@@ -358,11 +440,14 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
                     </div>
 
                     <div className="flex-column" style={{marginTop: '20px'}}>
-                        {previewResult &&
+                        {previewResult && previewResult.htmlResult != null &&
                             <InfoMessage title={ConsoleMessages.executedIn(previewResult.time.toString())}>
                                 <div dangerouslySetInnerHTML={{__html: previewResult.htmlResult}}/>
                             </InfoMessage>
                         }
+                        {previewResult && previewResult.benchmark &&
+                            <BenchmarkResult benchmark={previewResult.benchmark}/>
+                        }
                         {previewError &&
                             <ErrorMessage title={ErrorMessages.errorOccurred}>
                                 {previewError.messages.map((e, i) => <div key={i}>{e}</div>)}
@@ -375,6 +460,46 @@ export class CustomFieldFormInternal extends React.Component<Props, State> {
     }
 }
 
+function formatTime(time: number): string {
+    return `${time.toFixed(2)} ms`;
+}
+
+function BenchmarkResult({benchmark}: {benchmark: FieldBenchmarkResult}): Node {
+    return (
+        <InfoMessage title={ScriptFieldMessages.benchmarkResult(benchmark.sampleSize.toString())}>
+            <table className="aui">
+                <tbody>
+                    <tr>
+                        <th>min</th>
+                        <td>{formatTime(benchmark.minTime)}</td>
+                    </tr>
+                    <tr>
+                        <th>median</th>
+                        <td>{formatTime(benchmark.medianTime)}</td>
+                    </tr>
+                    <tr>
+                        <th>p95</th>
+                        <td>{formatTime(benchmark.p95Time)}</td>
+                    </tr>
+                    <tr>
+                        <th>max</th>
+                        <td>{formatTime(benchmark.maxTime)}</td>
+                    </tr>
+                    <tr>
+                        <th>{ScriptFieldMessages.benchmarkErrors}</th>
+                        <td>{benchmark.errorCount} ({(benchmark.errorRate * 100).toFixed(1)}%)</td>
+                    </tr>
+                    <tr>
+                        <th>{ScriptFieldMessages.benchmarkAllocation}</th>
+                        <td>{benchmark.allocatedBytes >= 0 ? `${(benchmark.allocatedBytes / 1024).toFixed(1)} KB` : '-'}</td>
+                    </tr>
+                </tbody>
+            </table>
+            {benchmark.firstError && <pre>{benchmark.firstError}</pre>}
+        </InfoMessage>
+    );
+}
+
 export const CustomFieldForm = (
     withRouter(
         connect(
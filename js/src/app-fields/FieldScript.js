@@ -14,6 +14,7 @@ import type {FieldConfigItem} from './types';
 import {getBaseUrl} from '../service';
 
 import {JiraMessages, FieldMessages, ErrorMessages, CommonMessages} from '../i18n/common.i18n';
+import {ScriptFieldMessages} from '../i18n/cf.i18n';
 import {ErrorMessage} from '../common/ak/messages';
 import {ScriptParameters} from '../common/script';
 import {WatchableScript} from '../common/script/WatchableScript';
@@ -116,6 +117,18 @@ export class FieldScript extends React.PureComponent<Props> {
                             label: FieldMessages.cacheable,
                             value: script.cacheable ? CommonMessages.yes : CommonMessages.no
                         },
+                        script.cacheable && script.cacheMaxEntries
+                            ? {
+                                label: ScriptFieldMessages.cacheMaxEntries,
+                                value: script.cacheMaxEntries.toString(10)
+                            }
+                            : null,
+                        script.cacheable && script.cacheTtl
+                            ? {
+                                label: ScriptFieldMessages.cacheTtl,
+                                value: script.cacheTtl.toString(10)
+                            }
+                            : null,
                         script.needsTemplate
                             ? {
                                 label: 'Velocity params',
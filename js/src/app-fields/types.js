@@ -11,6 +11,8 @@ export type FieldConfig = {
     scriptBody: string,
     changelogs: Array<ChangelogType>,
     cacheable: boolean,
+    cacheMaxEntries: ?number,
+    cacheTtl: ?number,
     velocityParamsEnabled: boolean,
     needsTemplate: boolean,
     type: string,
@@ -19,9 +21,22 @@ export type FieldConfig = {
     template: ?string
 };
 
+export type FieldBenchmarkResult = {
+    sampleSize: number,
+    minTime: number,
+    medianTime: number,
+    p95Time: number,
+    maxTime: number,
+    errorCount: number,
+    errorRate: number,
+    allocatedBytes: number,
+    firstError: ?string
+};
+
 export type FieldConfigPreviewResult = {
     time: number,
-    htmlResult: string
+    htmlResult: ?string,
+    benchmark: ?FieldBenchmarkResult
 };
 
 export type FieldConfigItem = FieldConfig & {
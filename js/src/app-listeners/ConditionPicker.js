@@ -3,13 +3,14 @@ import React, {type Node} from 'react';
 
 import {AkFieldRadioGroup} from '@atlaskit/field-radio-group';
 import {FieldTextStateless} from '@atlaskit/field-text';
+import {Checkbox} from '@atlaskit/checkbox';
 
 import type {ConditionInputType} from './types';
 
 import {jiraService} from '../service';
 
 import {FieldMessages} from '../i18n/common.i18n';
-import {ListenerTypeMessages} from '../i18n/listener.i18n';
+import {ListenerMessages, ListenerTypeMessages} from '../i18n/listener.i18n';
 
 import {AsyncLoadingMultiSelect, FormField, FieldError} from '../common/ak';
 
@@ -67,6 +68,20 @@ export class ConditionPicker extends React.Component<Props> {
         }
     };
 
+    _onAsyncChange = () => {
+        const {value, onChange} = this.props;
+
+        onChange({...value, async: !value.async});
+    };
+
+    _onDebounceWindowChange = (e: SyntheticEvent<HTMLInputElement>) => {
+        const {value, onChange} = this.props;
+
+        const debounceWindow = parseInt(e.currentTarget.value, 10);
+
+        onChange({...value, debounceWindow: isNaN(debounceWindow) ? null : debounceWindow});
+    };
+
     _onInputChange = (property: string): * => {
         return (e: SyntheticEvent<HTMLInputElement>) => {
             const {value, onChange} = this.props;
@@ -132,7 +147,24 @@ export class ConditionPicker extends React.Component<Props> {
                             value={value.typeIds || []}
                             onChange={this._onChange('typeIds')}
                             loader={eventTypeLoader}
-                        />
+                        />,
+                        <FormField
+                            key="debounceWindow"
+                            label={ListenerMessages.debounceWindow}
+                            helperText={ListenerMessages.debounceWindowDescription}
+
+                            isInvalid={errorField === 'condition.debounceWindow'}
+                            invalidMessage={errorField === 'condition.debounceWindow' ? errorMessage : null}
+                        >
+                            <FieldTextStateless
+                                type="number"
+                                shouldFitContainer={true}
+                                disabled={isDisabled}
+
+                                value={value.debounceWindow != null ? value.debounceWindow.toString(10) : ''}
+                                onChange={this._onDebounceWindowChange}
+                            />
+                        </FormField>
                     ];
                     break;
                 default:
@@ -165,6 +197,14 @@ export class ConditionPicker extends React.Component<Props> {
                 />
                 {errorField === 'condition.type' && <FieldError error={errorMessage}/>}
                 {paramEl}
+                <Checkbox
+                    isChecked={value.async || false}
+                    isDisabled={isDisabled}
+                    onChange={this._onAsyncChange}
+                    label={ListenerMessages.async}
+                    value="async"
+                    name="listener-async"
+                />
             </div>
         );
     }
@@ -6,13 +6,14 @@ import {connect} from 'react-redux';
 import memoizeOne from 'memoize-one';
 
 import Button from '@atlaskit/button';
+import Lozenge from '@atlaskit/lozenge';
 import EditFilledIcon from '@atlaskit/icon/glyph/edit-filled';
 
-import type {ConditionType, ListenerType} from './types';
+import type {CircuitBreakerState, ConditionType, ListenerType} from './types';
 
 import {WatchActionCreators} from '../common/redux';
 
-import {ListenerTypeMessages} from '../i18n/listener.i18n';
+import {CircuitBreakerStateMessages, ListenerMessages, ListenerTypeMessages} from '../i18n/listener.i18n';
 import {CommonMessages, FieldMessages} from '../i18n/common.i18n';
 
 import {RouterLink} from '../common/ak';
@@ -58,7 +59,9 @@ class ListenerInternal extends React.PureComponent<Props> {
     );
 
     _getParams = memoizeOne(
-        (projects: ObjectMap, eventTypes: ObjectMap, condition: ConditionType): Array<?ScriptParam> => {
+        (
+            projects: ObjectMap, eventTypes: ObjectMap, condition: ConditionType, circuitBreakerState: ?CircuitBreakerState
+        ): Array<?ScriptParam> => {
             const params = [
                 {
                     label: FieldMessages.type,
@@ -91,6 +94,27 @@ class ListenerInternal extends React.PureComponent<Props> {
                 });
             }
 
+            if (circuitBreakerState && circuitBreakerState !== 'CLOSED') {
+                params.push({
+                    label: ListenerMessages.circuitBreaker,
+                    value: <Lozenge appearance="removed">{CircuitBreakerStateMessages[circuitBreakerState]}</Lozenge>
+                });
+            }
+
+            if (condition.debounceWindow) {
+                params.push({
+                    label: ListenerMessages.debounceWindow,
+                    value: condition.debounceWindow
+                });
+            }
+
+            if (condition.async) {
+                params.push({
+                    label: ListenerMessages.async,
+                    value: CommonMessages.yes
+                });
+            }
+
             return params;
         }
     );
@@ -138,7 +162,7 @@ class ListenerInternal extends React.PureComponent<Props> {
                     />
                 ]}
             >
-                <ScriptParameters params={this._getParams(projects, eventTypes, script.condition)}/>
+                <ScriptParameters params={this._getParams(projects, eventTypes, script.condition, script.circuitBreakerState)}/>
             </ConnectedWatchableScript>
         );
     }
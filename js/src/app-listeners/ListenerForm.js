@@ -67,7 +67,9 @@ const makeForm: RecordFactory<Form> = Record({
         type: null,
         typeIds: [],
         projectIds: [],
-        className: null
+        className: null,
+        async: false,
+        debounceWindow: null
     }
 });
 
@@ -6,19 +6,26 @@ export type ConditionType = {
     type: 'CLASS_NAME' | 'ISSUE',
     typeIds: $ReadOnlyArray<string>,
     projectIds: $ReadOnlyArray<string>,
-    className: ?string
+    className: ?string,
+    async: boolean,
+    debounceWindow: ?number
 };
 
 export type ConditionInputType = {
     type: ?'CLASS_NAME' | 'ISSUE',
     typeIds: $ReadOnlyArray<string>,
     projectIds: $ReadOnlyArray<string>,
-    className: ?string
+    className: ?string,
+    async: boolean,
+    debounceWindow: ?number
 };
 
+export type CircuitBreakerState = 'CLOSED' | 'OPEN' | 'HALF_OPEN';
+
 export type ListenerType = ScriptEntity & {
     uuid: string,
-    condition: ConditionType
+    condition: ConditionType,
+    circuitBreakerState: CircuitBreakerState
 };
 
 export type ListenerInputType = ScriptEntity & {
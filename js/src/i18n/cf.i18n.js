@@ -5,7 +5,17 @@ import i18n from 'external-i18n';
 import type {I18nFunction} from '../common/types';
 
 
-export const ScriptFieldMessages: {[string]: string, scriptFor: I18nFunction} = {
+export const ScriptFieldMessages: {[string]: string, scriptFor: I18nFunction, benchmarkResult: I18nFunction} = {
     scriptFor: i18n.field.scriptFor,
-    noFields: i18n.field.noFields
+    noFields: i18n.field.noFields,
+    cacheMaxEntries: i18n.field.cacheMaxEntries,
+    cacheMaxEntriesDescription: i18n.field.cacheMaxEntriesDescription,
+    cacheTtl: i18n.field.cacheTtl,
+    cacheTtlDescription: i18n.field.cacheTtlDescription,
+    benchmarkJql: i18n.field.benchmarkJql,
+    benchmarkJqlDescription: i18n.field.benchmarkJqlDescription,
+    benchmarkSampleSize: i18n.field.benchmarkSampleSize,
+    benchmarkResult: i18n.field.benchmarkResult,
+    benchmarkErrors: i18n.field.benchmarkErrors,
+    benchmarkAllocation: i18n.field.benchmarkAllocation
 };
@@ -0,0 +1,37 @@
+//@flow
+// eslint-disable-next-line import/no-extraneous-dependencies
+import i18n from 'external-i18n';
+
+import type {I18nMessages, I18nFunction} from '../common/types';
+
+
+export const ExtrasMessages: ({ [string]: string, warmUpProgress: I18nFunction }) = {
+    warmUp: i18n.extras.warmUp,
+    warmUpProgress: i18n.extras.warmUpProgress,
+    warmUpFailures: i18n.extras.warmUpFailures,
+    startWarmUp: i18n.extras.startWarmUp,
+    topScripts: i18n.extras.topScripts,
+    resetStats: i18n.extras.resetStats,
+    scriptId: i18n.extras.scriptId,
+    calls: i18n.extras.calls,
+    errors: i18n.extras.errors,
+    cpuTime: i18n.extras.cpuTime,
+    averageCpuTime: i18n.extras.averageCpuTime,
+    allocated: i18n.extras.allocated,
+    averageAllocated: i18n.extras.averageAllocated,
+    wallTime: i18n.extras.wallTime
+};
+
+export const ResourceOrderMessages: I18nMessages = {
+    CPU: i18n.extras.byCpu,
+    ALLOCATION: i18n.extras.byAllocation,
+    WALL: i18n.extras.byWallTime,
+    CALLS: i18n.extras.byCalls
+};
+
+export const WarmUpStateMessages: I18nMessages = {
+    NOT_STARTED: i18n.extras.notStarted,
+    RUNNING: i18n.extras.running,
+    COMPLETED: i18n.extras.completed,
+    CANCELLED: i18n.extras.cancelled
+};
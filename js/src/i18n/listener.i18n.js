@@ -12,10 +12,20 @@ export const ListenerMessages: I18nMessages = {
     createListener: i18n.listener.createListener,
     updateListener: i18n.listener.updateListener,
     deleteListener: i18n.listener.deleteListener,
-    noListeners: i18n.listener.noListeners
+    noListeners: i18n.listener.noListeners,
+    async: i18n.listener.async,
+    circuitBreaker: i18n.listener.circuitBreaker,
+    debounceWindow: i18n.listener.debounceWindow,
+    debounceWindowDescription: i18n.listener.debounceWindowDescription
 };
 
 export const ListenerTypeMessages: I18nMessages = {
     CLASS_NAME: i18n.listener.type.className,
     ISSUE: i18n.listener.type.issueEvent
 };
+
+export const CircuitBreakerStateMessages: I18nMessages = {
+    CLOSED: i18n.listener.circuitBreakerState.closed,
+    OPEN: i18n.listener.circuitBreakerState.open,
+    HALF_OPEN: i18n.listener.circuitBreakerState.halfOpen
+};
@@ -1,7 +1,8 @@
 //@flow
-import {getPluginBaseUrl, ajaxPost} from './ajaxHelper';
+import {getPluginBaseUrl, ajaxGet, ajaxPost, ajaxDelete} from './ajaxHelper';
 
 import type {SyntaxError} from '../common/types';
+import type {ResourceOrder, ScriptResourceStats, WarmUpStatus} from '../app-extras/types';
 
 
 export class ExtrasService {
@@ -9,6 +10,22 @@ export class ExtrasService {
         return ajaxPost(`${getPluginBaseUrl()}/extras/clearCache`);
     }
 
+    getWarmUpStatus(): Promise<WarmUpStatus> {
+        return ajaxGet(`${getPluginBaseUrl()}/extras/warmUp`);
+    }
+
+    startWarmUp(): Promise<WarmUpStatus> {
+        return ajaxPost(`${getPluginBaseUrl()}/extras/warmUp`);
+    }
+
+    getResourceStats(orderBy: ResourceOrder): Promise<$ReadOnlyArray<ScriptResourceStats>> {
+        return ajaxGet(`${getPluginBaseUrl()}/extras/resourceStats?orderBy=${orderBy}`);
+    }
+
+    resetResourceStats(): Promise<void> {
+        return ajaxDelete(`${getPluginBaseUrl()}/extras/resourceStats`);
+    }
+
     checkScript(scriptBody: string, scriptType: string, additionalParams: {[string]: string} = {}): Promise<$ReadOnlyArray<SyntaxError>> {
         return ajaxPost(`${getPluginBaseUrl()}/staticCheck`, { scriptBody, scriptType, additionalParams });
     }
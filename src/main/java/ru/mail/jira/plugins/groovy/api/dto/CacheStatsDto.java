@@ -24,4 +24,19 @@ public class CacheStatsDto {
     private final long evictionWeight;
     @XmlElement
     private final long estimatedSize;
+    //second cache level, scripts with identical body share compiled class
+    @XmlElement
+    private final long bodyHitCount;
+    @XmlElement
+    private final long bodyMissCount;
+    @XmlElement
+    private final long bodyLoadSuccessCount;
+    @XmlElement
+    private final long bodyLoadFailureCount;
+    @XmlElement
+    private final long bodyTotalLoadTime;
+    @XmlElement
+    private final long bodyEvictionCount;
+    @XmlElement
+    private final long bodyEstimatedSize;
 }
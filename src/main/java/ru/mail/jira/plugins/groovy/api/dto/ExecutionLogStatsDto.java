@@ -0,0 +1,33 @@
+package ru.mail.jira.plugins.groovy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class ExecutionLogStatsDto {
+    @XmlElement
+    private final String overflowPolicy;
+    @XmlElement
+    private final int queueSize;
+    @XmlElement
+    private final int queueCapacity;
+    @XmlElement
+    private final long writtenCount;
+    @XmlElement
+    private final long droppedCount;
+    @XmlElement
+    private final long sampledOutCount;
+    @XmlElement
+    private final long failedCount;
+    @XmlElement
+    private final long flushCount;
+    @XmlElement
+    private final long lastFlushTime;
+    @XmlElement
+    private final long maxFlushTime;
+    @XmlElement
+    private final long totalFlushTime;
+}
@@ -0,0 +1,23 @@
+package ru.mail.jira.plugins.groovy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class ExecutionStatsDto {
+    @XmlElement
+    private final long count;
+    @XmlElement
+    private final long errorCount;
+    @XmlElement
+    private final long warningCount;
+    @XmlElement
+    private final long p50;
+    @XmlElement
+    private final long p95;
+    @XmlElement
+    private final long p99;
+}
@@ -0,0 +1,24 @@
+package ru.mail.jira.plugins.groovy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class ProfileLineDto {
+    @XmlElement
+    private final int line;
+    //samples where line is executed by script itself
+    @XmlElement
+    private final long selfSamples;
+    //samples where line is on stack, including methods called from it
+    @XmlElement
+    private final long totalSamples;
+    //milliseconds, estimated from sample count
+    @XmlElement
+    private final long selfTime;
+    @XmlElement
+    private final long totalTime;
+}
@@ -0,0 +1,26 @@
+package ru.mail.jira.plugins.groovy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class ScriptProfileDto {
+    @XmlElement
+    private final String scriptId;
+    @XmlElement
+    private final boolean active;
+    @XmlElement
+    private final long startedAt;
+    @XmlElement
+    private final long sampleInterval;
+    @XmlElement
+    private final long executionCount;
+    @XmlElement
+    private final long sampleCount;
+    @XmlElement
+    private final List<ProfileLineDto> lines;
+}
@@ -0,0 +1,32 @@
+package ru.mail.jira.plugins.groovy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class ScriptResourceStatsDto {
+    @XmlElement
+    private final String scriptId;
+    @XmlElement
+    private final ScriptType type;
+    @XmlElement
+    private final long callCount;
+    @XmlElement
+    private final long errorCount;
+    //milliseconds
+    @XmlElement
+    private final double totalWallTime;
+    @XmlElement
+    private final double totalCpuTime;
+    @XmlElement
+    private final double averageCpuTime;
+    //bytes, -1 if allocation measurement isn't supported by jvm
+    @XmlElement
+    private final long totalAllocatedBytes;
+    @XmlElement
+    private final long averageAllocatedBytes;
+}
@@ -0,0 +1,17 @@
+package ru.mail.jira.plugins.groovy.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class StaticQualificationDto {
+    //script compiles statically with binding types of its script type
+    @XmlElement
+    private final boolean qualifies;
+    @XmlElement
+    private final List<Object> errors;
+}
@@ -0,0 +1,30 @@
+package ru.mail.jira.plugins.groovy.api.dto.cf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class FieldBenchmarkResult {
+    @XmlElement
+    private final int sampleSize;
+    @XmlElement
+    private final double minTime;
+    @XmlElement
+    private final double medianTime;
+    @XmlElement
+    private final double p95Time;
+    @XmlElement
+    private final double maxTime;
+    @XmlElement
+    private final int errorCount;
+    @XmlElement
+    private final double errorRate;
+    //bytes per evaluation, -1 if allocation measurement isn't supported by jvm
+    @XmlElement
+    private final long allocatedBytes;
+    @XmlElement
+    private final String firstError;
+}
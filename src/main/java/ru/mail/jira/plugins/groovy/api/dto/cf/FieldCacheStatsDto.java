@@ -0,0 +1,35 @@
+package ru.mail.jira.plugins.groovy.api.dto.cf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class FieldCacheStatsDto {
+    @XmlElement
+    private final long fieldId;
+    @XmlElement
+    private final long size;
+    @XmlElement
+    private final int maxEntries;
+    @XmlElement
+    private final long ttl;
+    @XmlElement
+    private final long weight;
+    @XmlElement
+    private final long hitCount;
+    @XmlElement
+    private final long missCount;
+    @XmlElement
+    private final double hitRate;
+    @XmlElement
+    private final long loadCount;
+    @XmlElement
+    private final long totalLoadTime;
+    @XmlElement
+    private final double averageLoadTime;
+    @XmlElement
+    private final long evictionCount;
+}
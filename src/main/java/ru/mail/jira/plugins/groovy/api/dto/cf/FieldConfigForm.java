@@ -19,4 +19,8 @@ public class FieldConfigForm {
     private boolean cacheable;
     @XmlElement
     private boolean velocityParamsEnabled;
+    @XmlElement
+    private Integer cacheMaxEntries;
+    @XmlElement
+    private Long cacheTtl;
 }
@@ -0,0 +1,23 @@
+package ru.mail.jira.plugins.groovy.api.dto.cf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class FieldReindexStatsDto {
+    @XmlElement
+    private final long fieldId;
+    @XmlElement
+    private final String fieldName;
+    @XmlElement
+    private final long evaluationCount;
+    @XmlElement
+    private final long totalTime;
+    @XmlElement
+    private final double averageTime;
+    @XmlElement
+    private final long maxTime;
+}
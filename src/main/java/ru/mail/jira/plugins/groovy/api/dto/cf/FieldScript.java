@@ -22,4 +22,8 @@ public class FieldScript {
     private boolean cacheable;
     @XmlElement
     private boolean withVelocityParams;
+    @XmlElement
+    private Integer cacheMaxEntries;
+    @XmlElement
+    private Long cacheTtl;
 }
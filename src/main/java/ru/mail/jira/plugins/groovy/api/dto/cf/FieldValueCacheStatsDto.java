@@ -0,0 +1,18 @@
+package ru.mail.jira.plugins.groovy.api.dto.cf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class FieldValueCacheStatsDto {
+    @XmlElement
+    private final long weight;
+    @XmlElement
+    private final long maxWeight;
+    @XmlElement
+    private final List<FieldCacheStatsDto> fields;
+}
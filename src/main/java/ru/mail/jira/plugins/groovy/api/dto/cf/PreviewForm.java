@@ -13,4 +13,8 @@ public class PreviewForm {
     private FieldConfigForm configForm;
     @XmlElement
     private String issueKey;
+    @XmlElement
+    private String jql;
+    @XmlElement
+    private Integer sampleSize;
 }
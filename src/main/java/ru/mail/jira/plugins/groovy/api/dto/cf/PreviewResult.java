@@ -16,4 +16,6 @@ public class PreviewResult {
     private String htmlResult;
     @XmlElement
     private long time;
+    @XmlElement
+    private FieldBenchmarkResult benchmark;
 }
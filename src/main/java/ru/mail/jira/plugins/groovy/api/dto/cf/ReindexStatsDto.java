@@ -0,0 +1,20 @@
+package ru.mail.jira.plugins.groovy.api.dto.cf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class ReindexStatsDto {
+    @XmlElement
+    private final boolean inProgress;
+    @XmlElement
+    private final Long startedAt;
+    @XmlElement
+    private final Long finishedAt;
+    @XmlElement
+    private final List<FieldReindexStatsDto> fields;
+}
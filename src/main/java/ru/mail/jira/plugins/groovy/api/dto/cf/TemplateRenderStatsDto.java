@@ -0,0 +1,21 @@
+package ru.mail.jira.plugins.groovy.api.dto.cf;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class TemplateRenderStatsDto {
+    @XmlElement
+    private final long fieldId;
+    @XmlElement
+    private final long renderCount;
+    @XmlElement
+    private final long totalRenderTime;
+    @XmlElement
+    private final double averageRenderTime;
+    @XmlElement
+    private final long maxRenderTime;
+}
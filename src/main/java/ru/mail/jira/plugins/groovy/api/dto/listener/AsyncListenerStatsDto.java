@@ -0,0 +1,28 @@
+package ru.mail.jira.plugins.groovy.api.dto.listener;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@AllArgsConstructor @XmlRootElement @Getter
+public class AsyncListenerStatsDto {
+    @XmlElement
+    private final int partitionCount;
+    @XmlElement
+    private final int queueSize;
+    @XmlElement
+    private final int queueCapacity;
+    @XmlElement
+    private final long executedCount;
+    @XmlElement
+    private final long droppedCount;
+    //deprecated, same as droppedCount, overflowed executions were previously executed in publishing thread
+    @XmlElement
+    private final long inlineCount;
+    @XmlElement
+    private final long lastLag;
+    @XmlElement
+    private final long maxLag;
+}
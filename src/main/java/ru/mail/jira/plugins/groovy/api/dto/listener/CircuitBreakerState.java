@@ -0,0 +1,9 @@
+package ru.mail.jira.plugins.groovy.api.dto.listener;
+
+public enum CircuitBreakerState {
+    CLOSED,
+    //listener is not executed until cool-down period is over
+    OPEN,
+    //single probe execution decides whether breaker is closed or opened again
+    HALF_OPEN
+}
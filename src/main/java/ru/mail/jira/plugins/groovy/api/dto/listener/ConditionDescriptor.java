@@ -20,6 +20,12 @@ public class ConditionDescriptor {
     private Set<Long> projectIds;
     @XmlElement
     private Set<Long> typeIds;
+    //listener is executed in background, events for same issue are processed in order
+    @XmlElement
+    private boolean async;
+    //issue events for same issue within window (ms) are collapsed into single execution
+    @XmlElement
+    private Long debounceWindow;
 
     private Class classInstance;
 }
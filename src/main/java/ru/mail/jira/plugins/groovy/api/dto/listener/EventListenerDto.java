@@ -21,4 +21,6 @@ public class EventListenerDto extends EventListenerForm {
     private Integer errorCount;
     @XmlElement
     private Integer warningCount;
+    @XmlElement
+    private CircuitBreakerState circuitBreakerState;
 }
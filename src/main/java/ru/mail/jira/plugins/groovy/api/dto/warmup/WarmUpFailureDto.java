@@ -0,0 +1,22 @@
+package ru.mail.jira.plugins.groovy.api.dto.warmup;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.mail.jira.plugins.groovy.api.entity.EntityType;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+@Getter
+@AllArgsConstructor
+@XmlRootElement
+public class WarmUpFailureDto {
+    @XmlElement
+    private final EntityType type;
+    @XmlElement
+    private final String id;
+    @XmlElement
+    private final String name;
+    @XmlElement
+    private final String error;
+}
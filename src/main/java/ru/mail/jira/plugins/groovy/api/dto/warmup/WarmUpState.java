@@ -0,0 +1,8 @@
+package ru.mail.jira.plugins.groovy.api.dto.warmup;
+
+public enum WarmUpState {
+    NOT_STARTED,
+    RUNNING,
+    COMPLETED,
+    CANCELLED
+}
@@ -0,0 +1,23 @@
+package ru.mail.jira.plugins.groovy.api.dto.warmup;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+@Getter @Setter
+@XmlRootElement
+public class WarmUpStatusDto {
+    @XmlElement
+    private WarmUpState state;
+    @XmlElement
+    private int total;
+    @XmlElement
+    private int completed;
+    @XmlElement
+    private long duration;
+    @XmlElement
+    private List<WarmUpFailureDto> failures;
+}
@@ -32,6 +32,13 @@ public interface FieldConfig extends Entity {
     Boolean getCacheable();
     void setCacheable(Boolean cacheable);
 
+    Integer getCacheMaxEntries();
+    void setCacheMaxEntries(Integer cacheMaxEntries);
+
+    //seconds
+    Long getCacheTtl();
+    void setCacheTtl(Long cacheTtl);
+
     @OneToMany(reverse = "getFieldConfig")
     FieldConfigChangelog[] getChangelogs();
 }
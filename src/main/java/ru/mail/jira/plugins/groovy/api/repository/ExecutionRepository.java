@@ -1,5 +1,7 @@
 package ru.mail.jira.plugins.groovy.api.repository;
 
+import ru.mail.jira.plugins.groovy.api.dto.ExecutionLogStatsDto;
+import ru.mail.jira.plugins.groovy.api.dto.ExecutionStatsDto;
 import ru.mail.jira.plugins.groovy.api.dto.ScriptExecutionDto;
 
 import java.sql.Timestamp;
@@ -37,4 +39,11 @@ public interface ExecutionRepository {
     int getWarningCount(int id);
 
     int getWarningCount(String id);
+
+    //rolling stats by window name
+    Map<String, ExecutionStatsDto> getRegistryStats(int id);
+
+    Map<String, ExecutionStatsDto> getInlineStats(String id);
+
+    ExecutionLogStatsDto getLogStats();
 }
@@ -0,0 +1,15 @@
+package ru.mail.jira.plugins.groovy.api.script;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+//overrides default execution budget of script type, values are in milliseconds, 0 disables limit
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExecutionBudget {
+    long wallTime() default -1;
+
+    long cpuTime() default -1;
+
+    //interrupts script thread when budget is exceeded, so script that waits for io or lock is stopped too
+    boolean interrupt() default false;
+}
@@ -0,0 +1,19 @@
+package ru.mail.jira.plugins.groovy.api.script;
+
+import lombok.Getter;
+
+@Getter
+public class ScriptTimeoutException extends RuntimeException {
+    private final String scriptId;
+    private final ScriptType type;
+    private final String budget;
+    private final long limit;
+
+    public ScriptTimeoutException(String scriptId, ScriptType type, String budget, long limit) {
+        super("Script " + (scriptId != null ? scriptId : "<inline>") + " (" + type + ") exceeded " + budget + " budget of " + limit + " ms");
+        this.scriptId = scriptId;
+        this.type = type;
+        this.budget = budget;
+        this.limit = limit;
+    }
+}
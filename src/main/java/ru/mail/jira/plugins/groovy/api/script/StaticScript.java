@@ -0,0 +1,9 @@
+package ru.mail.jira.plugins.groovy.api.script;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+//script is compiled statically with types of bindings that are provided by script type
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StaticScript {
+}
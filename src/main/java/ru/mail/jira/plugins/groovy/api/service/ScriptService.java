@@ -9,8 +9,28 @@ import java.util.Map;
 public interface ScriptService {
     Object executeScript(String scriptId, String scriptString, ScriptType type, Map<String, Object> bindings) throws Exception;
 
+    /**
+     * Types of bindings are used only if script is marked with @StaticScript, other scripts are executed dynamically
+     */
+    Object executeScript(String scriptId, String scriptString, ScriptType type, Map<String, Object> bindings, Map<String, Class> types) throws Exception;
+
     Object executeScriptStatic(String scriptId, String scriptString, ScriptType type, Map<String, Object> bindings, Map<String, Class> types) throws Exception;
 
+    /**
+     * Invokes method declared in script instead of running script body
+     */
+    Object executeScriptMethod(String scriptId, String scriptString, ScriptType type, String methodName, Map<String, Object> bindings, Map<String, Class> types, Object... args) throws Exception;
+
+    /**
+     * Checks if script declares method with given name and number of parameters
+     */
+    boolean hasScriptMethod(String scriptId, String scriptString, String methodName, int parameterCount, Map<String, Class> types);
+
+    /**
+     * Compiles script and puts it into cache without executing it
+     */
+    void precompile(String scriptId, String scriptString, Map<String, Class> types);
+
     ParseContext parseScript(String script);
 
     ParseContext parseScriptStatic(String script, Map<String, Class> types);
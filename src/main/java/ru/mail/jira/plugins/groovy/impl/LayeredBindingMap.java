@@ -0,0 +1,122 @@
+package ru.mail.jira.plugins.groovy.impl;
+
+import java.util.*;
+
+//binding variables backed by read-only layers, so shared values don't have to be copied for each execution
+//writes always go to the top layer, lookups check top layer first and then read-only layers in order
+final class LayeredBindingMap extends AbstractMap<String, Object> {
+    //marks variable from read-only layer as removed
+    private static final Object TOMBSTONE = new Object();
+
+    private final Map<String, Object> top;
+    private final List<Map<String, ?>> layers;
+
+    @SafeVarargs
+    LayeredBindingMap(Map<String, Object> top, Map<String, ?>... layers) {
+        this.top = top;
+        this.layers = Arrays.asList(layers);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = top.get(key);
+        if (value == TOMBSTONE) {
+            return null;
+        }
+        if (value != null || top.containsKey(key)) {
+            return value;
+        }
+
+        for (Map<String, ?> layer : layers) {
+            value = layer.get(key);
+            if (value != null || layer.containsKey(key)) {
+                return value;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (top.containsKey(key)) {
+            return top.get(key) != TOMBSTONE;
+        }
+
+        return isInLayers(key, layers.size());
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object previous = get(key);
+        top.put(key, value);
+        return previous;
+    }
+
+    //read-only layers aren't modified, removed variable is hidden by tombstone in the top layer
+    @Override
+    public Object remove(Object key) {
+        Object previous = get(key);
+
+        if (isInLayers(key, layers.size())) {
+            top.put((String) key, TOMBSTONE);
+        } else {
+            top.remove(key);
+        }
+
+        return previous;
+    }
+
+    //counted without merging layers, scripts often check size of binding variables
+    @Override
+    public int size() {
+        int result = 0;
+        for (Entry<String, Object> entry : top.entrySet()) {
+            if (entry.getValue() != TOMBSTONE) {
+                result++;
+            }
+        }
+
+        for (int i = 0; i < layers.size(); ++i) {
+            for (String key : layers.get(i).keySet()) {
+                if (!top.containsKey(key) && !isInLayers(key, i)) {
+                    result++;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    //returns true if key is present in one of first count layers
+    private boolean isInLayers(Object key, int count) {
+        for (int i = 0; i < count; ++i) {
+            if (layers.get(i).containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //merges all layers into new map on each call, values() and iteration over binding variables go through it
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = layers.size() - 1; i >= 0; --i) {
+            result.putAll(layers.get(i));
+        }
+        for (Entry<String, Object> entry : top.entrySet()) {
+            if (entry.getValue() == TOMBSTONE) {
+                result.remove(entry.getKey());
+            } else {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(result).entrySet();
+    }
+}
@@ -37,6 +37,7 @@ public final class PluginLauncherImpl implements LifecycleAware, PluginLauncher
     private final OldExecutionDeletionScheduler executionDeletionScheduler;
     private final JqlInitializer jqlInitializer;
     private final JqlFunctionServiceImpl jqlFunctionServiceImpl;
+    private final ScriptWarmUpService scriptWarmUpService;
 
     private volatile boolean initialized = false;
 
@@ -47,7 +48,8 @@ public final class PluginLauncherImpl implements LifecycleAware, PluginLauncher
         ScheduledTaskServiceImpl scheduledTaskService,
         OldExecutionDeletionScheduler executionDeletionScheduler,
         JqlInitializer jqlInitializer,
-        JqlFunctionServiceImpl jqlFunctionServiceImpl
+        JqlFunctionServiceImpl jqlFunctionServiceImpl,
+        ScriptWarmUpService scriptWarmUpService
     ) {
         this.eventPublisher = eventPublisher;
         this.eventListenerInvoker = eventListenerInvoker;
@@ -55,6 +57,7 @@ public final class PluginLauncherImpl implements LifecycleAware, PluginLauncher
         this.executionDeletionScheduler = executionDeletionScheduler;
         this.jqlInitializer = jqlInitializer;
         this.jqlFunctionServiceImpl = jqlFunctionServiceImpl;
+        this.scriptWarmUpService = scriptWarmUpService;
     }
 
     private enum SystemPhase {
@@ -118,6 +121,7 @@ public final class PluginLauncherImpl implements LifecycleAware, PluginLauncher
 
     @PreDestroy
     public void onSpringContextStopped() {
+        scriptWarmUpService.onStop();
         eventListenerInvoker.onStop();
         scheduledTaskService.onStop();
         executionDeletionScheduler.onStop();
@@ -136,6 +140,7 @@ public final class PluginLauncherImpl implements LifecycleAware, PluginLauncher
             executionDeletionScheduler.onStart();
             jqlInitializer.onStart();
             jqlFunctionServiceImpl.onStart();
+            scriptWarmUpService.onStart();
 
             logger.info("Plugin initialized");
 
@@ -0,0 +1,256 @@
+package ru.mail.jira.plugins.groovy.impl;
+
+import com.atlassian.jira.config.util.JiraHome;
+import com.atlassian.jira.util.BuildUtilsInfo;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.ScriptParamDto;
+import ru.mail.jira.plugins.groovy.api.script.ParamType;
+import ru.mail.jira.plugins.groovy.api.script.ScriptInjection;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+//stores compiled script classes in local jira home, so they don't have to be recompiled after restart
+//entries are bound to jira build and versions of plugins used by script, classes from other versions can fail at runtime
+@Component
+public class ScriptBytecodeStore {
+    private static final int FORMAT_VERSION = 2;
+    private static final String FILE_EXTENSION = ".class-bundle";
+    private static final long UNUSED_TTL = TimeUnit.DAYS.toMillis(30);
+
+    private final Logger logger = LoggerFactory.getLogger(ScriptBytecodeStore.class);
+    private final Path directory;
+    private final String jiraBuild;
+
+    @Autowired
+    public ScriptBytecodeStore(
+        @ComponentImport JiraHome jiraHome,
+        @ComponentImport BuildUtilsInfo buildUtilsInfo
+    ) {
+        this(new File(jiraHome.getLocalHome(), "caches/mailru-groovy/classes"), buildUtilsInfo.getCurrentBuildNumber());
+    }
+
+    ScriptBytecodeStore(File directory, String jiraBuild) {
+        this.directory = directory.toPath();
+        this.jiraBuild = jiraBuild;
+    }
+
+    //pluginVersions returns current version of plugin by key, or null if plugin isn't available
+    public Entry load(String key, String fingerprint, Function<String, String> pluginVersions) {
+        Path file = getFile(key);
+
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!readHeader(in, fingerprint)) {
+                logger.debug("deleting stale entry {}", file);
+                Files.deleteIfExists(file);
+                return null;
+            }
+
+            int pluginCount = in.readInt();
+            Set<String> plugins = new HashSet<>();
+            for (int i = 0; i < pluginCount; ++i) {
+                String plugin = in.readUTF();
+                String version = in.readUTF();
+
+                if (!version.equals(Objects.toString(pluginVersions.apply(plugin), ""))) {
+                    logger.debug("deleting entry {} compiled with other version of plugin {}", file, plugin);
+                    Files.deleteIfExists(file);
+                    return null;
+                }
+
+                plugins.add(plugin);
+            }
+
+            String mainClass = in.readUTF();
+
+            int classCount = in.readInt();
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            for (int i = 0; i < classCount; ++i) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+
+            int injectionCount = in.readInt();
+            List<ScriptInjection> injections = new ArrayList<>();
+            for (int i = 0; i < injectionCount; ++i) {
+                injections.add(new ScriptInjection(readNullableString(in), in.readUTF(), in.readUTF()));
+            }
+
+            int paramCount = in.readInt();
+            List<ScriptParamDto> params = new ArrayList<>();
+            for (int i = 0; i < paramCount; ++i) {
+                params.add(new ScriptParamDto(
+                    in.readUTF(),
+                    readNullableString(in),
+                    ParamType.valueOf(in.readUTF()),
+                    in.readBoolean()
+                ));
+            }
+
+            //last modified time is used to prune entries that are not used anymore
+            file.toFile().setLastModified(System.currentTimeMillis());
+
+            return new Entry(mainClass, classes, plugins, injections, params);
+        } catch (Exception e) {
+            logger.warn("unable to read stored classes from {}", file, e);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    public void save(String key, String fingerprint, Entry entry, Function<String, String> pluginVersions) {
+        Path file = getFile(key);
+
+        try {
+            Files.createDirectories(directory);
+
+            Path tempFile = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(fingerprint);
+                out.writeUTF(jiraBuild);
+
+                out.writeInt(entry.getPlugins().size());
+                for (String plugin : entry.getPlugins()) {
+                    out.writeUTF(plugin);
+                    out.writeUTF(Objects.toString(pluginVersions.apply(plugin), ""));
+                }
+
+                out.writeUTF(entry.getMainClass());
+
+                out.writeInt(entry.getClasses().size());
+                for (Map.Entry<String, byte[]> classEntry : entry.getClasses().entrySet()) {
+                    out.writeUTF(classEntry.getKey());
+                    out.writeInt(classEntry.getValue().length);
+                    out.write(classEntry.getValue());
+                }
+
+                out.writeInt(entry.getInjections().size());
+                for (ScriptInjection injection : entry.getInjections()) {
+                    writeNullableString(out, injection.getPlugin());
+                    out.writeUTF(injection.getClassName());
+                    out.writeUTF(injection.getVariableName());
+                }
+
+                out.writeInt(entry.getParameters().size());
+                for (ScriptParamDto param : entry.getParameters()) {
+                    out.writeUTF(param.getName());
+                    writeNullableString(out, param.getDisplayName());
+                    out.writeUTF(param.getParamType().name());
+                    out.writeBoolean(param.isOptional());
+                }
+            } catch (IOException e) {
+                deleteQuietly(tempFile);
+                throw e;
+            }
+
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            logger.warn("unable to store compiled classes to {}", file, e);
+        }
+    }
+
+    public void prune(String fingerprint) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        long minLastModified = System.currentTimeMillis() - UNUSED_TTL;
+        int deleted = 0;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isStale(file, fingerprint, minLastModified)) {
+                    deleteQuietly(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("unable to prune stored classes", e);
+        }
+
+        logger.info("Deleted {} stale compiled scripts", deleted);
+    }
+
+    public void clear() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            logger.warn("unable to clear stored classes", e);
+        }
+    }
+
+    private boolean isStale(Path file, String fingerprint, long minLastModified) {
+        if (!file.getFileName().toString().endsWith(FILE_EXTENSION)) {
+            //leftovers of interrupted writes
+            return true;
+        }
+
+        if (file.toFile().lastModified() < minLastModified) {
+            return true;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return !readHeader(in, fingerprint);
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private boolean readHeader(DataInputStream in, String fingerprint) throws IOException {
+        return in.readInt() == FORMAT_VERSION && fingerprint.equals(in.readUTF()) && jiraBuild.equals(in.readUTF());
+    }
+
+    private Path getFile(String key) {
+        return directory.resolve(key + FILE_EXTENSION);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("unable to delete {}", file, e);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Entry {
+        private final String mainClass;
+        private final Map<String, byte[]> classes;
+        private final Set<String> plugins;
+        private final List<ScriptInjection> injections;
+        private final List<ScriptParamDto> parameters;
+    }
+}
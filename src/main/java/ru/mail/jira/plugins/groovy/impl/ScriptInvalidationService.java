@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldReindexContext;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldTemplateService;
 import ru.mail.jira.plugins.groovy.impl.cf.FieldValueCache;
 
 @Component
@@ -24,17 +26,23 @@ public class ScriptInvalidationService implements LifecycleAware {
     private final ClusterMessagingService clusterMessagingService;
     private final ScriptService scriptService;
     private final FieldValueCache fieldValueCache;
+    private final FieldTemplateService fieldTemplateService;
+    private final FieldReindexContext fieldReindexContext;
     private final MessageConsumer messageConsumer;
 
     @Autowired
     public ScriptInvalidationService(
         @ComponentImport ClusterMessagingService clusterMessagingService,
         ScriptService scriptService,
-        FieldValueCache fieldValueCache
+        FieldValueCache fieldValueCache,
+        FieldTemplateService fieldTemplateService,
+        FieldReindexContext fieldReindexContext
     ) {
         this.clusterMessagingService = clusterMessagingService;
         this.scriptService = scriptService;
         this.fieldValueCache = fieldValueCache;
+        this.fieldTemplateService = fieldTemplateService;
+        this.fieldReindexContext = fieldReindexContext;
         this.messageConsumer = new MessageConsumer();
     }
 
@@ -54,22 +62,28 @@ public class ScriptInvalidationService implements LifecycleAware {
         logger.debug("sending invalidation message for field {}", fieldId);
         clusterMessagingService.sendRemote(FIELD_INVALIDATION_CHANNEL, String.valueOf(fieldId));
         fieldValueCache.invalidateField(fieldId);
+        fieldTemplateService.invalidateField(fieldId);
+        fieldReindexContext.invalidateField(fieldId);
     }
 
     public void invalidateAllFields() {
         logger.debug("sending invalidation message for all fields");
         clusterMessagingService.sendRemote(FIELD_INVALIDATION_CHANNEL, "");
         fieldValueCache.invalidateAll();
+        fieldTemplateService.invalidateAll();
+        fieldReindexContext.invalidateAll();
     }
 
     @Override
     public void onStart() {
         this.clusterMessagingService.registerListener(SCRIPT_INVALIDATION_CHANNEL, this.messageConsumer);
+        this.clusterMessagingService.registerListener(FIELD_INVALIDATION_CHANNEL, this.messageConsumer);
     }
 
     @Override
     public void onStop() {
         this.clusterMessagingService.unregisterListener(SCRIPT_INVALIDATION_CHANNEL, this.messageConsumer);
+        this.clusterMessagingService.unregisterListener(FIELD_INVALIDATION_CHANNEL, this.messageConsumer);
     }
 
     private class MessageConsumer implements ClusterMessageConsumer {
@@ -85,10 +99,14 @@ public class ScriptInvalidationService implements LifecycleAware {
             } else if (FIELD_INVALIDATION_CHANNEL.equals(channel)) {
                 if (StringUtils.isEmpty(message)) {
                     fieldValueCache.invalidateAll();
+                    fieldTemplateService.invalidateAll();
+                    fieldReindexContext.invalidateAll();
                 } else {
                     Long fieldId = Longs.tryParse(message);
                     if (fieldId != null) {
                         fieldValueCache.invalidateField(fieldId);
+                        fieldTemplateService.invalidateField(fieldId);
+                        fieldReindexContext.invalidateField(fieldId);
                     } else {
                         logger.error("unable to parse field id {}", message);
                     }
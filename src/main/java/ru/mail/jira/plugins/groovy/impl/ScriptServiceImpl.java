@@ -4,16 +4,21 @@ import com.atlassian.plugin.Plugin;
 import com.atlassian.plugin.event.PluginEventListener;
 import com.atlassian.plugin.event.PluginEventManager;
 import com.atlassian.plugin.event.events.PluginDisablingEvent;
+import com.atlassian.plugin.event.events.PluginEnabledEvent;
 import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
 import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import com.atlassian.util.concurrent.ThreadFactories;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalListener;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
 import groovy.lang.*;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.control.*;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
 import org.codehaus.groovy.control.messages.WarningMessage;
 import org.codehaus.groovy.runtime.InvokerHelper;
@@ -26,10 +31,13 @@ import ru.mail.jira.plugins.groovy.api.script.CompiledScript;
 import ru.mail.jira.plugins.groovy.api.dto.CacheStatsDto;
 import ru.mail.jira.plugins.groovy.api.script.ParseContext;
 import ru.mail.jira.plugins.groovy.api.script.ScriptInjection;
+import ru.mail.jira.plugins.groovy.api.script.StaticScript;
 import ru.mail.jira.plugins.groovy.api.service.GlobalFunctionManager;
 import ru.mail.jira.plugins.groovy.api.service.InjectionResolver;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.impl.execution.ScriptProfiler;
+import ru.mail.jira.plugins.groovy.impl.execution.ScriptResourceTracker;
 import ru.mail.jira.plugins.groovy.impl.groovy.*;
 import ru.mail.jira.plugins.groovy.impl.groovy.statik.CompileStaticExtension;
 import ru.mail.jira.plugins.groovy.impl.groovy.statik.DeprecatedAstVisitor;
@@ -37,49 +45,109 @@ import ru.mail.jira.plugins.groovy.impl.var.GlobalVariable;
 import ru.mail.jira.plugins.groovy.impl.var.HttpClientGlobalVariable;
 import ru.mail.jira.plugins.groovy.impl.var.LoggerGlobalVariable;
 import ru.mail.jira.plugins.groovy.impl.var.TemplateEngineGlobalVariable;
+import ru.mail.jira.plugins.groovy.util.Const;
 import ru.mail.jira.plugins.groovy.util.DelegatingClassLoader;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 @ExportAsService({ScriptService.class, LifecycleAware.class})
 @Component
 public class ScriptServiceImpl implements ScriptService, LifecycleAware {
     private final Logger logger = LoggerFactory.getLogger(ScriptServiceImpl.class);
+    //opt-in, metaclass changes made by cached script are visible to its next executions
+    private final boolean reuseMetaClass = Boolean.getBoolean("ru.mail.jira.plugins.groovy.reuseMetaClass");
     private final ReadWriteLock rwLock = new ReentrantReadWriteLock(); //todo: remove?
     private final Map<String, ScriptClosure> globalFunctions = new HashMap<>();
     private final Map<String, GlobalVariable> globalVariables = new HashMap<>();
     private final Map<String, Class> globalVariableTypes = new HashMap<>();
     private final ParseContextHolder parseContextHolder = new ParseContextHolder();
-    private final Cache<String, CompiledScript> scriptCache = Caffeine
+    //each compilation uses its own CompilationUnit and InnerLoader, so distinct scripts are compiled in parallel
+    //compilations are not queued, if all threads are busy script is compiled by calling thread
+    private final ExecutorService compileExecutor = new ThreadPoolExecutor(
+        Math.min(4, Runtime.getRuntime().availableProcessors()),
+        Math.min(4, Runtime.getRuntime().availableProcessors()),
+        0L, TimeUnit.MILLISECONDS,
+        new SynchronousQueue<>(),
+        ThreadFactories.namedThreadFactory("MAILRU_GROOVY_COMPILER")
+    );
+    //number of cache entries that reference compiled script, its class is cleaned up when last entry is removed
+    private final Map<CompletableFuture<CompiledScript>, Integer> cacheReferences = new ConcurrentHashMap<>();
+    //caches contain futures, so concurrent requests for same script wait for single in-flight compilation
+    private final Cache<String, CompletableFuture<CompiledScript>> scriptCache = Caffeine
         .newBuilder()
         .maximumSize(1000)
         .expireAfterAccess(1, TimeUnit.HOURS)
+        .removalListener((RemovalListener<String, CompletableFuture<CompiledScript>>) (key, value, cause) -> onCompiledScriptRemoved(value))
         .recordStats()
         .build();
+    //second level, scripts with identical body and compile options share compiled class
+    private final Cache<ScriptCacheKey, CompletableFuture<CompiledScript>> classCache = Caffeine
+        .newBuilder()
+        .maximumSize(1000)
+        .expireAfterAccess(1, TimeUnit.HOURS)
+        .removalListener((RemovalListener<ScriptCacheKey, CompletableFuture<CompiledScript>>) (key, value, cause) -> onCompiledScriptRemoved(value))
+        .recordStats()
+        .build();
+    //resolved injections and global functions, shared by all executions of compiled script
+    private final Cache<CompiledScript, Map<String, Object>> bindingTemplates = Caffeine
+        .newBuilder()
+        .weakKeys()
+        .build();
+    //constructors of cached script classes, scripts are created without InvokerHelper lookups
+    private final Cache<Class, Optional<MethodHandle>> scriptConstructors = Caffeine
+        .newBuilder()
+        .weakKeys()
+        .build();
 
     private final InjectionResolver injectionResolver;
     private final PluginEventManager pluginEventManager;
     private final GlobalFunctionManager globalFunctionManager;
     private final DelegatingClassLoader classLoader;
+    private final ScriptBytecodeStore bytecodeStore;
+    private final ScriptWatchdog scriptWatchdog;
+    private final ScriptResourceTracker resourceTracker;
+    private final ScriptProfiler scriptProfiler;
     private final GroovyClassLoader gcl;
     private final CompilerConfiguration compilerConfiguration;
+    private final String compilerFingerprint;
 
     @Autowired
     public ScriptServiceImpl(
         @ComponentImport PluginEventManager pluginEventManager,
         InjectionResolver injectionResolver,
         GlobalFunctionManager globalFunctionManager,
-        DelegatingClassLoader classLoader
+        DelegatingClassLoader classLoader,
+        ScriptBytecodeStore bytecodeStore,
+        ScriptWatchdog scriptWatchdog,
+        ScriptResourceTracker resourceTracker,
+        ScriptProfiler scriptProfiler
     ) {
         this.pluginEventManager = pluginEventManager;
         this.injectionResolver = injectionResolver;
         this.globalFunctionManager = globalFunctionManager;
         this.classLoader = classLoader;
+        this.bytecodeStore = bytecodeStore;
+        this.scriptWatchdog = scriptWatchdog;
+        this.resourceTracker = resourceTracker;
+        this.scriptProfiler = scriptProfiler;
         this.compilerConfiguration = new CompilerConfiguration()
             .addCompilationCustomizers(
                 new CompileStaticExtension(parseContextHolder, this),
@@ -87,7 +155,8 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
                 new WithPluginGroovyExtension(parseContextHolder),
                 new LoadClassesExtension(parseContextHolder, injectionResolver, classLoader),
                 new InjectionExtension(parseContextHolder),
-                new ParamExtension(parseContextHolder)
+                new ParamExtension(parseContextHolder),
+                new TimeoutExtension(scriptWatchdog.isTypeBudgetsConfigured())
             );
         this.compilerConfiguration.setWarningLevel(WarningMessage.LIKELY_ERRORS);
         this.compilerConfiguration.setTolerance(10);
@@ -98,16 +167,48 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
             classLoader,
             this.compilerConfiguration
         );
+        this.compilerFingerprint = buildCompilerFingerprint();
     }
 
     @Override
     public Object executeScript(String scriptId, String scriptString, ScriptType type, Map<String, Object> bindings) throws Exception {
-        return doExecuteScript(scriptId, scriptString, type, bindings, false, null);
+        return doExecuteScript(scriptId, scriptString, type, bindings, false, null, Script::run);
+    }
+
+    @Override
+    public Object executeScript(String scriptId, String scriptString, ScriptType type, Map<String, Object> bindings, Map<String, Class> types) throws Exception {
+        return doExecuteScript(scriptId, scriptString, type, bindings, false, types, Script::run);
     }
 
     @Override
     public Object executeScriptStatic(String scriptId, String scriptString, ScriptType type, Map<String, Object> bindings, Map<String, Class> types) throws Exception {
-        return doExecuteScript(scriptId, scriptString, type, bindings, true, types);
+        return doExecuteScript(scriptId, scriptString, type, bindings, true, types, Script::run);
+    }
+
+    @Override
+    public Object executeScriptMethod(
+        String scriptId, String scriptString, ScriptType type, String methodName,
+        Map<String, Object> bindings, Map<String, Class> types, Object... args
+    ) throws Exception {
+        return doExecuteScript(scriptId, scriptString, type, bindings, false, types, script -> script.invokeMethod(methodName, args));
+    }
+
+    @Override
+    public boolean hasScriptMethod(String scriptId, String scriptString, String methodName, int parameterCount, Map<String, Class> types) {
+        Class scriptClass = getCompiledScript(scriptId, scriptString, false, types).getScriptClass();
+
+        for (Method method : scriptClass.getDeclaredMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == parameterCount) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void precompile(String scriptId, String scriptString, Map<String, Class> types) {
+        getCompiledScript(scriptId, scriptString, false, types);
     }
 
     @Override
@@ -137,6 +238,7 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
     @Override
     public CacheStatsDto getCacheStats() {
         CacheStats stats = scriptCache.stats();
+        CacheStats bodyStats = classCache.stats();
 
         return new CacheStatsDto(
             stats.hitCount(),
@@ -146,7 +248,14 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
             stats.totalLoadTime(),
             stats.evictionCount(),
             stats.evictionWeight(),
-            scriptCache.estimatedSize()
+            scriptCache.estimatedSize(),
+            bodyStats.hitCount(),
+            bodyStats.missCount(),
+            bodyStats.loadSuccessCount(),
+            bodyStats.loadFailureCount(),
+            bodyStats.totalLoadTime(),
+            bodyStats.evictionCount(),
+            classCache.estimatedSize()
         );
     }
 
@@ -162,58 +271,156 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
 
     @Override
     public void invalidateAll() {
+        invalidateMemoryCaches();
+        bytecodeStore.clear();
+    }
+
+    private void invalidateMemoryCaches() {
         scriptCache.invalidateAll();
+        classCache.invalidateAll();
+        bindingTemplates.invalidateAll();
         gcl.clearCache();
     }
 
     private Object doExecuteScript(
         String scriptId, String scriptString, ScriptType type, Map<String, Object> externalBindings,
-        boolean compileStatic, Map<String, Class> types
+        boolean compileStatic, Map<String, Class> types, Function<Script, Object> action
     ) throws Exception {
         logger.debug("started execution");
 
-        CompiledScript compiledScript = null;
+        CompiledScript compiledScript = getCompiledScript(scriptId, scriptString, compileStatic, types);
 
-        if (scriptId != null) {
-            compiledScript = scriptCache.get(scriptId, ignore -> parseClass(scriptString, false, compileStatic, types));
+        //make sure that plugin classes can be loaded for cached scripts
+        ensurePluginsAvailable(compiledScript.getParseContext().getPlugins());
+
+        logger.debug("created class");
+
+        //injections, global functions and global variables override external bindings
+        Map<String, Object> callBindings = new HashMap<>();
+        callBindings.put("scriptType", type);
+        for (Map.Entry<String, GlobalVariable> entry : globalVariables.entrySet()) {
+            callBindings.put(entry.getKey(), entry.getValue().getValue(scriptId));
         }
 
-        if (compiledScript == null) {
-            compiledScript = parseClass(scriptString, false, compileStatic, types);
+        Map<String, Object> bindings = new LayeredBindingMap(
+            callBindings, getBindingTemplate(compiledScript), externalBindings
+        );
+
+        logger.debug("initialized bindings");
+
+        Script script = null;
+        if (scriptId != null) {
+            script = createCachedScript(compiledScript.getScriptClass(), new Binding(bindings));
+        }
+        //metaclass of cached script is kept until script is removed from caches
+        boolean keepMetaClass = reuseMetaClass && script != null;
+        if (script == null) {
+            script = InvokerHelper.createScript(compiledScript.getScriptClass(), new Binding(bindings));
         }
 
-        //make sure that plugin classes can be loaded for cached scripts
-        Set<Plugin> plugins = new HashSet<>();
-        for (String pluginKey : compiledScript.getParseContext().getPlugins()) {
-            Plugin plugin = injectionResolver.getPlugin(pluginKey);
+        logger.debug("created script");
 
-            if (plugin == null) {
-                throw new RuntimeException("Plugin " + pluginKey + " couldn't be loaded");
+        ExecutionGuard guard = scriptWatchdog.start(scriptId, type, compiledScript.getScriptClass());
+        ScriptResourceTracker.Measurement measurement = resourceTracker.start();
+        ScriptProfiler.Execution profiledExecution = scriptProfiler.enter(scriptId, compiledScript.getScriptClass());
+        boolean successful = false;
+        try {
+            Object result = action.apply(script);
+            //script could suppress timeout exception
+            ExecutionGuard.check();
+            logger.debug("completed script");
+
+            successful = true;
+            return result;
+        } finally {
+            scriptProfiler.exit(profiledExecution);
+            resourceTracker.finish(scriptId, type, measurement, successful);
+            scriptWatchdog.finish(guard);
+            if (!keepMetaClass) {
+                InvokerHelper.removeClass(script.getClass());
             }
+        }
+    }
 
-            plugins.add(plugin);
+    private Script createCachedScript(Class scriptClass, Binding binding) throws Exception {
+        Optional<MethodHandle> constructor = scriptConstructors.get(scriptClass, ScriptServiceImpl::findScriptConstructor);
+
+        if (!constructor.isPresent()) {
+            return null;
         }
 
-        classLoader.ensureAvailability(plugins);
+        try {
+            return (Script) constructor.get().invokeExact(binding);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-        logger.debug("created class");
+    private static Optional<MethodHandle> findScriptConstructor(Class scriptClass) {
+        //classes that don't extend Script are wrapped by InvokerHelper
+        if (!Script.class.isAssignableFrom(scriptClass)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(
+                MethodHandles
+                    .publicLookup()
+                    .findConstructor(scriptClass, MethodType.methodType(void.class, Binding.class))
+                    .asType(MethodType.methodType(Script.class, Binding.class))
+            );
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    private CompletableFuture<CompiledScript> addCacheReference(CompletableFuture<CompiledScript> future) {
+        cacheReferences.merge(future, 1, Integer::sum);
+        return future;
+    }
+
+    private void onCompiledScriptRemoved(CompletableFuture<CompiledScript> future) {
+        if (future == null) {
+            return;
+        }
+
+        //same compiled script can be referenced from both caches
+        if (cacheReferences.computeIfPresent(future, (key, count) -> count > 1 ? count - 1 : null) != null) {
+            return;
+        }
+
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return;
+        }
+
+        Class scriptClass = future.join().getScriptClass();
+        scriptConstructors.invalidate(scriptClass);
+        InvokerHelper.removeClass(scriptClass);
+    }
 
-        HashMap<String, Object> bindings = new HashMap<>(externalBindings);
-        bindings.put("scriptType", type);
+    private Map<String, Object> getBindingTemplate(CompiledScript compiledScript) throws ClassNotFoundException {
+        Map<String, Object> template = bindingTemplates.getIfPresent(compiledScript);
+        if (template != null) {
+            return template;
+        }
+
+        Map<String, Object> result = new HashMap<>();
 
         for (ScriptInjection injection : compiledScript.getParseContext().getInjections()) {
             if (injection.getPlugin() != null) {
                 Object component = injectionResolver.resolvePluginInjection(injection.getPlugin(), injection.getClassName());
 
                 if (component != null) {
-                    bindings.put(injection.getVariableName(), component);
+                    result.put(injection.getVariableName(), component);
                     continue;
                 }
             } else {
                 Object component = injectionResolver.resolveStandardInjection(injection.getClassName());
 
                 if (component != null) {
-                    bindings.put(injection.getVariableName(), component);
+                    result.put(injection.getVariableName(), component);
                     continue;
                 }
             }
@@ -221,28 +428,11 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
             throw new RuntimeException("Unable to resolve injection: " + injection);
         }
 
-        for (Map.Entry<String, ScriptClosure> entry : globalFunctions.entrySet()) {
-            bindings.put(entry.getKey(), entry.getValue());
-        }
-
-        for (Map.Entry<String, GlobalVariable> entry : globalVariables.entrySet()) {
-            bindings.put(entry.getKey(), entry.getValue().getValue(scriptId));
-        }
-
-        logger.debug("initialized bindings");
-
-        Script script = InvokerHelper.createScript(compiledScript.getScriptClass(), new Binding(bindings));
+        result.putAll(globalFunctions);
 
-        logger.debug("created script");
-
-        try {
-            Object result = script.run();
-            logger.debug("completed script");
-
-            return result;
-        } finally {
-            InvokerHelper.removeClass(script.getClass());
-        }
+        template = Collections.unmodifiableMap(result);
+        bindingTemplates.put(compiledScript, template);
+        return template;
     }
 
     @PluginEventListener
@@ -253,61 +443,191 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
         lock.lock();
         try {
             classLoader.unloadPlugin(pluginKey);
-            scriptCache.invalidateAll();
+            invalidateByPlugin(scriptCache, pluginKey);
+            invalidateByPlugin(classCache, pluginKey);
+            //components of disabled plugin must not be referenced anymore
+            bindingTemplates.invalidateAll();
         } finally {
             lock.unlock();
         }
     }
 
+    @PluginEventListener
+    public void onPluginEnabled(PluginEnabledEvent event) {
+        //enabled plugin might provide new instances of injected components
+        bindingTemplates.invalidateAll();
+    }
+
+    private CompiledScript getCompiledScript(String scriptId, String scriptString, boolean compileStatic, Map<String, Class> types) {
+        if (scriptId == null) {
+            return parseClass(scriptString, false, compileStatic, types);
+        }
+
+        //mapping functions only create futures, compilation is started after future is cached, not under cache locks
+        ScriptCacheKey[] createdKey = new ScriptCacheKey[1];
+        CompletableFuture<CompiledScript> future = scriptCache.get(scriptId, ignore -> addCacheReference(classCache.get(
+            new ScriptCacheKey(scriptString, compileStatic, types),
+            key -> {
+                createdKey[0] = key;
+                return addCacheReference(new CompletableFuture<>());
+            }
+        )));
+
+        if (createdKey[0] != null) {
+            startCompilation(future, createdKey[0], scriptString, compileStatic, types);
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            //failed compilation must not be cached
+            scriptCache.asMap().remove(scriptId, future);
+            ScriptCacheKey key = createdKey[0] != null ? createdKey[0] : new ScriptCacheKey(scriptString, compileStatic, types);
+            classCache.asMap().remove(key, future);
+
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void startCompilation(
+        CompletableFuture<CompiledScript> future, ScriptCacheKey key, String scriptString, boolean compileStatic, Map<String, Class> types
+    ) {
+        Runnable task = () -> {
+            try {
+                future.complete(loadOrParseClass(key, scriptString, compileStatic, types));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+
+        try {
+            compileExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            //compiler pool is saturated or stopped, waiting for it could block caller for unbounded time
+            task.run();
+        }
+    }
+
+    private void ensurePluginsAvailable(Set<String> pluginKeys) {
+        Set<Plugin> plugins = new HashSet<>();
+        for (String pluginKey : pluginKeys) {
+            Plugin plugin = injectionResolver.getPlugin(pluginKey);
+
+            if (plugin == null) {
+                throw new RuntimeException("Plugin " + pluginKey + " couldn't be loaded");
+            }
+
+            plugins.add(plugin);
+        }
+
+        classLoader.ensureAvailability(plugins);
+    }
+
+    private <K> void invalidateByPlugin(Cache<K, CompletableFuture<CompiledScript>> cache, String pluginKey) {
+        cache
+            .asMap()
+            .entrySet()
+            .removeIf(entry -> {
+                CompletableFuture<CompiledScript> future = entry.getValue();
+
+                //scripts that are still compiling might've resolved classes from unloaded plugin
+                if (!future.isDone()) {
+                    return true;
+                }
+
+                return !future.isCompletedExceptionally() &&
+                    future.join().getParseContext().getPlugins().contains(pluginKey);
+            });
+    }
+
+    private CompiledScript loadOrParseClass(ScriptCacheKey key, String script, boolean compileStatic, Map<String, Class> types) {
+        String storeKey = Hashing.sha256().hashString(key.getDigest() + compilerFingerprint, StandardCharsets.UTF_8).toString();
+
+        ScriptBytecodeStore.Entry storedEntry = bytecodeStore.load(storeKey, compilerFingerprint, this::getPluginVersion);
+        if (storedEntry != null) {
+            logger.debug("defining script classes from stored bytecode");
+
+            ParseContext parseContext = new ParseContext();
+            parseContext.setTypes(types);
+            parseContext.getPlugins().addAll(storedEntry.getPlugins());
+            parseContext.getInjections().addAll(storedEntry.getInjections());
+            parseContext.getParameters().addAll(storedEntry.getParameters());
+
+            ensurePluginsAvailable(parseContext.getPlugins());
+
+            Class scriptClass = defineClasses(storedEntry.getMainClass(), storedEntry.getClasses());
+            parseContext.setCompileStatic(compileStatic || scriptClass.isAnnotationPresent(StaticScript.class));
+
+            return new CompiledScript(scriptClass, parseContext);
+        }
+
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        CompiledScript compiledScript = parseClass(script, false, compileStatic, types, classes);
+        ParseContext parseContext = compiledScript.getParseContext();
+
+        bytecodeStore.save(storeKey, compilerFingerprint, new ScriptBytecodeStore.Entry(
+            compiledScript.getScriptClass().getName(),
+            classes,
+            parseContext.getPlugins(),
+            parseContext.getInjections(),
+            parseContext.getParameters()
+        ), this::getPluginVersion);
+
+        return compiledScript;
+    }
+
     private CompiledScript parseClass(String script, boolean extended, boolean compileStatic, Map<String, Class> types) {
+        return parseClass(script, extended, compileStatic, types, new LinkedHashMap<>());
+    }
+
+    private CompiledScript parseClass(
+        String script, boolean extended, boolean compileStatic, Map<String, Class> types, Map<String, byte[]> classes
+    ) {
         logger.debug("parsing script");
         try {
             parseContextHolder.get().setExtended(extended);
             parseContextHolder.get().setCompileStatic(compileStatic);
             parseContextHolder.get().setTypes(types);
 
-            Class scriptClass = null;
-            if (compileStatic) {
-                String fileName = "script" + System.currentTimeMillis() + Math.abs(script.hashCode()) + ".groovy";
-                CompilationUnit compilationUnit = new CompilationUnit(compilerConfiguration, null, gcl);
-                SourceUnit sourceUnit = compilationUnit.addSource(fileName, script);
-                compilationUnit.compile(Phases.CLASS_GENERATION);
-
-                if (extended) {
-                    DeprecatedAstVisitor astVisitor = new DeprecatedAstVisitor();
+            //compilation unit is used directly instead of gcl.parseClass, so we can keep generated bytecode
+            String fileName = "script" + System.currentTimeMillis() + Math.abs(script.hashCode()) + ".groovy";
+            CompilationUnit compilationUnit = new CompilationUnit(compilerConfiguration, null, gcl);
+            SourceUnit sourceUnit = compilationUnit.addSource(fileName, script);
+            compilationUnit.compile(Phases.CLASS_GENERATION);
 
-                    for (Object aClass : compilationUnit.getAST().getClasses()) {
-                        astVisitor.visitClass((ClassNode) aClass);
-                    }
+            if (extended && compileStatic) {
+                DeprecatedAstVisitor astVisitor = new DeprecatedAstVisitor();
 
-                    parseContextHolder.get().setWarnings(astVisitor.getWarnings());
+                for (Object aClass : compilationUnit.getAST().getClasses()) {
+                    astVisitor.visitClass((ClassNode) aClass);
                 }
 
-                GroovyClassLoader.InnerLoader innerLoader = new GroovyClassLoader.InnerLoader(gcl);
-
-                String mainClass = sourceUnit.getAST().getMainClassName();
-                for (Object aClass : compilationUnit.getClasses()) {
-                    if (aClass instanceof GroovyClass) {
-                        GroovyClass groovyClass = (GroovyClass) aClass;
-
-                        BytecodeProcessor bytecodePostprocessor = compilerConfiguration.getBytecodePostprocessor();
-
-                        byte[] byteCode = groovyClass.getBytes();
-                        if (bytecodePostprocessor != null) {
-                            byteCode = bytecodePostprocessor.processBytecode(groovyClass.getName(), byteCode);
-                        }
+                parseContextHolder.get().setWarnings(astVisitor.getWarnings());
+            }
 
-                        Class clazz = innerLoader.defineClass(groovyClass.getName(), byteCode);
+            BytecodeProcessor bytecodePostprocessor = compilerConfiguration.getBytecodePostprocessor();
+            for (Object aClass : compilationUnit.getClasses()) {
+                if (aClass instanceof GroovyClass) {
+                    GroovyClass groovyClass = (GroovyClass) aClass;
 
-                        if (groovyClass.getName().equals(mainClass)) {
-                            scriptClass = clazz;
-                        }
+                    byte[] byteCode = groovyClass.getBytes();
+                    if (bytecodePostprocessor != null) {
+                        byteCode = bytecodePostprocessor.processBytecode(groovyClass.getName(), byteCode);
                     }
+
+                    classes.put(groovyClass.getName(), byteCode);
                 }
-            } else {
-                scriptClass = gcl.parseClass(script);
             }
 
+            Class scriptClass = defineClasses(sourceUnit.getAST().getMainClassName(), classes);
+
             logger.debug("parsed script");
             return new CompiledScript(
                 scriptClass,
@@ -319,10 +639,54 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
         }
     }
 
+    private Class defineClasses(String mainClass, Map<String, byte[]> classes) {
+        GroovyClassLoader.InnerLoader innerLoader = new GroovyClassLoader.InnerLoader(gcl);
+
+        Class scriptClass = null;
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Class clazz = innerLoader.defineClass(entry.getKey(), entry.getValue());
+
+            if (entry.getKey().equals(mainClass)) {
+                scriptClass = clazz;
+            }
+        }
+
+        return scriptClass;
+    }
+
+    private String getPluginVersion(String pluginKey) {
+        Plugin plugin = injectionResolver.getPlugin(pluginKey);
+        return plugin != null ? plugin.getPluginInformation().getVersion() : null;
+    }
+
+    private String buildCompilerFingerprint() {
+        StringBuilder result = new StringBuilder(GroovySystem.getVersion());
+
+        Plugin plugin = injectionResolver.getPlugin(Const.PLUGIN_KEY);
+        if (plugin != null) {
+            result.append('/').append(plugin.getPluginInformation().getVersion());
+        }
+
+        for (CompilationCustomizer customizer : compilerConfiguration.getCompilationCustomizers()) {
+            result.append('/').append(customizer.getClass().getName());
+            if (customizer instanceof TimeoutExtension) {
+                result.append(':').append(((TimeoutExtension) customizer).isInjectAlways());
+            }
+        }
+
+        result
+            .append('/').append(compilerConfiguration.getTargetBytecode())
+            .append('/').append(new TreeMap<>(compilerConfiguration.getOptimizationOptions()));
+
+        return result.toString();
+    }
+
     @Override
     public void onStart() {
         pluginEventManager.register(this);
 
+        bytecodeStore.prune(compilerFingerprint);
+
         for (Map.Entry<String, String> entry : globalFunctionManager.getGlobalFunctions().entrySet()) {
             globalFunctions.put(entry.getKey(), new ScriptClosure(parseClass(entry.getValue(), false, false, null).getScriptClass()));
         }
@@ -344,7 +708,10 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
 
         pluginEventManager.unregister(this);
 
-        invalidateAll();
+        //stored bytecode is kept on purpose, it is reused after restart
+        invalidateMemoryCaches();
+
+        compileExecutor.shutdownNow();
 
         globalFunctions.values().forEach(closure -> InvokerHelper.removeClass(closure.getScriptClass()));
         globalFunctions.clear();
@@ -366,4 +733,54 @@ public class ScriptServiceImpl implements ScriptService, LifecycleAware {
         globalVariables.clear();
         globalVariableTypes.clear();
     }
+
+    private static final class ScriptCacheKey {
+        private final String bodyHash;
+        private final boolean compileStatic;
+        private final String types;
+
+        private ScriptCacheKey(String body, boolean compileStatic, Map<String, Class> types) {
+            this.bodyHash = Hashing.sha256().hashString(body, StandardCharsets.UTF_8).toString();
+            this.compileStatic = compileStatic;
+            //types are also used by dynamic scripts that opt into static compilation
+            this.types = types != null ? typesFingerprint(types) : null;
+        }
+
+        private String getDigest() {
+            if (compileStatic) {
+                return bodyHash + ":static:" + types;
+            }
+            return bodyHash + ":dynamic" + (types != null ? ":" + types : "");
+        }
+
+        private static String typesFingerprint(Map<String, Class> types) {
+            StringBuilder result = new StringBuilder();
+            new TreeMap<>(types).forEach((name, type) -> result.append(name).append(':').append(type.getName()).append(';'));
+            return result.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ScriptCacheKey that = (ScriptCacheKey) o;
+            return compileStatic == that.compileStatic &&
+                Objects.equals(bodyHash, that.bodyHash) &&
+                Objects.equals(types, that.types);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bodyHash, compileStatic, types);
+        }
+
+        @Override
+        public String toString() {
+            return "ScriptCacheKey{" +
+                "bodyHash='" + bodyHash + '\'' +
+                ", compileStatic=" + compileStatic +
+                ", types='" + types + '\'' +
+                '}';
+        }
+    }
 }
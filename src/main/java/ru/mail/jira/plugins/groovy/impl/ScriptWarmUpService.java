@@ -0,0 +1,226 @@
+package ru.mail.jira.plugins.groovy.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldConfigDto;
+import ru.mail.jira.plugins.groovy.api.dto.directory.RegistryScriptDto;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ScriptedEventListener;
+import ru.mail.jira.plugins.groovy.api.dto.rest.RestScriptDto;
+import ru.mail.jira.plugins.groovy.api.dto.scheduled.ScheduledTaskDto;
+import ru.mail.jira.plugins.groovy.api.dto.warmup.WarmUpFailureDto;
+import ru.mail.jira.plugins.groovy.api.dto.warmup.WarmUpState;
+import ru.mail.jira.plugins.groovy.api.dto.warmup.WarmUpStatusDto;
+import ru.mail.jira.plugins.groovy.api.entity.EntityType;
+import ru.mail.jira.plugins.groovy.api.repository.*;
+import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.groovy.statik.TypeUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//compiles all stored scripts in background after plugin start, so first executions don't have to wait for compilation
+@Component
+public class ScriptWarmUpService {
+    private static final int MAX_PARALLELISM = 4;
+
+    private final Logger logger = LoggerFactory.getLogger(ScriptWarmUpService.class);
+
+    private final ScriptService scriptService;
+    private final EventListenerRepository eventListenerRepository;
+    private final ScriptRepository scriptRepository;
+    private final FieldConfigRepository fieldConfigRepository;
+    private final RestRepository restRepository;
+    private final ScheduledTaskRepository scheduledTaskRepository;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final List<WarmUpFailureDto> failures = new CopyOnWriteArrayList<>();
+    private volatile WarmUpState state = WarmUpState.NOT_STARTED;
+    private volatile int total;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile ForkJoinPool pool;
+
+    @Autowired
+    public ScriptWarmUpService(
+        ScriptService scriptService,
+        EventListenerRepository eventListenerRepository,
+        ScriptRepository scriptRepository,
+        FieldConfigRepository fieldConfigRepository,
+        RestRepository restRepository,
+        ScheduledTaskRepository scheduledTaskRepository
+    ) {
+        this.scriptService = scriptService;
+        this.eventListenerRepository = eventListenerRepository;
+        this.scriptRepository = scriptRepository;
+        this.fieldConfigRepository = fieldConfigRepository;
+        this.restRepository = restRepository;
+        this.scheduledTaskRepository = scheduledTaskRepository;
+    }
+
+    public synchronized void onStart() {
+        if (state == WarmUpState.RUNNING) {
+            return;
+        }
+
+        List<WarmUpTask> tasks = collectTasks();
+
+        completed.set(0);
+        failures.clear();
+        total = tasks.size();
+        startTime = System.currentTimeMillis();
+        endTime = 0;
+        state = WarmUpState.RUNNING;
+
+        ForkJoinPool pool = new ForkJoinPool(
+            Math.min(MAX_PARALLELISM, Runtime.getRuntime().availableProcessors()),
+            forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("MAILRU_GROOVY_WARM_UP_" + thread.getPoolIndex());
+                return thread;
+            },
+            null, false
+        );
+        this.pool = pool;
+
+        logger.info("Compiling {} scripts", tasks.size());
+
+        CompletableFuture
+            .allOf(
+                tasks
+                    .stream()
+                    .map(task -> CompletableFuture.runAsync(() -> compile(task), pool))
+                    .toArray(CompletableFuture[]::new)
+            )
+            .whenComplete((ignore, e) -> {
+                endTime = System.currentTimeMillis();
+                if (state == WarmUpState.RUNNING) {
+                    state = WarmUpState.COMPLETED;
+                }
+                pool.shutdown();
+
+                logger.info(
+                    "Compiled {} scripts in {}ms, {} failed",
+                    completed.get(), endTime - startTime, failures.size()
+                );
+            });
+    }
+
+    public synchronized void onStop() {
+        ForkJoinPool pool = this.pool;
+        if (pool != null) {
+            if (state == WarmUpState.RUNNING) {
+                state = WarmUpState.CANCELLED;
+            }
+            pool.shutdownNow();
+            this.pool = null;
+        }
+    }
+
+    public WarmUpStatusDto getStatus() {
+        WarmUpStatusDto result = new WarmUpStatusDto();
+        result.setState(state);
+        result.setTotal(total);
+        result.setCompleted(completed.get());
+        result.setFailures(new ArrayList<>(failures));
+
+        if (state != WarmUpState.NOT_STARTED) {
+            result.setDuration((endTime != 0 ? endTime : System.currentTimeMillis()) - startTime);
+        }
+
+        return result;
+    }
+
+    private void compile(WarmUpTask task) {
+        if (state != WarmUpState.RUNNING) {
+            return;
+        }
+
+        try {
+            scriptService.precompile(task.scriptId, task.scriptBody, task.types);
+        } catch (Exception e) {
+            logger.warn("unable to compile {} {}", task.type, task.scriptId, e);
+            failures.add(new WarmUpFailureDto(task.type, task.id, task.name, e.getMessage()));
+        } finally {
+            completed.incrementAndGet();
+        }
+    }
+
+    private List<WarmUpTask> collectTasks() {
+        List<WarmUpTask> tasks = new ArrayList<>();
+
+        try {
+            for (ScriptedEventListener listener : eventListenerRepository.getAllListeners()) {
+                addTask(tasks, new WarmUpTask(
+                    EntityType.LISTENER, String.valueOf(listener.getId()), null, listener.getUuid(), listener.getScript(),
+                    TypeUtil.getListenerTypes(listener.getCondition())
+                ));
+            }
+
+            for (RegistryScriptDto script : scriptRepository.getAllScripts()) {
+                //registry scripts are executed with id instead of uuid, see WorkflowHelper
+                addTask(tasks, new WarmUpTask(
+                    EntityType.REGISTRY_SCRIPT, String.valueOf(script.getId()), script.getName(),
+                    String.valueOf(script.getId()), script.getScriptBody(), TypeUtil.getWorkflowTypes()
+                ));
+            }
+
+            for (FieldConfigDto config : fieldConfigRepository.getAllConfigs()) {
+                addTask(tasks, new WarmUpTask(
+                    EntityType.CUSTOM_FIELD, String.valueOf(config.getId()), config.getCustomFieldName(),
+                    config.getUuid(), config.getScriptBody(), TypeUtil.getFieldTypes(true)
+                ));
+            }
+
+            for (RestScriptDto script : restRepository.getAllScripts()) {
+                addTask(tasks, new WarmUpTask(
+                    EntityType.REST, String.valueOf(script.getId()), script.getName(), script.getUuid(), script.getScriptBody(),
+                    TypeUtil.getRestTypes()
+                ));
+            }
+
+            for (ScheduledTaskDto task : scheduledTaskRepository.getAllTasks(false, false)) {
+                addTask(tasks, new WarmUpTask(
+                    EntityType.SCHEDULED_TASK, String.valueOf(task.getId()), task.getName(), task.getUuid(), task.getScriptBody(),
+                    TypeUtil.getScheduledTypes(task.getType())
+                ));
+            }
+        } catch (Exception e) {
+            logger.error("unable to collect scripts for compilation", e);
+        }
+
+        return tasks;
+    }
+
+    private static void addTask(List<WarmUpTask> tasks, WarmUpTask task) {
+        //scripts without body (i.e. scheduled transitions without script) are skipped
+        if (task.scriptId != null && task.scriptBody != null) {
+            tasks.add(task);
+        }
+    }
+
+    private static final class WarmUpTask {
+        private final EntityType type;
+        private final String id;
+        private final String name;
+        private final String scriptId;
+        private final String scriptBody;
+        //types must match types of runtime executions, because compiled script is cached by script id
+        private final Map<String, Class> types;
+
+        private WarmUpTask(
+            EntityType type, String id, String name, String scriptId, String scriptBody, Map<String, Class> types
+        ) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.scriptId = scriptId;
+            this.scriptBody = scriptBody;
+            this.types = types;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.mail.jira.plugins.groovy.impl;
+
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+
+//initializes and cleans up jira thread locals (request cache, db connection, etc.) for tasks executed in plugin pools
+@Component
+public class ThreadContextWrapper {
+    private final Logger logger = Logger.getLogger(ThreadContextWrapper.class);
+    private final JiraThreadLocalUtil jiraThreadLocalUtil;
+
+    @Autowired
+    public ThreadContextWrapper(@ComponentImport JiraThreadLocalUtil jiraThreadLocalUtil) {
+        this.jiraThreadLocalUtil = jiraThreadLocalUtil;
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            jiraThreadLocalUtil.preCall();
+            try {
+                task.run();
+            } finally {
+                jiraThreadLocalUtil.postCall(logger);
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            jiraThreadLocalUtil.preCall();
+            try {
+                return task.call();
+            } finally {
+                jiraThreadLocalUtil.postCall(logger);
+            }
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package ru.mail.jira.plugins.groovy.impl.cf;
 
+import com.atlassian.jira.bc.issue.search.SearchService;
+import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.IssueManager;
 import com.atlassian.jira.issue.MutableIssue;
 import com.atlassian.jira.issue.customfields.CustomFieldUtils;
@@ -11,24 +13,48 @@ import com.atlassian.jira.security.JiraAuthenticationContext;
 import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.jira.util.collect.CompositeMap;
 import com.atlassian.jira.util.velocity.VelocityRequestContextFactory;
+import com.atlassian.jira.web.bean.PagerFilter;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
 import com.atlassian.templaterenderer.TemplateRenderer;
+import com.atlassian.util.concurrent.ThreadFactories;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldBenchmarkResult;
 import ru.mail.jira.plugins.groovy.api.dto.cf.FieldConfigForm;
 import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
 import ru.mail.jira.plugins.groovy.api.dto.cf.PreviewForm;
 import ru.mail.jira.plugins.groovy.api.dto.cf.PreviewResult;
+import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.ThreadContextWrapper;
 import ru.mail.jira.plugins.groovy.util.ValidationException;
 
-import java.io.IOException;
+import javax.annotation.PreDestroy;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Component
 public class FieldPreviewService {
+    private static final int BENCHMARK_THREAD_COUNT = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int DEFAULT_SAMPLE_SIZE = 100;
+    private static final int MAX_SAMPLE_SIZE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(FieldPreviewService.class);
     private final JiraAuthenticationContext authenticationContext;
     private final VelocityRequestContextFactory velocityRequestContextFactory;
     private final FieldConfigManager fieldConfigManager;
@@ -36,6 +62,13 @@ public class FieldPreviewService {
     private final TemplateRenderer templateRenderer;
     private final FieldLayoutManager fieldLayoutManager;
     private final FieldValueExtractor fieldValueExtractor;
+    private final FieldTemplateService fieldTemplateService;
+    private final SearchService searchService;
+    private final ScriptService scriptService;
+    private final ThreadContextWrapper threadContextWrapper;
+    private final ExecutorService benchmarkExecutor = Executors.newFixedThreadPool(
+        BENCHMARK_THREAD_COUNT, ThreadFactories.namedThreadFactory("MAILRU_GROOVY_FIELD_BENCHMARK")
+    );
 
     @Autowired
     public FieldPreviewService(
@@ -45,7 +78,11 @@ public class FieldPreviewService {
         @ComponentImport IssueManager issueManager,
         @ComponentImport TemplateRenderer templateRenderer,
         @ComponentImport FieldLayoutManager fieldLayoutManager,
-        FieldValueExtractor fieldValueExtractor
+        @ComponentImport SearchService searchService,
+        FieldValueExtractor fieldValueExtractor,
+        FieldTemplateService fieldTemplateService,
+        ScriptService scriptService,
+        ThreadContextWrapper threadContextWrapper
     ) {
         this.authenticationContext = authenticationContext;
         this.velocityRequestContextFactory = velocityRequestContextFactory;
@@ -54,13 +91,27 @@ public class FieldPreviewService {
         this.templateRenderer = templateRenderer;
         this.fieldLayoutManager = fieldLayoutManager;
         this.fieldValueExtractor = fieldValueExtractor;
+        this.fieldTemplateService = fieldTemplateService;
+        this.searchService = searchService;
+        this.scriptService = scriptService;
+        this.threadContextWrapper = threadContextWrapper;
+    }
+
+    @PreDestroy
+    public void onStop() {
+        benchmarkExecutor.shutdownNow();
     }
 
-    public PreviewResult preview(ApplicationUser user, long configId, PreviewForm form) throws IOException {
+    public PreviewResult preview(ApplicationUser user, long configId, PreviewForm form) throws Exception {
         String issueKey = form.getIssueKey();
-        MutableIssue issue = issueManager.getIssueByCurrentKey(issueKey);
-        if (issue == null) {
-            throw new ValidationException("Issue was not found");
+        boolean runBenchmark = StringUtils.isNotEmpty(form.getJql());
+
+        MutableIssue issue = null;
+        if (!runBenchmark || StringUtils.isNotEmpty(issueKey)) {
+            issue = issueManager.getIssueByCurrentKey(issueKey);
+            if (issue == null) {
+                throw new ValidationException("Issue was not found");
+            }
         }
 
         FieldConfig fieldConfig = fieldConfigManager.getFieldConfig(configId);
@@ -83,6 +134,15 @@ public class FieldPreviewService {
         script.setTemplate(configForm.getTemplate());
         script.setWithVelocityParams(configForm.isVelocityParamsEnabled());
 
+        FieldBenchmarkResult benchmarkResult = null;
+        if (runBenchmark) {
+            benchmarkResult = benchmark(user, customField, script, form.getJql(), form.getSampleSize());
+        }
+
+        if (issue == null) {
+            return new PreviewResult(null, 0, benchmarkResult);
+        }
+
         ValueHolder result = fieldValueExtractor.preview(
             issue,
             customField,
@@ -111,6 +171,17 @@ public class FieldPreviewService {
             velocityParams.putAll(result.getVelocityParams());
         }
 
+        if (type instanceof TemplateScriptedCFType && StringUtils.isNotEmpty(configForm.getTemplate())) {
+            //template is rendered eagerly, so errors are shown in preview
+            //null is returned if template uses variables of view context, in that case view falls back to #evaluate
+            String renderedTemplate = fieldTemplateService.renderPreview(
+                customField.getIdAsLong(), configForm.getTemplate(), new HashMap<>(collectParams(velocityParams))
+            );
+            if (renderedTemplate != null) {
+                velocityParams.put("renderedTemplate", renderedTemplate);
+            }
+        }
+
         String template = customField
             .getCustomFieldType()
             .getDescriptor()
@@ -120,7 +191,112 @@ public class FieldPreviewService {
         StringWriter stringWriter = new StringWriter();
         templateRenderer.render(template, collectParams(velocityParams), stringWriter);
 
-        return new PreviewResult(stringWriter.toString(), System.currentTimeMillis() - t);
+        return new PreviewResult(stringWriter.toString(), System.currentTimeMillis() - t, benchmarkResult);
+    }
+
+    //runs script for sample of issues without caching values, to estimate cost of field before it is saved
+    private FieldBenchmarkResult benchmark(
+        ApplicationUser user, CustomField customField, FieldScript script, String jql, Integer sampleSize
+    ) throws Exception {
+        int limit = sampleSize != null ? sampleSize : DEFAULT_SAMPLE_SIZE;
+        if (limit <= 0 || limit > MAX_SAMPLE_SIZE) {
+            throw new ValidationException("Sample size must be between 1 and " + MAX_SAMPLE_SIZE);
+        }
+
+        SearchService.ParseResult parseResult = searchService.parseQuery(user, jql);
+        if (!parseResult.isValid()) {
+            throw new ValidationException(String.join("\n", parseResult.getErrors().getErrorMessages()));
+        }
+
+        List<Issue> issues = searchService
+            .search(user, parseResult.getQuery(), PagerFilter.newPageAlignedFilter(0, limit))
+            .getIssues();
+
+        if (issues.isEmpty()) {
+            throw new ValidationException("No issues found");
+        }
+
+        //script is compiled before measurement, so compilation time isn't included into first sample
+        scriptService.precompile(script.getId(), script.getScriptBody(), FieldValueExtractor.SCRIPT_TYPES);
+
+        List<Callable<BenchmarkSample>> tasks = issues
+            .stream()
+            .map(issue -> threadContextWrapper.wrap((Callable<BenchmarkSample>) () -> measure(user, customField, script, issue)))
+            .collect(Collectors.toList());
+
+        List<BenchmarkSample> samples = new ArrayList<>();
+        try {
+            for (Future<BenchmarkSample> future : benchmarkExecutor.invokeAll(tasks)) {
+                samples.add(future.get());
+            }
+        } finally {
+            scriptService.invalidate(script.getId());
+        }
+
+        long[] times = samples.stream().mapToLong(sample -> sample.time).sorted().toArray();
+        int errorCount = (int) samples.stream().filter(sample -> sample.error != null).count();
+        String firstError = samples
+            .stream()
+            .map(sample -> sample.error)
+            .filter(Objects::nonNull)
+            .findFirst()
+            .orElse(null);
+
+        long allocatedBytes = -1;
+        if (samples.stream().allMatch(sample -> sample.allocatedBytes >= 0)) {
+            allocatedBytes = (long) samples.stream().mapToLong(sample -> sample.allocatedBytes).average().orElse(0);
+        }
+
+        return new FieldBenchmarkResult(
+            samples.size(),
+            toMillis(times[0]),
+            toMillis(percentile(times, 50)),
+            toMillis(percentile(times, 95)),
+            toMillis(times[times.length - 1]),
+            errorCount,
+            (double) errorCount / samples.size(),
+            allocatedBytes,
+            firstError
+        );
+    }
+
+    private BenchmarkSample measure(ApplicationUser user, CustomField customField, FieldScript script, Issue issue) {
+        ApplicationUser previousUser = authenticationContext.getLoggedInUser();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        boolean measureAllocation = threadMXBean instanceof com.sun.management.ThreadMXBean &&
+            ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled();
+        long threadId = Thread.currentThread().getId();
+
+        try {
+            authenticationContext.setLoggedInUser(user);
+
+            String error = null;
+            long allocatedBefore = measureAllocation ?
+                ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId) : 0;
+            long startTime = System.nanoTime();
+            try {
+                fieldValueExtractor.evaluate(issue, customField, script);
+            } catch (Exception e) {
+                logger.debug("benchmark of field {} failed for issue {}", customField.getId(), issue.getKey(), e);
+                error = issue.getKey() + ": " + e.getMessage();
+            }
+            long time = System.nanoTime() - startTime;
+            long allocatedBytes = measureAllocation ?
+                ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(threadId) - allocatedBefore : -1;
+
+            return new BenchmarkSample(time, allocatedBytes, error);
+        } finally {
+            authenticationContext.setLoggedInUser(previousUser);
+        }
+    }
+
+    private static long percentile(long[] sortedValues, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1;
+        return sortedValues[Math.max(0, Math.min(index, sortedValues.length - 1))];
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
     }
 
     private Map<String, Object> collectParams(Map<String, Object> startingParams) {
@@ -137,4 +313,16 @@ public class FieldPreviewService {
         result.put("descriptor", this);
         return CompositeMap.of(result, params);
     }
+
+    private static final class BenchmarkSample {
+        private final long time;
+        private final long allocatedBytes;
+        private final String error;
+
+        private BenchmarkSample(long time, long allocatedBytes, String error) {
+            this.time = time;
+            this.allocatedBytes = allocatedBytes;
+            this.error = error;
+        }
+    }
 }
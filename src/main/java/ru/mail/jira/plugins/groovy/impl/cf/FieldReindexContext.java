@@ -0,0 +1,270 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.issue.index.ReindexAllCompletedEvent;
+import com.atlassian.jira.issue.index.ReindexAllStartedEvent;
+import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldReindexStatsDto;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
+import ru.mail.jira.plugins.groovy.api.dto.cf.ReindexStatsDto;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//tracks full reindex, values calculated by indexing threads are kept only while issue is indexed instead of FieldValueCache
+@Component
+@ExportAsService(LifecycleAware.class)
+public class FieldReindexContext implements LifecycleAware {
+    private static final String INDEXER_THREAD_PREFIX = System.getProperty(
+        "ru.mail.jira.plugins.groovy.reindex.threadPrefix", "IssueIndexer"
+    );
+    private static final int LOGGED_FIELD_COUNT = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(FieldReindexContext.class);
+    private final EventPublisher eventPublisher;
+    private volatile ReindexRun currentRun;
+    private volatile ReindexRun lastRun;
+
+    @Autowired
+    public FieldReindexContext(@ComponentImport EventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener
+    public void onReindexStarted(ReindexAllStartedEvent event) {
+        logger.debug("reindex started");
+        currentRun = new ReindexRun();
+    }
+
+    @EventListener
+    public void onReindexCompleted(ReindexAllCompletedEvent event) {
+        ReindexRun run = currentRun;
+        if (run == null) {
+            return;
+        }
+
+        run.finishedAt = System.currentTimeMillis();
+        currentRun = null;
+        lastRun = run;
+        //only stats are kept after reindex, values and scripts must not outlive it
+        run.issueValues.clear();
+        run.scripts.clear();
+
+        List<FieldReindexStatsDto> stats = run.buildStats();
+        if (!stats.isEmpty()) {
+            logger.info(
+                "scripted fields evaluation time during reindex: {}",
+                stats
+                    .stream()
+                    .limit(LOGGED_FIELD_COUNT)
+                    .map(field -> field.getFieldName() + " (" + field.getFieldId() + "): " + field.getTotalTime() + " ms")
+                    .collect(Collectors.joining(", "))
+            );
+        }
+    }
+
+    //returns true if value is requested by jira indexer during full reindex
+    public boolean isIndexing() {
+        return currentRun != null && Thread.currentThread().getName().startsWith(INDEXER_THREAD_PREFIX);
+    }
+
+    //script is resolved once per project and issue type for each reindex
+    public FieldScript getScript(CustomField field, Issue issue, BiFunction<CustomField, Issue, FieldScript> loader) {
+        ReindexRun run = currentRun;
+        if (run == null) {
+            return loader.apply(field, issue);
+        }
+
+        ScriptKey key = new ScriptKey(field.getIdAsLong(), issue.getProjectId(), issue.getIssueTypeId());
+        return run.scripts
+            .computeIfAbsent(key, ignore -> Optional.ofNullable(loader.apply(field, issue)))
+            .orElse(null);
+    }
+
+    //values of fields are shared between indexers of same issue, evaluation time is recorded for each field
+    public ValueHolder getValue(CustomField field, Issue issue, Supplier<ValueHolder> loader) {
+        ReindexRun run = currentRun;
+        if (run == null) {
+            return loader.get();
+        }
+
+        //indexer threads are pooled and outlive reindex, so values are kept in run instead of thread local
+        Thread thread = Thread.currentThread();
+        IssueValues values = run.issueValues.get(thread);
+        if (values == null || (values.depth == 0 && !Objects.equals(values.issueId, issue.getId()))) {
+            values = new IssueValues(issue.getId());
+            run.issueValues.put(thread, values);
+        }
+
+        boolean sameIssue = Objects.equals(values.issueId, issue.getId());
+        long fieldId = field.getIdAsLong();
+
+        if (sameIssue && values.values.containsKey(fieldId)) {
+            return values.values.get(fieldId);
+        }
+
+        ValueHolder result;
+        long startTime = System.nanoTime();
+        values.depth++;
+        try {
+            result = loader.get();
+        } finally {
+            values.depth--;
+            run.fieldStats
+                .computeIfAbsent(fieldId, ignore -> new FieldStats(field.getName()))
+                .record(System.nanoTime() - startTime);
+        }
+
+        if (sameIssue) {
+            values.values.put(fieldId, result);
+        }
+
+        return result;
+    }
+
+    public void invalidateField(long fieldId) {
+        ReindexRun run = currentRun;
+        if (run != null) {
+            run.scripts.keySet().removeIf(key -> key.fieldId == fieldId);
+        }
+    }
+
+    public void invalidateAll() {
+        ReindexRun run = currentRun;
+        if (run != null) {
+            run.scripts.clear();
+        }
+    }
+
+    public ReindexStatsDto getStats() {
+        ReindexRun run = currentRun;
+        boolean inProgress = run != null;
+        if (run == null) {
+            run = lastRun;
+        }
+
+        if (run == null) {
+            return new ReindexStatsDto(false, null, null, null);
+        }
+
+        return new ReindexStatsDto(inProgress, run.startedAt, run.finishedAt, run.buildStats());
+    }
+
+    @Override
+    public void onStart() {
+        eventPublisher.register(this);
+    }
+
+    @Override
+    public void onStop() {
+        eventPublisher.unregister(this);
+        currentRun = null;
+        lastRun = null;
+    }
+
+    private static final class ReindexRun {
+        private final long startedAt = System.currentTimeMillis();
+        private volatile Long finishedAt;
+        private final Map<ScriptKey, Optional<FieldScript>> scripts = new ConcurrentHashMap<>();
+        private final Map<Long, FieldStats> fieldStats = new ConcurrentHashMap<>();
+        //values of issue that is currently indexed by thread
+        private final Map<Thread, IssueValues> issueValues = new ConcurrentHashMap<>();
+
+        //slowest fields first
+        private List<FieldReindexStatsDto> buildStats() {
+            return fieldStats
+                .entrySet()
+                .stream()
+                .map(entry -> entry.getValue().buildDto(entry.getKey()))
+                .sorted(Comparator.comparingLong(FieldReindexStatsDto::getTotalTime).reversed())
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static final class IssueValues {
+        private final Long issueId;
+        private final Map<Long, ValueHolder> values = new HashMap<>();
+        //greater than zero while values of other fields are read by field script
+        private int depth = 0;
+
+        private IssueValues(Long issueId) {
+            this.issueId = issueId;
+        }
+    }
+
+    private static final class FieldStats {
+        private final String fieldName;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final AtomicLong maxTime = new AtomicLong();
+
+        private FieldStats(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        private void record(long time) {
+            count.increment();
+            totalTime.add(time);
+            maxTime.accumulateAndGet(time, Math::max);
+        }
+
+        private FieldReindexStatsDto buildDto(long fieldId) {
+            long count = this.count.sum();
+            long totalTime = this.totalTime.sum();
+
+            return new FieldReindexStatsDto(
+                fieldId,
+                fieldName,
+                count,
+                TimeUnit.NANOSECONDS.toMillis(totalTime),
+                count > 0 ? (double) totalTime / count / TimeUnit.MILLISECONDS.toNanos(1) : 0,
+                TimeUnit.NANOSECONDS.toMillis(maxTime.get())
+            );
+        }
+    }
+
+    private static final class ScriptKey {
+        private final long fieldId;
+        private final Long projectId;
+        private final String issueTypeId;
+
+        private ScriptKey(long fieldId, Long projectId, String issueTypeId) {
+            this.fieldId = fieldId;
+            this.projectId = projectId;
+            this.issueTypeId = issueTypeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ScriptKey that = (ScriptKey) o;
+            return fieldId == that.fieldId && Objects.equals(projectId, that.projectId) && Objects.equals(issueTypeId, that.issueTypeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fieldId, projectId, issueTypeId);
+        }
+    }
+}
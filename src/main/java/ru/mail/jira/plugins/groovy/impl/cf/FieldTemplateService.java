@@ -0,0 +1,320 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.util.velocity.VelocityRequestContextFactory;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.log.NullLogChute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.cf.TemplateRenderStatsDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+//keeps parsed templates of template fields, so they are not parsed by #evaluate on each render
+@Component
+public class FieldTemplateService {
+    private final Logger logger = LoggerFactory.getLogger(FieldTemplateService.class);
+    private final RuntimeInstance runtime;
+    private final Cache<TemplateKey, CachedTemplate> templates = Caffeine
+        .newBuilder()
+        .maximumSize(500)
+        .build();
+    private final Map<Long, RenderStats> renderStats = new ConcurrentHashMap<>();
+    //default params that jira adds to velocity context of field view (i18n, baseurl, req, authcontext etc)
+    private final Supplier<Map<String, Object>> jiraParams;
+
+    @Autowired
+    public FieldTemplateService(
+        @ComponentImport VelocityRequestContextFactory velocityRequestContextFactory,
+        @ComponentImport JiraAuthenticationContext authenticationContext
+    ) {
+        this(() -> velocityRequestContextFactory.getDefaultVelocityParams(new HashMap<>(), authenticationContext));
+    }
+
+    FieldTemplateService(Supplier<Map<String, Object>> jiraParams) {
+        this.runtime = createRuntime();
+        this.jiraParams = jiraParams;
+    }
+
+    /**
+     * Returns object that renders template when its render() method is called from velocity. Template is rendered with
+     * given params on top of defaults and jira velocity params, value is taken from valueSupplier if it's not present in
+     * params. render() returns null if template can't be parsed or rendered, or if it references variables that are only
+     * present in velocity context of the view (e.g. $displayParams), so view falls back to #evaluate
+     */
+    public Object prepare(
+        long fieldId, long configId, String template,
+        Map<String, Object> params, Map<String, Object> defaults, Supplier<Object> valueSupplier
+    ) {
+        return new LazyTemplate(fieldId, configId, template, params, defaults, valueSupplier);
+    }
+
+    //returns null if template references variables that aren't present in params
+    public String render(long fieldId, long configId, String template, Map<String, Object> params) {
+        CachedTemplate compiledTemplate = templates.get(
+            new TemplateKey(fieldId, configId, template),
+            key -> new CachedTemplate(parse(key.fieldId, "field-" + key.fieldId + "-" + key.configId, key.template))
+        );
+
+        //velocity renders unresolved references literally, such templates are always evaluated with full context
+        if (compiledTemplate.contextDependent) {
+            return null;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            String result = merge(fieldId, compiledTemplate.template, params);
+            if (result == null) {
+                compiledTemplate.contextDependent = true;
+            }
+            return result;
+        } finally {
+            renderStats
+                .computeIfAbsent(fieldId, ignore -> new RenderStats())
+                .record(System.nanoTime() - startTime);
+        }
+    }
+
+    //renders template that isn't saved yet, it isn't cached and isn't counted in render stats of field
+    public String renderPreview(long fieldId, String template, Map<String, Object> params) {
+        return merge(fieldId, parse(fieldId, "field-" + fieldId + "-preview", template), params);
+    }
+
+    public void invalidateField(long fieldId) {
+        templates.asMap().keySet().removeIf(key -> key.fieldId == fieldId);
+        renderStats.remove(fieldId);
+    }
+
+    public void invalidateAll() {
+        templates.invalidateAll();
+        renderStats.clear();
+    }
+
+    public List<TemplateRenderStatsDto> getStats() {
+        return renderStats
+            .entrySet()
+            .stream()
+            .map(entry -> entry.getValue().buildDto(entry.getKey()))
+            .collect(Collectors.toList());
+    }
+
+    private String merge(long fieldId, Template template, Map<String, Object> params) {
+        TrackingContext context = new TrackingContext(new HashMap<>(params));
+        StringWriter writer = new StringWriter();
+        template.merge(context, writer);
+
+        if (context.hasUnresolvedReferences()) {
+            logger.debug("template of field {} references variables of view context, it is evaluated by jira", fieldId);
+            return null;
+        }
+
+        return writer.toString();
+    }
+
+    private Template parse(long fieldId, String name, String source) {
+        if (runtime == null) {
+            throw new IllegalStateException("Velocity runtime isn't initialized");
+        }
+
+        try {
+            Template template = new Template();
+            template.setRuntimeServices(runtime);
+            template.setName(name);
+            template.setData(runtime.parse(new StringReader(source), name));
+            template.initDocument();
+            return template;
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to parse template of field " + fieldId, e);
+        }
+    }
+
+    private RuntimeInstance createRuntime() {
+        //same configuration as jira velocity engine (user directives, macros, encoding), so template behaves as with #evaluate
+        try {
+            return initRuntime(loadJiraConfiguration());
+        } catch (Exception e) {
+            logger.warn("unable to initialize velocity with jira configuration, using default configuration", e);
+        }
+
+        try {
+            return initRuntime(new Properties());
+        } catch (Exception e) {
+            logger.error("unable to initialize velocity, templates will be evaluated by jira", e);
+            return null;
+        }
+    }
+
+    private static Properties loadJiraConfiguration() throws IOException {
+        Properties properties = new Properties();
+        //velocity.properties of jira webapp, plugin class loader doesn't see it
+        try (InputStream in = ComponentAccessor.class.getClassLoader().getResourceAsStream("velocity.properties")) {
+            if (in == null) {
+                throw new IOException("velocity.properties is not found");
+            }
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static RuntimeInstance initRuntime(Properties properties) throws Exception {
+        Properties configuration = new Properties();
+        configuration.putAll(properties);
+        configuration.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM_CLASS, NullLogChute.class.getName());
+
+        RuntimeInstance runtime = new RuntimeInstance();
+        runtime.init(configuration);
+        return runtime;
+    }
+
+    //public, so velocity can call render()
+    public final class LazyTemplate {
+        private final long fieldId;
+        private final long configId;
+        private final String template;
+        private final Map<String, Object> params;
+        private final Map<String, Object> defaults;
+        private final Supplier<Object> valueSupplier;
+
+        private LazyTemplate(
+            long fieldId, long configId, String template,
+            Map<String, Object> params, Map<String, Object> defaults, Supplier<Object> valueSupplier
+        ) {
+            this.fieldId = fieldId;
+            this.configId = configId;
+            this.template = template;
+            this.params = params;
+            this.defaults = defaults;
+            this.valueSupplier = valueSupplier;
+        }
+
+        public String render() {
+            try {
+                Map<String, Object> renderParams = new HashMap<>(jiraParams.get());
+                renderParams.putAll(defaults);
+                renderParams.putAll(params);
+                renderParams.remove("compiledTemplate");
+                if (!renderParams.containsKey("value")) {
+                    renderParams.put("value", valueSupplier.get());
+                }
+                return FieldTemplateService.this.render(fieldId, configId, template, renderParams);
+            } catch (Exception e) {
+                logger.error("unable to render template of field {}, falling back to #evaluate", fieldId, e);
+                return null;
+            }
+        }
+    }
+
+    private static final class CachedTemplate {
+        private final Template template;
+        private volatile boolean contextDependent;
+
+        private CachedTemplate(Template template) {
+            this.template = template;
+        }
+    }
+
+    //records references that aren't present in context, variables assigned during rendering (#set, #foreach) are ignored
+    private static final class TrackingContext extends VelocityContext {
+        private final Set<String> unresolved = new HashSet<>();
+        private final Set<String> assigned = new HashSet<>();
+
+        private TrackingContext(Map<String, Object> params) {
+            super(params);
+        }
+
+        @Override
+        public Object internalGet(String key) {
+            Object value = super.internalGet(key);
+            if (value == null && !super.internalContainsKey(key)) {
+                unresolved.add(key);
+            }
+            return value;
+        }
+
+        @Override
+        public Object internalPut(String key, Object value) {
+            assigned.add(key);
+            return super.internalPut(key, value);
+        }
+
+        private boolean hasUnresolvedReferences() {
+            return !assigned.containsAll(unresolved);
+        }
+    }
+
+    private static final class RenderStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final AtomicLong maxTime = new AtomicLong();
+
+        private void record(long time) {
+            count.increment();
+            totalTime.add(time);
+            maxTime.accumulateAndGet(time, Math::max);
+        }
+
+        private TemplateRenderStatsDto buildDto(long fieldId) {
+            long count = this.count.sum();
+            long totalTime = this.totalTime.sum();
+
+            return new TemplateRenderStatsDto(
+                fieldId,
+                count,
+                TimeUnit.NANOSECONDS.toMillis(totalTime),
+                count > 0 ? (double) totalTime / count / TimeUnit.MILLISECONDS.toNanos(1) : 0,
+                TimeUnit.NANOSECONDS.toMillis(maxTime.get())
+            );
+        }
+    }
+
+    private static final class TemplateKey {
+        private final long fieldId;
+        private final long configId;
+        //whole template is used instead of its hash to avoid collisions
+        private final String template;
+
+        private TemplateKey(long fieldId, long configId, String template) {
+            this.fieldId = fieldId;
+            this.configId = configId;
+            this.template = template;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TemplateKey that = (TemplateKey) o;
+            return fieldId == that.fieldId && configId == that.configId && template.equals(that.template);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fieldId, configId, template);
+        }
+    }
+}
@@ -2,69 +2,325 @@ package ru.mail.jira.plugins.groovy.impl.cf;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldCacheStatsDto;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldValueCacheStatsDto;
 
-import java.util.Objects;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+//values are stored in separate segment for each field, so field can be invalidated without scanning other fields
+//size of segment is limited by field config, total estimated size of all segments is limited by global budget
 @Component
 public class FieldValueCache {
+    private static final String PROPERTY_PREFIX = "ru.mail.jira.plugins.groovy.fieldCache.";
+    private static final int DEFAULT_MAX_ENTRIES = Integer.getInteger(PROPERTY_PREFIX + "maxEntriesPerField", 5000);
+    //seconds
+    private static final long DEFAULT_TTL = Long.getLong(PROPERTY_PREFIX + "ttl", 600);
+    //bytes
+    private static final long MAX_WEIGHT = Long.getLong(PROPERTY_PREFIX + "maxWeight", 64L * 1024 * 1024);
+    private static final int EVICTION_BATCH_SIZE = 64;
+
     private final Logger logger = LoggerFactory.getLogger(FieldValueCache.class);
-    private final Cache<CacheKey, ValueHolder> cache = Caffeine
-        .newBuilder()
-        .expireAfterWrite(10, TimeUnit.MINUTES)
-        .maximumSize(5000)
-        .build();
+    private final Map<Long, Segment> segments = new ConcurrentHashMap<>();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    //ids of fields that read value of key field, collected during evaluation
+    private final Map<Long, Set<Long>> dependents = new ConcurrentHashMap<>();
+    private final long maxWeight;
+    private final Ticker ticker;
+
+    public FieldValueCache() {
+        this(MAX_WEIGHT, Ticker.systemTicker());
+    }
+
+    FieldValueCache(long maxWeight, Ticker ticker) {
+        this.maxWeight = maxWeight;
+        this.ticker = ticker;
+    }
+
+    public ValueHolder get(long fieldId, FieldScript script, long issueId, Function<Long, ValueHolder> loader) {
+        Segment segment = getSegment(fieldId, script);
+
+        WeightedValue value = segment.cache.get(issueId, key -> segment.load(key, loader));
+
+        if (segments.get(fieldId) != segment) {
+            //field was invalidated while value was loaded, release weight of orphaned segment
+            segment.cache.invalidateAll();
+        }
+
+        if (totalWeight.get() > maxWeight) {
+            enforceBudget();
+        }
+
+        return value != null ? value.holder : null;
+    }
+
+    //returns cached value without updating access statistics
+    public ValueHolder peek(long fieldId, long issueId) {
+        Segment segment = segments.get(fieldId);
+        if (segment == null) {
+            return null;
+        }
+
+        WeightedValue value = segment.cache.asMap().get(issueId);
+        return value != null ? value.holder : null;
+    }
+
+    //replaces cached value if it is present and is not newer than new value
+    public void replace(long fieldId, long issueId, ValueHolder holder) {
+        Segment segment = segments.get(fieldId);
+        if (segment == null) {
+            return;
+        }
+
+        WeightedValue replacement = new WeightedValue(holder, ValueWeigher.weigh(holder));
+        WeightedValue result = segment.cache.asMap().computeIfPresent(
+            issueId,
+            (key, current) -> current.holder.getLastModified() > holder.getLastModified() ? current : replacement
+        );
+
+        if (result == replacement) {
+            //weight of previous value is released by removal listener
+            segment.weight.addAndGet(replacement.weight);
+            totalWeight.addAndGet(replacement.weight);
+        }
+    }
+
+    //puts values calculated in bulk, values that are newer than new ones are kept
+    public void putAll(long fieldId, FieldScript script, Map<Long, ValueHolder> values) {
+        Segment segment = getSegment(fieldId, script);
+
+        for (Map.Entry<Long, ValueHolder> entry : values.entrySet()) {
+            WeightedValue value = new WeightedValue(entry.getValue(), ValueWeigher.weigh(entry.getValue()));
+            WeightedValue result = segment.cache.asMap().merge(
+                entry.getKey(), value,
+                (current, newValue) -> current.holder.getLastModified() > newValue.holder.getLastModified() ? current : newValue
+            );
+
+            if (result == value) {
+                segment.weight.addAndGet(value.weight);
+                totalWeight.addAndGet(value.weight);
+            }
+        }
+
+        if (totalWeight.get() > maxWeight) {
+            enforceBudget();
+        }
+    }
+
+    public List<Long> getCachedFieldIds(long issueId) {
+        return segments
+            .entrySet()
+            .stream()
+            .filter(entry -> entry.getValue().cache.asMap().containsKey(issueId))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+    }
+
+    //if STARTED is returned, finishRefresh must be called after value is recalculated
+    public RefreshState startRefresh(long fieldId, long issueId) {
+        Segment segment = segments.get(fieldId);
+        if (segment == null) {
+            return RefreshState.NOT_CACHED;
+        }
+        return segment.refreshing.add(issueId) ? RefreshState.STARTED : RefreshState.IN_PROGRESS;
+    }
+
+    public void finishRefresh(long fieldId, long issueId) {
+        Segment segment = segments.get(fieldId);
+        if (segment != null) {
+            segment.refreshing.remove(issueId);
+        }
+    }
 
-    public Cache<CacheKey, ValueHolder> get() {
-        return cache;
+    public void invalidate(long fieldId, long issueId) {
+        Segment segment = segments.get(fieldId);
+        if (segment != null) {
+            segment.cache.invalidate(issueId);
+        }
+    }
+
+    public void addDependency(long fieldId, long upstreamFieldId) {
+        if (fieldId != upstreamFieldId) {
+            dependents.computeIfAbsent(upstreamFieldId, ignore -> ConcurrentHashMap.newKeySet()).add(fieldId);
+        }
     }
 
+    //values of fields that depend on invalidated field are invalidated too
     public void invalidateField(long fieldId) {
+        invalidateField(fieldId, new HashSet<>());
+    }
+
+    private void invalidateField(long fieldId, Set<Long> visited) {
+        if (!visited.add(fieldId)) {
+            return;
+        }
+
         logger.debug("invalidating values for field {}", fieldId);
-        cache
-            .asMap()
-            .keySet()
-            .stream()
-            .filter(key -> key.getFieldId() == fieldId)
-            .forEach(cache::invalidate);
+        Segment segment = segments.remove(fieldId);
+        if (segment != null) {
+            segment.cache.invalidateAll();
+        }
+
+        for (Long dependentId : dependents.getOrDefault(fieldId, Collections.emptySet())) {
+            invalidateField(dependentId, visited);
+        }
     }
 
     public void invalidateAll() {
         logger.debug("invalidating all values");
-        cache.invalidateAll();
+        segments.keySet().forEach(this::invalidateField);
+    }
+
+    public FieldValueCacheStatsDto getStats() {
+        List<FieldCacheStatsDto> fields = segments
+            .values()
+            .stream()
+            .map(Segment::buildStats)
+            .collect(Collectors.toList());
+
+        return new FieldValueCacheStatsDto(totalWeight.get(), maxWeight, fields);
+    }
+
+    private Segment getSegment(long fieldId, FieldScript script) {
+        //if field has multiple contexts with different policies, policy of first used context is applied
+        return segments.computeIfAbsent(fieldId, ignore -> new Segment(
+            fieldId,
+            script.getCacheMaxEntries() != null ? script.getCacheMaxEntries() : DEFAULT_MAX_ENTRIES,
+            script.getCacheTtl() != null ? script.getCacheTtl() : DEFAULT_TTL
+        ));
     }
 
-    @Getter
-    @AllArgsConstructor
-    public static final class CacheKey {
+    //evicts least recently used values of largest segments until total weight fits into budget
+    private void enforceBudget() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            while (totalWeight.get() > maxWeight) {
+                Segment largest = segments
+                    .values()
+                    .stream()
+                    .max(Comparator.comparingLong(segment -> segment.weight.get()))
+                    .orElse(null);
+
+                if (largest == null) {
+                    break;
+                }
+
+                Map<Long, WeightedValue> coldest = largest.cache
+                    .policy()
+                    .eviction()
+                    .map(eviction -> eviction.coldest(EVICTION_BATCH_SIZE))
+                    .orElse(Collections.emptyMap());
+
+                if (coldest.isEmpty()) {
+                    break;
+                }
+
+                largest.cache.invalidateAll(coldest.keySet());
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    public enum RefreshState {
+        STARTED,
+        //value is already being recalculated by another thread
+        IN_PROGRESS,
+        //values of field were invalidated concurrently, there is no refresh to wait for
+        NOT_CACHED
+    }
+
+    private final class Segment {
         private final long fieldId;
-        private final long issueId;
+        private final int maxEntries;
+        private final long ttl;
+        private final AtomicLong weight = new AtomicLong();
+        private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+        private final Cache<Long, WeightedValue> cache;
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            CacheKey that = (CacheKey) o;
-            return fieldId == that.fieldId &&
-                issueId == that.issueId;
+        private Segment(long fieldId, int maxEntries, long ttl) {
+            this.fieldId = fieldId;
+            this.maxEntries = maxEntries;
+            this.ttl = ttl;
+            this.cache = Caffeine
+                .newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .maximumSize(maxEntries)
+                //removal listener must be called synchronously to keep weights accurate
+                .executor(Runnable::run)
+                .removalListener((Long key, WeightedValue value, RemovalCause cause) -> {
+                    if (value != null) {
+                        weight.addAndGet(-value.weight);
+                        totalWeight.addAndGet(-value.weight);
+                    }
+                })
+                .recordStats()
+                .build();
         }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(fieldId, issueId);
+        private WeightedValue load(Long issueId, Function<Long, ValueHolder> loader) {
+            ValueHolder holder = loader.apply(issueId);
+
+            if (holder == null) {
+                return null;
+            }
+
+            int valueWeight = ValueWeigher.weigh(holder);
+            weight.addAndGet(valueWeight);
+            totalWeight.addAndGet(valueWeight);
+
+            return new WeightedValue(holder, valueWeight);
         }
 
-        @Override
-        public String toString() {
-            return "ScriptFieldValueCacheKey{" +
-                "fieldId=" + fieldId +
-                ", issueId=" + issueId +
-                '}';
+        private FieldCacheStatsDto buildStats() {
+            CacheStats stats = cache.stats();
+
+            return new FieldCacheStatsDto(
+                fieldId,
+                cache.estimatedSize(),
+                maxEntries,
+                ttl,
+                weight.get(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.loadCount(),
+                TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime()),
+                stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1),
+                stats.evictionCount()
+            );
+        }
+    }
+
+    private static final class WeightedValue {
+        private final ValueHolder holder;
+        private final int weight;
+
+        private WeightedValue(ValueHolder holder, int weight) {
+            this.holder = holder;
+            this.weight = weight;
         }
     }
 }
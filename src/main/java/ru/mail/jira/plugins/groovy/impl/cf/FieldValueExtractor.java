@@ -4,7 +4,12 @@ import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.customfields.CustomFieldSearcher;
 import com.atlassian.jira.issue.fields.CustomField;
 import com.atlassian.jira.issue.fields.config.FieldConfig;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.util.concurrent.ThreadFactories;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,34 +19,62 @@ import ru.mail.jira.plugins.groovy.api.repository.FieldConfigRepository;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
 import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.impl.ThreadContextWrapper;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldValueCache.RefreshState;
 import ru.mail.jira.plugins.groovy.impl.groovy.statik.TypeUtil;
 import ru.mail.jira.plugins.groovy.util.Const;
 import ru.mail.jira.plugins.groovy.util.ExceptionHelper;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 @Component
 public class FieldValueExtractor {
+    //velocityParams are always bound, but can be null, so same types are used for all field scripts
+    static final Map<String, Class> SCRIPT_TYPES = TypeUtil.getFieldTypes(true);
+    private static final String BATCH_METHOD = "batch";
+    private static final int BATCH_THREAD_COUNT = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int BATCH_CHUNK_COUNT = BATCH_THREAD_COUNT * 4;
+
     private final Logger logger = LoggerFactory.getLogger(FieldValueExtractor.class);
 
     private final FieldConfigRepository fieldConfigRepository;
     private final ScriptService scriptService;
     private final ExecutionRepository executionRepository;
     private final FieldValueCache cache;
-    private final ThreadLocal<Boolean> gettingCacheableValue = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private final JiraAuthenticationContext authenticationContext;
+    private final FieldReindexContext reindexContext;
+    private final ThreadContextWrapper threadContextWrapper;
+    //is present while field script is executed in current thread
+    private final ThreadLocal<EvaluationContext> evaluationContext = new ThreadLocal<>();
+    private final ExecutorService batchExecutor = Executors.newFixedThreadPool(
+        BATCH_THREAD_COUNT, ThreadFactories.namedThreadFactory("MAILRU_GROOVY_FIELD_BATCH")
+    );
 
     @Autowired
     public FieldValueExtractor(
+        @ComponentImport JiraAuthenticationContext authenticationContext,
         FieldConfigRepository fieldConfigRepository,
         ScriptService scriptService,
         ExecutionRepository executionRepository,
-        FieldValueCache cache
+        FieldValueCache cache,
+        FieldReindexContext reindexContext,
+        ThreadContextWrapper threadContextWrapper
     ) {
+        this.authenticationContext = authenticationContext;
         this.fieldConfigRepository = fieldConfigRepository;
         this.scriptService = scriptService;
         this.executionRepository = executionRepository;
         this.cache = cache;
+        this.reindexContext = reindexContext;
+        this.threadContextWrapper = threadContextWrapper;
+    }
+
+    @PreDestroy
+    public void onStop() {
+        batchExecutor.shutdownNow();
     }
 
     public FieldScript getScript(CustomField field, Issue issue) {
@@ -54,10 +87,35 @@ public class FieldValueExtractor {
     }
 
     public ValueHolder preview(Issue issue, CustomField field, FieldScript script) {
+        evaluationContext.set(new EvaluationContext(true));
+        try {
+            return extractValueHolder(script, field, issue, getPreviewType(field));
+        } finally {
+            evaluationContext.remove();
+        }
+    }
+
+    private Class<?> getPreviewType(CustomField field) {
         CustomFieldSearcher searcher = field.getCustomFieldSearcher();
-        Class type = searcher != null ?
+        return searcher != null ?
             Const.SEARCHER_TYPES.getOrDefault(searcher.getDescriptor().getCompleteKey(), Object.class) : Object.class;
-        return extractValueHolder(script, field, issue, type);
+    }
+
+    //evaluates script without cache, exceptions are not suppressed, so they can be counted by caller
+    public Object evaluate(Issue issue, CustomField field, FieldScript script) throws Exception {
+        Map<String, Object> velocityParams = null;
+        if (field.getCustomFieldType() instanceof TemplateScriptedCFType) {
+            velocityParams = new HashMap<>();
+        }
+
+        EvaluationContext context = new EvaluationContext(true);
+        evaluationContext.set(context);
+        context.stack.push(new EvaluationKey(field.getIdAsLong(), issue.getId()));
+        try {
+            return executeScript(script, issue, velocityParams, getPreviewType(field));
+        } finally {
+            evaluationContext.remove();
+        }
     }
 
     public <T> T extractValue(CustomField field, Issue issue, Class<T> tType) {
@@ -71,8 +129,14 @@ public class FieldValueExtractor {
     }
 
     public ValueHolder extractValueHolder(CustomField field, Issue issue, Class tType) {
-        if (gettingCacheableValue.get()) {
-            throw new IllegalStateException("Trying to extract value from script of other field");
+        EvaluationContext context = evaluationContext.get();
+        if (context != null) {
+            //value is requested by script of other field
+            return extractDependencyValueHolder(context, field, issue, tType);
+        }
+
+        if (reindexContext.isIndexing()) {
+            return extractIndexedValueHolder(field, issue, tType);
         }
 
         FieldScript script = getScript(field, issue);
@@ -80,66 +144,345 @@ public class FieldValueExtractor {
         return extractValueHolder(script, field, issue, tType);
     }
 
+    private ValueHolder extractDependencyValueHolder(EvaluationContext context, CustomField field, Issue issue, Class tType) {
+        EvaluationKey key = new EvaluationKey(field.getIdAsLong(), issue.getId());
+
+        EvaluationKey dependent = context.stack.peek();
+        //unsaved script doesn't add dependencies of field, fields that it reads are evaluated with their saved scripts
+        if (dependent != null && !(context.preview && dependent == context.stack.peekLast())) {
+            cache.addDependency(dependent.fieldId, key.fieldId);
+        }
+
+        if (context.stack.contains(key)) {
+            throw new IllegalStateException("Cyclic dependency between scripted fields: " + context.describePath(key));
+        }
+
+        ValueHolder result = context.values.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        if (reindexContext.isIndexing()) {
+            result = extractIndexedValueHolder(field, issue, tType);
+        } else {
+            FieldScript script = getScript(field, issue);
+
+            boolean sameFieldInProgress = context.stack.stream().anyMatch(item -> item.fieldId == key.fieldId);
+            if (sameFieldInProgress && script != null && script.getScriptBody() != null && script.getId() != null) {
+                //value of same field for other issue can't be loaded into cache while its segment is being updated
+                long lastModified = issue.getUpdated().getTime() / 1000;
+                result = script.isCacheable() ? cache.peek(key.fieldId, key.issueId) : null;
+                if (result == null || result.getLastModified() != lastModified) {
+                    result = computeValue(field, issue, lastModified, script, tType);
+                }
+            } else {
+                result = extractValueHolder(script, field, issue, tType);
+            }
+        }
+
+        if (result != null) {
+            context.values.put(key, result);
+        }
+
+        return result;
+    }
+
+    //values calculated during full reindex don't go to cache, so it isn't flooded with values that won't be read
+    private ValueHolder extractIndexedValueHolder(CustomField field, Issue issue, Class tType) {
+        return reindexContext.getValue(field, issue, () -> {
+            FieldScript script = reindexContext.getScript(field, issue, this::getScript);
+
+            if (script != null && script.getScriptBody() != null && script.getId() != null) {
+                return computeValue(field, issue, issue.getUpdated().getTime() / 1000, script, tType);
+            }
+
+            return null;
+        });
+    }
+
+    /**
+     * Evaluates field for multiple issues at once, cacheable values are taken from cache and put into it in bulk.
+     * If script declares {@code batch(List<Issue> issues)} method, it is called once for all issues and must return
+     * map with values by issue id or key, otherwise script is executed for each issue on bounded thread pool.
+     *
+     * @return values by issue id
+     */
+    public Map<Long, ValueHolder> extractValueHolders(CustomField field, Collection<Issue> issues) {
+        if (!(field.getCustomFieldType() instanceof ScriptedCFType)) {
+            return ImmutableMap.of();
+        }
+
+        Class<?> tType = ((ScriptedCFType<?, ?>) field.getCustomFieldType()).getValueType(field);
+
+        //issues can belong to different field contexts
+        Map<Long, List<Issue>> issuesByConfig = new LinkedHashMap<>();
+        for (Issue issue : issues) {
+            FieldConfig config = field.getRelevantConfig(issue);
+            if (config != null) {
+                issuesByConfig.computeIfAbsent(config.getId(), ignore -> new ArrayList<>()).add(issue);
+            }
+        }
+
+        Map<Long, ValueHolder> result = new HashMap<>();
+        for (Map.Entry<Long, List<Issue>> entry : issuesByConfig.entrySet()) {
+            FieldScript script = fieldConfigRepository.getScript(entry.getKey());
+
+            if (script != null && script.getScriptBody() != null && script.getId() != null) {
+                result.putAll(extractValueHolders(field, script, entry.getValue(), tType));
+            }
+        }
+
+        return result;
+    }
+
+    private Map<Long, ValueHolder> extractValueHolders(CustomField field, FieldScript script, List<Issue> issues, Class<?> tType) {
+        Map<Long, ValueHolder> result = new HashMap<>();
+        List<Issue> missingIssues = issues;
+
+        if (script.isCacheable()) {
+            missingIssues = new ArrayList<>();
+
+            for (Issue issue : issues) {
+                ValueHolder cachedValue = cache.peek(field.getIdAsLong(), issue.getId());
+
+                if (cachedValue != null && cachedValue.getLastModified() == issue.getUpdated().getTime() / 1000) {
+                    result.put(issue.getId(), cachedValue);
+                } else {
+                    missingIssues.add(issue);
+                }
+            }
+        }
+
+        if (missingIssues.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, ValueHolder> calculatedValues = null;
+
+        //velocity params can't be filled by batch method
+        boolean needsVelocityParams = field.getCustomFieldType() instanceof TemplateScriptedCFType && script.isWithVelocityParams();
+        if (!needsVelocityParams && scriptService.hasScriptMethod(script.getId(), script.getScriptBody(), BATCH_METHOD, 1, SCRIPT_TYPES)) {
+            calculatedValues = doExtractValuesBatch(field, script, missingIssues, tType);
+        }
+
+        if (calculatedValues == null) {
+            calculatedValues = doExtractValuesParallel(field, script, missingIssues, tType);
+        }
+
+        if (script.isCacheable()) {
+            cache.putAll(field.getIdAsLong(), script, calculatedValues);
+        }
+
+        result.putAll(calculatedValues);
+        return result;
+    }
+
+    private <T> Map<Long, ValueHolder> doExtractValuesBatch(CustomField field, FieldScript script, List<Issue> issues, Class<T> tType) {
+        long t = System.currentTimeMillis();
+        boolean successful = true;
+        String error = null;
+        Map<Long, ValueHolder> result = null;
+
+        try {
+            Map<String, Object> bindings = new HashMap<>();
+            bindings.put("issues", issues);
+            Object batchResult = scriptService.executeScriptMethod(
+                script.getId(),
+                script.getScriptBody(),
+                ScriptType.CUSTOM_FIELD,
+                BATCH_METHOD,
+                bindings,
+                SCRIPT_TYPES,
+                issues
+            );
+
+            if (!(batchResult instanceof Map)) {
+                throw new IllegalArgumentException("batch method must return map with values by issue id or key");
+            }
+
+            Map<?, ?> values = (Map<?, ?>) batchResult;
+            result = new HashMap<>();
+            for (Issue issue : issues) {
+                Object value = values.get(issue.getId());
+                if (value == null) {
+                    value = values.get(issue.getKey());
+                }
+
+                result.put(issue.getId(), new ValueHolder<Object>(
+                    issue.getUpdated().getTime() / 1000, convertResult(value, tType), null
+                ));
+            }
+        } catch (Exception e) {
+            logger.error("caught exception in batch method of script field {}", field.getIdAsLong(), e);
+            successful = false;
+            error = ExceptionHelper.writeExceptionToString(e);
+        } finally {
+            t = System.currentTimeMillis() - t;
+        }
+
+        if (!successful || t >= ExecutionRepository.WARNING_THRESHOLD) {
+            executionRepository.trackInline(script.getId(), t, successful, error, ImmutableMap.of(
+                "issues", String.valueOf(issues.size()),
+                "type", ScriptType.CUSTOM_FIELD.name()
+            ));
+        }
+
+        //values are calculated for each issue if batch method failed
+        return result;
+    }
+
+    private <T> Map<Long, ValueHolder> doExtractValuesParallel(CustomField field, FieldScript script, List<Issue> issues, Class<T> tType) {
+        Map<Long, ValueHolder> result = new ConcurrentHashMap<>();
+
+        //nested bulk extraction is performed in current thread to avoid waiting for busy pool
+        if (issues.size() == 1 || evaluationContext.get() != null) {
+            for (Issue issue : issues) {
+                result.put(issue.getId(), computeValue(field, issue, issue.getUpdated().getTime() / 1000, script, tType));
+            }
+            return result;
+        }
+
+        ApplicationUser user = authenticationContext.getLoggedInUser();
+        int chunkSize = Math.max(1, (issues.size() + BATCH_CHUNK_COUNT - 1) / BATCH_CHUNK_COUNT);
+
+        List<Callable<Void>> tasks = Lists
+            .partition(issues, chunkSize)
+            .stream()
+            .map(chunk -> threadContextWrapper.wrap((Callable<Void>) () -> {
+                ApplicationUser previousUser = authenticationContext.getLoggedInUser();
+                try {
+                    authenticationContext.setLoggedInUser(user);
+
+                    for (Issue issue : chunk) {
+                        result.put(issue.getId(), computeValue(field, issue, issue.getUpdated().getTime() / 1000, script, tType));
+                    }
+                } finally {
+                    authenticationContext.setLoggedInUser(previousUser);
+                }
+                return null;
+            }))
+            .collect(Collectors.toList());
+
+        try {
+            for (Future<Void> future : batchExecutor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        return result;
+    }
+
     private ValueHolder extractValueHolder(FieldScript script, CustomField field, Issue issue, Class tType) {
         if (script != null && script.getScriptBody() != null && script.getId() != null) {
+            //divide by 1000 because value is stored in index is divided by 1000
+            long lastModified = issue.getUpdated().getTime() / 1000;
+
             if (script.isCacheable()) {
-                try {
-                    gettingCacheableValue.set(true);
-                    //divide by 1000 because value is stored in index is divided by 1000
-                    long lastModified = issue.getUpdated().getTime() / 1000;
-                    FieldValueCache.CacheKey key = new FieldValueCache.CacheKey(field.getIdAsLong(), issue.getId());
-
-                    ValueHolder cachedValue = getCachedValue(key, field, issue, lastModified, script, tType);
-                    if (cachedValue != null) {
-                        if (cachedValue.getLastModified() != lastModified) {
+                ValueHolder cachedValue = getCachedValue(field, issue, lastModified, script, tType);
+                if (cachedValue != null) {
+                    if (cachedValue.getLastModified() != lastModified) {
+                        long fieldId = field.getIdAsLong();
+
+                        //dependent fields must always get actual value
+                        RefreshState refreshState = cache.startRefresh(fieldId, issue.getId());
+                        if (refreshState == RefreshState.IN_PROGRESS && evaluationContext.get() == null) {
+                            //value is already being recalculated, previous version is returned instead of waiting for it
+                            return cachedValue;
+                        }
+
+                        try {
                             if (logger.isTraceEnabled()) {
-                                logger.trace("invalidating stale value of field {} for issue {}", field.getId(), issue.getKey());
+                                logger.trace("recalculating stale value of field {} for issue {}", field.getId(), issue.getKey());
+                            }
+                            cachedValue = computeValue(field, issue, lastModified, script, tType);
+                            cache.replace(fieldId, issue.getId(), cachedValue);
+                        } finally {
+                            if (refreshState == RefreshState.STARTED) {
+                                cache.finishRefresh(fieldId, issue.getId());
                             }
-                            cache.get().invalidate(key);
-                            getCachedValue(key, field, issue, lastModified, script, tType);
                         }
-
-                        return cachedValue;
                     }
-                } finally {
-                    gettingCacheableValue.remove();
+
+                    return cachedValue;
                 }
             } else {
-                boolean isTemplated = field.getCustomFieldType() instanceof TemplateScriptedCFType;
-
-                Map<String, Object> velocityParams = isTemplated ? new HashMap<>() : null;
-
-                return new ValueHolder(
-                    issue.getUpdated().getTime()/1000,
-                    doExtractValue(field, script, issue, velocityParams, tType),
-                    velocityParams
-                );
+                return computeValue(field, issue, lastModified, script, tType);
             }
         }
 
         return null;
     }
 
+    //recalculates value that is already cached, is called when issue is changed
+    public void refreshValue(CustomField field, Issue issue) {
+        if (!(field.getCustomFieldType() instanceof ScriptedCFType)) {
+            return;
+        }
+
+        FieldScript script = getScript(field, issue);
+
+        if (script == null || script.getScriptBody() == null || script.getId() == null || !script.isCacheable()) {
+            return;
+        }
+
+        long lastModified = issue.getUpdated().getTime() / 1000;
+        ValueHolder currentValue = cache.peek(field.getIdAsLong(), issue.getId());
+
+        if (currentValue == null || currentValue.getLastModified() == lastModified) {
+            return;
+        }
+
+        Class<?> tType = ((ScriptedCFType<?, ?>) field.getCustomFieldType()).getValueType(field);
+        cache.replace(field.getIdAsLong(), issue.getId(), computeValue(field, issue, lastModified, script, tType));
+    }
+
     private <T> ValueHolder getCachedValue(
-        FieldValueCache.CacheKey key,
         CustomField field,
         Issue issue,
         long lastModified,
         FieldScript script,
         Class<T> tType
     ) {
-        boolean isTemplated = field.getCustomFieldType() instanceof TemplateScriptedCFType;
+        return cache.get(
+            field.getIdAsLong(), script, issue.getId(), (ignore) -> computeValue(field, issue, lastModified, script, tType)
+        );
+    }
 
-        return cache.get().get(
-            key, (ignore) -> {
-                Map<String, Object> velocityParams = null;
-                if (isTemplated) {
-                    velocityParams = new HashMap<>();
-                }
-                T value = doExtractValue(field, script, issue, velocityParams, tType);
-                return new ValueHolder<Object>(lastModified, value, velocityParams);
+    private <T> ValueHolder computeValue(
+        CustomField field,
+        Issue issue,
+        long lastModified,
+        FieldScript script,
+        Class<T> tType
+    ) {
+        Map<String, Object> velocityParams = null;
+        if (field.getCustomFieldType() instanceof TemplateScriptedCFType) {
+            velocityParams = new HashMap<>();
+        }
+
+        //values of fields that are read by this script are shared until outermost evaluation is completed
+        EvaluationContext context = evaluationContext.get();
+        boolean isRoot = context == null;
+        if (isRoot) {
+            context = new EvaluationContext(false);
+            evaluationContext.set(context);
+        }
+
+        context.stack.push(new EvaluationKey(field.getIdAsLong(), issue.getId()));
+        try {
+            T value = doExtractValue(field, script, issue, velocityParams, tType);
+            return new ValueHolder<Object>(lastModified, value, velocityParams);
+        } finally {
+            context.stack.pop();
+            if (isRoot) {
+                evaluationContext.remove();
             }
-        );
+        }
     }
 
     private <T> T doExtractValue(CustomField field, FieldScript script, Issue issue, Map<String, Object> velocityParams, Class<T> tType) {
@@ -158,34 +501,7 @@ public class FieldValueExtractor {
                 logger.trace("executing script for field {} with id {}", field.getId(), script.getId());
             }
 
-            Map<String, Object> bindings = new HashMap<>();
-            bindings.put("issue", issue);
-            bindings.put("velocityParams", velocityParams);
-            Object result = scriptService.executeScript(
-                script.getId(),
-                script.getScriptBody(),
-                ScriptType.CUSTOM_FIELD,
-                bindings
-            );
-
-            if (result == null) {
-                return null;
-            }
-
-            if (logger.isTraceEnabled()) {
-                logger.trace("script result {}", result);
-            }
-
-            if (tType == Double.class && (result instanceof Number) && !(result instanceof Double)) {
-                result = ((Number) result).doubleValue();
-            }
-
-            if (!tType.isInstance(result)) {
-                logger.error("Result type ({}) doesn't match field type {}", result.getClass(), tType);
-            }
-            //todo: try to check collections in future if multi
-
-            value = tType.cast(result);
+            value = executeScript(script, issue, velocityParams, tType);
         } catch (Exception e) {
             logger.error(
                 "caught exception in script field {} for issue {}",
@@ -208,7 +524,90 @@ public class FieldValueExtractor {
         return value;
     }
 
+    private <T> T executeScript(FieldScript script, Issue issue, Map<String, Object> velocityParams, Class<T> tType) throws Exception {
+        Map<String, Object> bindings = new HashMap<>();
+        bindings.put("issue", issue);
+        bindings.put("velocityParams", velocityParams);
+        Object result = scriptService.executeScript(
+            script.getId(),
+            script.getScriptBody(),
+            ScriptType.CUSTOM_FIELD,
+            bindings,
+            SCRIPT_TYPES
+        );
+
+        if (result == null) {
+            return null;
+        }
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("script result {}", result);
+        }
+
+        return convertResult(result, tType);
+    }
+
+    private <T> T convertResult(Object result, Class<T> tType) {
+        if (result == null) {
+            return null;
+        }
+
+        if (tType == Double.class && (result instanceof Number) && !(result instanceof Double)) {
+            result = ((Number) result).doubleValue();
+        }
+
+        if (!tType.isInstance(result)) {
+            logger.error("Result type ({}) doesn't match field type {}", result.getClass(), tType);
+        }
+        //todo: try to check collections in future if multi
+
+        return tType.cast(result);
+    }
+
     public void clearCache() {
         cache.invalidateAll();
     }
+
+    private static final class EvaluationContext {
+        private final Deque<EvaluationKey> stack = new ArrayDeque<>();
+        private final Map<EvaluationKey, ValueHolder> values = new HashMap<>();
+        //script that isn't saved yet is evaluated for preview or benchmark
+        private final boolean preview;
+
+        private EvaluationContext(boolean preview) {
+            this.preview = preview;
+        }
+
+        private String describePath(EvaluationKey key) {
+            StringBuilder result = new StringBuilder();
+            Iterator<EvaluationKey> iterator = stack.descendingIterator();
+            while (iterator.hasNext()) {
+                result.append(iterator.next().fieldId).append(" -> ");
+            }
+            return result.append(key.fieldId).toString();
+        }
+    }
+
+    private static final class EvaluationKey {
+        private final long fieldId;
+        private final long issueId;
+
+        private EvaluationKey(long fieldId, long issueId) {
+            this.fieldId = fieldId;
+            this.issueId = issueId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            EvaluationKey that = (EvaluationKey) o;
+            return fieldId == that.fieldId && issueId == that.issueId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(fieldId) + Long.hashCode(issueId);
+        }
+    }
 }
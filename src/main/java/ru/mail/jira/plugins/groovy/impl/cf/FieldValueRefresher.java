@@ -0,0 +1,123 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.issue.CustomFieldManager;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.IssueManager;
+import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import com.atlassian.util.concurrent.ThreadFactories;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.impl.ThreadContextWrapper;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldValueCache.RefreshState;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//recalculates cached field values in background when issue is changed, so readers don't have to wait for script
+@Component
+@ExportAsService(LifecycleAware.class)
+public class FieldValueRefresher implements LifecycleAware {
+    private static final int THREAD_COUNT = Math.min(2, Runtime.getRuntime().availableProcessors());
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(FieldValueRefresher.class);
+    private final EventPublisher eventPublisher;
+    private final IssueManager issueManager;
+    private final CustomFieldManager customFieldManager;
+    private final JiraAuthenticationContext authenticationContext;
+    private final FieldValueCache cache;
+    private final FieldValueExtractor valueExtractor;
+    private final ThreadContextWrapper threadContextWrapper;
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        THREAD_COUNT, THREAD_COUNT, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+        ThreadFactories.namedThreadFactory("MAILRU_GROOVY_FIELD_REFRESH")
+    );
+
+    @Autowired
+    public FieldValueRefresher(
+        @ComponentImport EventPublisher eventPublisher,
+        @ComponentImport IssueManager issueManager,
+        @ComponentImport CustomFieldManager customFieldManager,
+        @ComponentImport JiraAuthenticationContext authenticationContext,
+        FieldValueCache cache,
+        FieldValueExtractor valueExtractor,
+        ThreadContextWrapper threadContextWrapper
+    ) {
+        this.eventPublisher = eventPublisher;
+        this.issueManager = issueManager;
+        this.customFieldManager = customFieldManager;
+        this.authenticationContext = authenticationContext;
+        this.cache = cache;
+        this.valueExtractor = valueExtractor;
+        this.threadContextWrapper = threadContextWrapper;
+    }
+
+    @EventListener
+    public void onIssueEvent(IssueEvent event) {
+        Issue issue = event.getIssue();
+        if (issue == null || issue.getId() == null) {
+            return;
+        }
+
+        long issueId = issue.getId();
+        ApplicationUser user = event.getUser();
+
+        for (Long fieldId : cache.getCachedFieldIds(issueId)) {
+            if (cache.startRefresh(fieldId, issueId) != RefreshState.STARTED) {
+                continue;
+            }
+
+            try {
+                executor.execute(threadContextWrapper.wrap(() -> refresh(fieldId, issueId, user)));
+            } catch (RejectedExecutionException e) {
+                //value will be recalculated by reader
+                logger.debug("refresh queue is full, skipping field {} for issue {}", fieldId, issueId);
+                cache.finishRefresh(fieldId, issueId);
+            }
+        }
+    }
+
+    private void refresh(long fieldId, long issueId, ApplicationUser user) {
+        ApplicationUser previousUser = authenticationContext.getLoggedInUser();
+
+        try {
+            authenticationContext.setLoggedInUser(user);
+
+            Issue issue = issueManager.getIssueObject(issueId);
+            CustomField field = customFieldManager.getCustomFieldObject(fieldId);
+
+            if (issue != null && field != null) {
+                valueExtractor.refreshValue(field, issue);
+            }
+        } catch (Exception e) {
+            logger.error("unable to refresh value of field {} for issue {}", fieldId, issueId, e);
+        } finally {
+            authenticationContext.setLoggedInUser(previousUser);
+            cache.finishRefresh(fieldId, issueId);
+        }
+    }
+
+    @Override
+    public void onStart() {
+        eventPublisher.register(this);
+    }
+
+    @Override
+    public void onStop() {
+        eventPublisher.unregister(this);
+        executor.shutdownNow();
+    }
+}
@@ -50,6 +50,10 @@ public abstract class ScriptedCFType<T, S> extends CalculatedCFType<T, S> implem
         return valueExtractor.extractValue(field, issue, tType);
     }
 
+    public Class<?> getValueType(CustomField field) {
+        return tType;
+    }
+
     @Nonnull
     @Override
     public List<FieldConfigItemType> getConfigurationItemTypes() {
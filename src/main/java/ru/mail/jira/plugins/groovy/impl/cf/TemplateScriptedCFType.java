@@ -2,6 +2,7 @@ package ru.mail.jira.plugins.groovy.impl.cf;
 
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.issue.fields.config.FieldConfig;
 import com.atlassian.jira.issue.fields.layout.field.FieldLayoutItem;
 import com.atlassian.jira.issue.fields.rest.FieldJsonRepresentation;
 import com.atlassian.jira.issue.fields.rest.json.JsonData;
@@ -9,12 +10,14 @@ import com.atlassian.jira.issue.fields.rest.json.JsonType;
 import com.atlassian.jira.issue.fields.rest.json.JsonTypeBuilder;
 import com.atlassian.jira.util.velocity.NumberTool;
 import com.atlassian.plugin.spring.scanner.annotation.component.Scanned;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
 import ru.mail.jira.plugins.groovy.util.CustomFieldHelper;
 
 import javax.annotation.Nullable;
+import java.util.HashMap;
 import java.util.Map;
 
 @Scanned
@@ -22,14 +25,17 @@ public class TemplateScriptedCFType extends ScriptedCFType<Object, Object> {
     private final Logger logger = LoggerFactory.getLogger(TemplateScriptedCFType.class);
     private final FieldValueExtractor valueExtractor;
     private final CustomFieldHelper customFieldHelper;
+    private final FieldTemplateService templateService;
 
     public TemplateScriptedCFType(
         FieldValueExtractor valueExtractor,
-        CustomFieldHelper customFieldHelper
+        CustomFieldHelper customFieldHelper,
+        FieldTemplateService templateService
     ) {
         super(valueExtractor, Object.class);
         this.valueExtractor = valueExtractor;
         this.customFieldHelper = customFieldHelper;
+        this.templateService = templateService;
     }
 
     @Override
@@ -46,6 +52,20 @@ public class TemplateScriptedCFType extends ScriptedCFType<Object, Object> {
         if (script != null && script.isWithVelocityParams()) {
             params.putAll(valueExtractor.extractValueHolder(field, issue, customFieldHelper.getExpectedType(field)).getVelocityParams());
         }
+
+        FieldConfig config = field.getRelevantConfig(issue);
+        if (script != null && config != null && StringUtils.isNotEmpty(script.getTemplate())) {
+            Map<String, Object> defaults = new HashMap<>();
+            defaults.put("issue", issue);
+            defaults.put("customField", field);
+            defaults.put("fieldLayoutItem", fieldLayoutItem);
+
+            params.put("hasCompiledTemplate", true);
+            params.put("compiledTemplate", templateService.prepare(
+                field.getIdAsLong(), config.getId(), script.getTemplate(), params, defaults,
+                () -> getValueFromIssue(field, issue)
+            ));
+        }
     }
 
     @Nullable
@@ -54,6 +74,11 @@ public class TemplateScriptedCFType extends ScriptedCFType<Object, Object> {
         return valueExtractor.extractValue(field, issue, customFieldHelper.getExpectedType(field));
     }
 
+    @Override
+    public Class<?> getValueType(CustomField field) {
+        return customFieldHelper.getExpectedType(field);
+    }
+
     @Override
     public JsonType getJsonSchema(CustomField customField) {
         return JsonTypeBuilder.custom(JsonType.ANY_TYPE, this.getKey(), customField.getIdAsLong());
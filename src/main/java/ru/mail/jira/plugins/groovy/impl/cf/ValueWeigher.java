@@ -0,0 +1,64 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+//rough estimate of memory retained by cached field value, in bytes
+final class ValueWeigher {
+    private static final int MAX_DEPTH = 3;
+    private static final int OBJECT_SIZE = 16;
+    private static final int REFERENCE_SIZE = 8;
+    //jira objects (users, options etc) are usually shared with jira caches, so only reference is counted
+    private static final int OTHER_SIZE = 32;
+
+    private ValueWeigher() {
+    }
+
+    static int weigh(ValueHolder<?> holder) {
+        long result = OBJECT_SIZE + 3 * REFERENCE_SIZE + weighObject(holder.getValue(), 0);
+
+        Map<String, Object> velocityParams = holder.getVelocityParams();
+        if (velocityParams != null) {
+            result += weighObject(velocityParams, 0);
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, result);
+    }
+
+    private static long weighObject(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof CharSequence) {
+            return OBJECT_SIZE + 24 + 2L * ((CharSequence) value).length();
+        }
+
+        if (value instanceof Number || value instanceof Boolean || value instanceof Date) {
+            return OBJECT_SIZE + 8;
+        }
+
+        if (depth >= MAX_DEPTH) {
+            return OTHER_SIZE;
+        }
+
+        if (value instanceof Collection) {
+            long result = OBJECT_SIZE + 24;
+            for (Object item : (Collection<?>) value) {
+                result += REFERENCE_SIZE + weighObject(item, depth + 1);
+            }
+            return result;
+        }
+
+        if (value instanceof Map) {
+            long result = OBJECT_SIZE + 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result += 32 + weighObject(entry.getKey(), depth + 1) + weighObject(entry.getValue(), depth + 1);
+            }
+            return result;
+        }
+
+        return OTHER_SIZE;
+    }
+}
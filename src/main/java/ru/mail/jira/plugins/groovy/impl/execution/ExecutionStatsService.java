@@ -0,0 +1,560 @@
+package ru.mail.jira.plugins.groovy.impl.execution;
+
+import com.atlassian.jira.cluster.ClusterInfo;
+import com.atlassian.jira.cluster.ClusterMessageConsumer;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.jira.config.util.JiraHome;
+import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.pocketknife.api.querydsl.DatabaseAccessor;
+import com.atlassian.pocketknife.api.querydsl.util.OnRollback;
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import com.atlassian.util.concurrent.ThreadFactories;
+import com.google.common.primitives.Ints;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.ExecutionStatsDto;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static ru.mail.jira.plugins.groovy.util.QueryDslTables.SCRIPT_EXECUTION;
+
+//in-memory rolling execution stats, so error and warning counts don't require aggregate queries on execution table
+//each node keeps stats of its own executions and periodically writes them to shared home, where other nodes can read them
+@Component
+@ExportAsService(LifecycleAware.class)
+public class ExecutionStatsService implements LifecycleAware {
+    private static final String RESET_CHANNEL = "ru.mail.groovy.esr";
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".stats";
+    //stats built from execution table when plugin is started for the first time
+    private static final String SEED_NODE = "__seed";
+    private static final String SEED_LOCK = "seed.lock";
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long CHECKPOINT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger = LoggerFactory.getLogger(ExecutionStatsService.class);
+    private final Map<Integer, ScriptStats> registryStats = new ConcurrentHashMap<>();
+    private final Map<String, ScriptStats> inlineStats = new ConcurrentHashMap<>();
+    //snapshots of other nodes, replaced as a whole
+    private volatile Map<String, NodeSnapshot> remoteSnapshots = Collections.emptyMap();
+    private final Map<String, Long> remoteModified = new HashMap<>();
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(
+        ThreadFactories.namedThreadFactory("MAILRU_GROOVY_STATS")
+    );
+    private final MessageConsumer messageConsumer = new MessageConsumer();
+
+    private final ClusterMessagingService clusterMessagingService;
+    private final DatabaseAccessor databaseAccessor;
+    private final Path directory;
+    private final String nodeId;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ExecutionStatsService(
+        @ComponentImport JiraHome jiraHome,
+        @ComponentImport ClusterInfo clusterInfo,
+        @ComponentImport ClusterMessagingService clusterMessagingService,
+        DatabaseAccessor databaseAccessor
+    ) {
+        this(
+            //shared home in data center, so stats of all nodes are in same directory
+            new File(jiraHome.getHome(), "caches/mailru-groovy/stats").toPath(),
+            clusterInfo.isClustered() ? clusterInfo.getNodeId() : "local",
+            clusterMessagingService, databaseAccessor, System::currentTimeMillis
+        );
+    }
+
+    ExecutionStatsService(
+        Path directory, String nodeId,
+        ClusterMessagingService clusterMessagingService, DatabaseAccessor databaseAccessor, LongSupplier clock
+    ) {
+        this.clusterMessagingService = clusterMessagingService;
+        this.databaseAccessor = databaseAccessor;
+        this.directory = directory;
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public void record(Integer registryId, String inlineId, long time, boolean successful) {
+        long hour = clock.getAsLong() / HOUR;
+        boolean slow = time >= ExecutionRepository.WARNING_THRESHOLD;
+
+        if (registryId != null) {
+            record(registryStats, registryId, hour, time, successful, slow);
+        } else if (inlineId != null) {
+            record(inlineStats, inlineId, hour, time, successful, slow);
+        }
+    }
+
+    //stats are updated inside of compute, so execution isn't recorded into stats that are concurrently pruned
+    private static <K> void record(Map<K, ScriptStats> local, K key, long hour, long time, boolean successful, boolean slow) {
+        local.compute(key, (ignore, stats) -> {
+            if (stats == null) {
+                stats = new ScriptStats();
+            }
+            stats.record(hour, time, successful, slow);
+            return stats;
+        });
+    }
+
+    public ExecutionStatsDto getRegistryStats(int id, StatsWindow window) {
+        return buildDto(aggregate(id, registryStats, NodeSnapshot::getRegistryStats, window));
+    }
+
+    public ExecutionStatsDto getInlineStats(String id, StatsWindow window) {
+        return buildDto(aggregate(id, inlineStats, NodeSnapshot::getInlineStats, window));
+    }
+
+    public Map<String, ExecutionStatsDto> getRegistryStats(int id) {
+        Map<String, ExecutionStatsDto> result = new LinkedHashMap<>();
+        for (StatsWindow window : StatsWindow.values()) {
+            result.put(window.name(), getRegistryStats(id, window));
+        }
+        return result;
+    }
+
+    public Map<String, ExecutionStatsDto> getInlineStats(String id) {
+        Map<String, ExecutionStatsDto> result = new LinkedHashMap<>();
+        for (StatsWindow window : StatsWindow.values()) {
+            result.put(window.name(), getInlineStats(id, window));
+        }
+        return result;
+    }
+
+    public Map<Integer, ExecutionStatsDto> getAllRegistryStats(StatsWindow window) {
+        return aggregateAll(registryStats, NodeSnapshot::getRegistryStats, window);
+    }
+
+    public Map<String, ExecutionStatsDto> getAllInlineStats(StatsWindow window) {
+        return aggregateAll(inlineStats, NodeSnapshot::getInlineStats, window);
+    }
+
+    //drops stats of registry script on all nodes and rebuilds them from executions left in execution table
+    public void resetRegistry(int id, Timestamp until) {
+        Timestamp resetTime = new Timestamp(clock.getAsLong());
+
+        clusterMessagingService.sendRemote(RESET_CHANNEL, String.valueOf(id));
+        doResetRegistry(id);
+
+        executorService.execute(() -> reseedRegistry(id, until, resetTime));
+    }
+
+    private synchronized void doResetRegistry(int id) {
+        registryStats.remove(id);
+
+        Map<String, NodeSnapshot> snapshots = new HashMap<>();
+        for (Map.Entry<String, NodeSnapshot> entry : remoteSnapshots.entrySet()) {
+            NodeSnapshot snapshot = entry.getValue();
+            if (snapshot.getRegistryStats().containsKey(id)) {
+                Map<Integer, ScriptStats> updated = new HashMap<>(snapshot.getRegistryStats());
+                updated.remove(id);
+                snapshot = new NodeSnapshot(updated, snapshot.getInlineStats());
+            }
+            snapshots.put(entry.getKey(), snapshot);
+        }
+        remoteSnapshots = snapshots;
+    }
+
+    private void reseedRegistry(int id, Timestamp until, Timestamp resetTime) {
+        try {
+            Timestamp from = new Timestamp(getFromHour() * HOUR);
+            if (until.after(from)) {
+                from = until;
+            }
+
+            Map<Integer, ScriptStats> registry = new HashMap<>();
+            //executions after reset are already counted by nodes that ran them
+            readExecutions(
+                registry, new HashMap<>(),
+                SCRIPT_EXECUTION.SCRIPT_ID.eq(id), SCRIPT_EXECUTION.DATE.goe(from), SCRIPT_EXECUTION.DATE.before(resetTime)
+            );
+
+            writeSnapshot(SEED_NODE, updateSeed(id, registry.get(id)));
+        } catch (Exception e) {
+            logger.error("unable to rebuild execution stats for script {}", id, e);
+        }
+    }
+
+    private synchronized NodeSnapshot updateSeed(int id, ScriptStats stats) {
+        NodeSnapshot seed = remoteSnapshots.get(SEED_NODE);
+
+        Map<Integer, ScriptStats> registry = seed != null ? new HashMap<>(seed.getRegistryStats()) : new HashMap<>();
+        Map<String, ScriptStats> inline = seed != null ? seed.getInlineStats() : Collections.emptyMap();
+        if (stats != null) {
+            registry.put(id, stats);
+        } else {
+            registry.remove(id);
+        }
+        seed = new NodeSnapshot(registry, inline);
+
+        Map<String, NodeSnapshot> snapshots = new HashMap<>(remoteSnapshots);
+        snapshots.put(SEED_NODE, seed);
+        remoteSnapshots = snapshots;
+
+        return seed;
+    }
+
+    private <K> ScriptStats.Aggregate aggregate(
+        K key, Map<K, ScriptStats> local, Function<NodeSnapshot, Map<K, ScriptStats>> remote, StatsWindow window
+    ) {
+        long toHour = clock.getAsLong() / HOUR;
+        long fromHour = toHour - window.getHours() + 1;
+
+        ScriptStats.Aggregate result = new ScriptStats.Aggregate();
+
+        ScriptStats stats = local.get(key);
+        if (stats != null) {
+            stats.addTo(result, fromHour, toHour);
+        }
+
+        for (NodeSnapshot snapshot : remoteSnapshots.values()) {
+            stats = remote.apply(snapshot).get(key);
+            if (stats != null) {
+                stats.addTo(result, fromHour, toHour);
+            }
+        }
+
+        return result;
+    }
+
+    private <K> Map<K, ExecutionStatsDto> aggregateAll(
+        Map<K, ScriptStats> local, Function<NodeSnapshot, Map<K, ScriptStats>> remote, StatsWindow window
+    ) {
+        Set<K> keys = new HashSet<>(local.keySet());
+        for (NodeSnapshot snapshot : remoteSnapshots.values()) {
+            keys.addAll(remote.apply(snapshot).keySet());
+        }
+
+        Map<K, ExecutionStatsDto> result = new HashMap<>();
+        for (K key : keys) {
+            ScriptStats.Aggregate aggregate = aggregate(key, local, remote, window);
+            if (aggregate.getCount() > 0) {
+                result.put(key, buildDto(aggregate));
+            }
+        }
+        return result;
+    }
+
+    private static ExecutionStatsDto buildDto(ScriptStats.Aggregate aggregate) {
+        return new ExecutionStatsDto(
+            aggregate.getCount(),
+            aggregate.getErrors(),
+            aggregate.getSlow(),
+            aggregate.getPercentile(0.5),
+            aggregate.getPercentile(0.95),
+            aggregate.getPercentile(0.99)
+        );
+    }
+
+    void checkpoint() {
+        try {
+            //scripts without executions in retention period, e.g. deleted inline scripts, are dropped from memory
+            long fromHour = getFromHour();
+            prune(registryStats, fromHour);
+            prune(inlineStats, fromHour);
+
+            writeSnapshot(nodeId, new NodeSnapshot(registryStats, inlineStats));
+            refreshRemoteSnapshots();
+        } catch (Exception e) {
+            logger.error("unable to checkpoint execution stats", e);
+        }
+    }
+
+    private static <K> void prune(Map<K, ScriptStats> local, long fromHour) {
+        for (K key : local.keySet()) {
+            local.computeIfPresent(key, (ignore, stats) -> stats.isEmpty(fromHour) ? null : stats);
+        }
+    }
+
+    //number of scripts with stats kept in memory on this node
+    int getLocalScriptCount() {
+        return registryStats.size() + inlineStats.size();
+    }
+
+    private synchronized void refreshRemoteSnapshots() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        long minLastModified = clock.getAsLong() - ScriptStats.BUCKET_COUNT * HOUR;
+        Map<String, NodeSnapshot> snapshots = new HashMap<>(remoteSnapshots);
+        Set<String> nodes = new HashSet<>();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.endsWith(FILE_EXTENSION)) {
+                    continue;
+                }
+
+                String node = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+                if (node.equals(nodeId)) {
+                    continue;
+                }
+
+                long lastModified = file.toFile().lastModified();
+                if (lastModified < minLastModified) {
+                    //node wasn't running for longer than stats are kept
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+
+                nodes.add(node);
+                if (!Objects.equals(remoteModified.get(node), lastModified)) {
+                    NodeSnapshot snapshot = readSnapshot(file);
+                    if (snapshot != null) {
+                        snapshots.put(node, snapshot);
+                        remoteModified.put(node, lastModified);
+                    }
+                }
+            }
+        }
+
+        snapshots.keySet().retainAll(nodes);
+        remoteModified.keySet().retainAll(nodes);
+        remoteSnapshots = snapshots;
+    }
+
+    private boolean writeSnapshot(String node, NodeSnapshot snapshot) {
+        long fromHour = getFromHour();
+        Path file = directory.resolve(node + FILE_EXTENSION);
+
+        try {
+            Files.createDirectories(directory);
+
+            Path tempFile = Files.createTempFile(directory, node, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+
+                Map<Integer, ScriptStats> registry = new HashMap<>(snapshot.getRegistryStats());
+                registry.values().removeIf(stats -> stats.isEmpty(fromHour));
+                out.writeInt(registry.size());
+                for (Map.Entry<Integer, ScriptStats> entry : registry.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    entry.getValue().write(out, fromHour);
+                }
+
+                Map<String, ScriptStats> inline = new HashMap<>(snapshot.getInlineStats());
+                inline.values().removeIf(stats -> stats.isEmpty(fromHour));
+                out.writeInt(inline.size());
+                for (Map.Entry<String, ScriptStats> entry : inline.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out, fromHour);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            logger.warn("unable to write execution stats to {}", file, e);
+            return false;
+        }
+    }
+
+    private NodeSnapshot readSnapshot(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            Map<Integer, ScriptStats> registry = new HashMap<>();
+            int registryCount = in.readInt();
+            for (int i = 0; i < registryCount; ++i) {
+                registry.put(in.readInt(), ScriptStats.read(in));
+            }
+
+            Map<String, ScriptStats> inline = new HashMap<>();
+            int inlineCount = in.readInt();
+            for (int i = 0; i < inlineCount; ++i) {
+                inline.put(in.readUTF(), ScriptStats.read(in));
+            }
+
+            return new NodeSnapshot(registry, inline);
+        } catch (IOException e) {
+            logger.warn("unable to read execution stats from {}", file, e);
+            return null;
+        }
+    }
+
+    private void seedIfRequired() throws IOException {
+        Files.createDirectories(directory);
+
+        Path lock = directory.resolve(SEED_LOCK);
+        try {
+            //only one node in cluster builds initial stats
+            Files.createFile(lock);
+        } catch (FileAlreadyExistsException e) {
+            return;
+        }
+
+        boolean seeded = false;
+        try {
+            seeded = seed();
+        } finally {
+            if (!seeded) {
+                //let next start retry
+                Files.deleteIfExists(lock);
+            }
+        }
+    }
+
+    private boolean seed() {
+        logger.info("building execution stats from execution table");
+
+        Map<Integer, ScriptStats> registry = new HashMap<>();
+        Map<String, ScriptStats> inline = new HashMap<>();
+
+        readExecutions(registry, inline, SCRIPT_EXECUTION.DATE.goe(new Timestamp(getFromHour() * HOUR)));
+
+        if (!writeSnapshot(SEED_NODE, new NodeSnapshot(registry, inline))) {
+            return false;
+        }
+
+        logger.info("built execution stats for {} scripts", registry.size() + inline.size());
+        return true;
+    }
+
+    //first hour of retention period
+    private long getFromHour() {
+        return clock.getAsLong() / HOUR - ScriptStats.BUCKET_COUNT + 1;
+    }
+
+    private void readExecutions(Map<Integer, ScriptStats> registry, Map<String, ScriptStats> inline, Predicate... where) {
+        databaseAccessor.run(connection -> {
+            try (CloseableIterator<Tuple> rows = connection
+                .select(SCRIPT_EXECUTION.SCRIPT_ID, SCRIPT_EXECUTION.INLINE_ID, SCRIPT_EXECUTION.TIME, SCRIPT_EXECUTION.SUCCESSFUL, SCRIPT_EXECUTION.DATE)
+                .from(SCRIPT_EXECUTION)
+                .where(where)
+                .iterate()
+            ) {
+                while (rows.hasNext()) {
+                    Tuple row = rows.next();
+
+                    Integer scriptId = row.get(SCRIPT_EXECUTION.SCRIPT_ID);
+                    String inlineId = row.get(SCRIPT_EXECUTION.INLINE_ID);
+                    long time = row.get(SCRIPT_EXECUTION.TIME);
+
+                    ScriptStats stats;
+                    if (scriptId != null) {
+                        stats = registry.computeIfAbsent(scriptId, ignore -> new ScriptStats());
+                    } else if (inlineId != null) {
+                        stats = inline.computeIfAbsent(inlineId, ignore -> new ScriptStats());
+                    } else {
+                        continue;
+                    }
+
+                    stats.record(
+                        row.get(SCRIPT_EXECUTION.DATE).getTime() / HOUR,
+                        time,
+                        row.get(SCRIPT_EXECUTION.SUCCESSFUL),
+                        time >= ExecutionRepository.WARNING_THRESHOLD
+                    );
+                }
+            }
+            return null;
+        }, OnRollback.NOOP);
+    }
+
+    private void restoreLocal() {
+        Path file = directory.resolve(nodeId + FILE_EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        NodeSnapshot snapshot = readSnapshot(file);
+        if (snapshot != null) {
+            registryStats.putAll(snapshot.getRegistryStats());
+            inlineStats.putAll(snapshot.getInlineStats());
+        }
+    }
+
+    @Override
+    public void onStart() {
+        clusterMessagingService.registerListener(RESET_CHANNEL, messageConsumer);
+
+        executorService.execute(() -> {
+            try {
+                restoreLocal();
+                seedIfRequired();
+                refreshRemoteSnapshots();
+            } catch (Exception e) {
+                logger.error("unable to load execution stats", e);
+            }
+        });
+        executorService.scheduleWithFixedDelay(this::checkpoint, CHECKPOINT_INTERVAL, CHECKPOINT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onStop() {
+        clusterMessagingService.unregisterListener(RESET_CHANNEL, messageConsumer);
+
+        executorService.shutdownNow();
+        writeSnapshot(nodeId, new NodeSnapshot(registryStats, inlineStats));
+    }
+
+    public enum StatsWindow {
+        HOUR(1),
+        DAY(24),
+        //same as execution retention period
+        ALL(ScriptStats.BUCKET_COUNT);
+
+        private final int hours;
+
+        StatsWindow(int hours) {
+            this.hours = hours;
+        }
+
+        public int getHours() {
+            return hours;
+        }
+    }
+
+    private static final class NodeSnapshot {
+        private final Map<Integer, ScriptStats> registryStats;
+        private final Map<String, ScriptStats> inlineStats;
+
+        private NodeSnapshot(Map<Integer, ScriptStats> registryStats, Map<String, ScriptStats> inlineStats) {
+            this.registryStats = registryStats;
+            this.inlineStats = inlineStats;
+        }
+
+        private Map<Integer, ScriptStats> getRegistryStats() {
+            return registryStats;
+        }
+
+        private Map<String, ScriptStats> getInlineStats() {
+            return inlineStats;
+        }
+    }
+
+    private class MessageConsumer implements ClusterMessageConsumer {
+        @Override
+        public void receive(String channel, String message, String senderId) {
+            if (RESET_CHANNEL.equals(channel)) {
+                Integer id = Ints.tryParse(message);
+                if (id != null) {
+                    doResetRegistry(id);
+                } else {
+                    logger.error("unable to parse id from {}", message);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package ru.mail.jira.plugins.groovy.impl.execution;
+
+import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import com.atlassian.util.concurrent.ThreadFactories;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.ProfileLineDto;
+import ru.mail.jira.plugins.groovy.api.dto.ScriptProfileDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+//samples stacks of threads that execute profiled scripts, frames are mapped to script lines by source file name
+//scripts are not instrumented, so there is no overhead for scripts that aren't profiled
+@Component
+@ExportAsService(LifecycleAware.class)
+public class ScriptProfiler implements LifecycleAware {
+    private static final String PROPERTY_PREFIX = "ru.mail.jira.plugins.groovy.profiler.";
+    //milliseconds
+    private static final long SAMPLE_INTERVAL = Long.getLong(PROPERTY_PREFIX + "sampleInterval", 10);
+    //profiling is stopped automatically after this period, so it isn't left enabled by mistake
+    private static final long MAX_DURATION = TimeUnit.MINUTES.toMillis(Long.getLong(PROPERTY_PREFIX + "maxDuration", 30));
+    private static final int MAX_STACKS = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(ScriptProfiler.class);
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    private final Set<Execution> executions = ConcurrentHashMap.newKeySet();
+    //checked before profile lookup, so executions aren't slowed down when nothing is profiled
+    private volatile boolean enabled = false;
+    private ScheduledExecutorService executor;
+
+    public void start(String scriptId) {
+        profiles.put(scriptId, new Profile(scriptId));
+        updateEnabled();
+    }
+
+    public void stop(String scriptId) {
+        Profile profile = profiles.get(scriptId);
+        if (profile != null) {
+            profile.active = false;
+        }
+        updateEnabled();
+    }
+
+    public void remove(String scriptId) {
+        profiles.remove(scriptId);
+        updateEnabled();
+    }
+
+    //returns null if script isn't profiled
+    public Execution enter(String scriptId, Class scriptClass) {
+        if (!enabled || scriptId == null) {
+            return null;
+        }
+
+        Profile profile = profiles.get(scriptId);
+        if (profile == null || !profile.active) {
+            return null;
+        }
+
+        profile.executionCount.incrementAndGet();
+
+        Execution execution = new Execution(profile, Thread.currentThread(), scriptClass.getSimpleName() + ".groovy");
+        executions.add(execution);
+        return execution;
+    }
+
+    public void exit(Execution execution) {
+        if (execution != null) {
+            executions.remove(execution);
+        }
+    }
+
+    public List<ScriptProfileDto> getProfiles() {
+        return profiles
+            .values()
+            .stream()
+            .map(this::buildDto)
+            .collect(Collectors.toList());
+    }
+
+    public ScriptProfileDto getProfile(String scriptId) {
+        Profile profile = profiles.get(scriptId);
+        return profile != null ? buildDto(profile) : null;
+    }
+
+    //collapsed stacks, that can be used by flamegraph.pl and compatible tools
+    public String getCollapsedStacks(String scriptId) {
+        Profile profile = profiles.get(scriptId);
+        if (profile == null) {
+            return null;
+        }
+
+        StringBuilder result = new StringBuilder();
+        synchronized (profile) {
+            for (Map.Entry<String, Long> entry : profile.stacks.entrySet()) {
+                result.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+    private void updateEnabled() {
+        enabled = profiles.values().stream().anyMatch(profile -> profile.active);
+    }
+
+    private void sample() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (Profile profile : profiles.values()) {
+            if (profile.active && now - profile.startedAt > MAX_DURATION) {
+                logger.info("profiling of script {} is stopped after {} ms", profile.scriptId, MAX_DURATION);
+                profile.active = false;
+                updateEnabled();
+            }
+        }
+
+        for (Execution execution : executions) {
+            try {
+                sample(execution);
+            } catch (Exception e) {
+                logger.error("unable to sample script {}", execution.profile.scriptId, e);
+            }
+        }
+    }
+
+    private void sample(Execution execution) {
+        if (!execution.profile.active) {
+            return;
+        }
+
+        StackTraceElement[] stackTrace = execution.thread.getStackTrace();
+        if (!executions.contains(execution)) {
+            //execution was completed while stack was collected
+            return;
+        }
+
+        //frames are collected from outermost to innermost, method that is called by innermost script frame is kept as leaf
+        List<String> frames = new ArrayList<>();
+        Set<Integer> lines = new HashSet<>();
+        int selfLine = -1;
+        String leaf = null;
+        for (int i = stackTrace.length - 1; i >= 0; --i) {
+            StackTraceElement element = stackTrace[i];
+            if (execution.fileName.equals(element.getFileName()) && element.getLineNumber() > 0) {
+                frames.add(element.getMethodName() + ":" + element.getLineNumber());
+                lines.add(element.getLineNumber());
+                selfLine = element.getLineNumber();
+                leaf = null;
+            } else if (!frames.isEmpty() && leaf == null && !isRuntimeFrame(element)) {
+                leaf = element.getClassName() + "." + element.getMethodName();
+            }
+        }
+
+        if (frames.isEmpty()) {
+            return;
+        }
+
+        if (leaf != null) {
+            frames.add(leaf);
+        }
+
+        Profile profile = execution.profile;
+        synchronized (profile) {
+            profile.sampleCount++;
+            for (Integer line : lines) {
+                profile.lines.computeIfAbsent(line, ignore -> new long[2])[1]++;
+            }
+            profile.lines.computeIfAbsent(selfLine, ignore -> new long[2])[0]++;
+
+            String stack = String.join(";", frames);
+            if (profile.stacks.containsKey(stack) || profile.stacks.size() < MAX_STACKS) {
+                profile.stacks.merge(stack, 1L, Long::sum);
+            }
+        }
+    }
+
+    //groovy and reflection frames between script and called method are skipped
+    private static boolean isRuntimeFrame(StackTraceElement element) {
+        String className = element.getClassName();
+        return className.startsWith("org.codehaus.groovy.") ||
+            className.startsWith("groovy.lang.") ||
+            className.startsWith("java.lang.invoke.") ||
+            className.startsWith("sun.reflect.") ||
+            className.startsWith("jdk.internal.reflect.") ||
+            className.startsWith("java.lang.reflect.");
+    }
+
+    private ScriptProfileDto buildDto(Profile profile) {
+        synchronized (profile) {
+            List<ProfileLineDto> lines = profile.lines
+                .entrySet()
+                .stream()
+                .map(entry -> new ProfileLineDto(
+                    entry.getKey(),
+                    entry.getValue()[0],
+                    entry.getValue()[1],
+                    entry.getValue()[0] * SAMPLE_INTERVAL,
+                    entry.getValue()[1] * SAMPLE_INTERVAL
+                ))
+                .sorted(Comparator.comparingInt(ProfileLineDto::getLine))
+                .collect(Collectors.toList());
+
+            return new ScriptProfileDto(
+                profile.scriptId,
+                profile.active,
+                profile.startedAt,
+                SAMPLE_INTERVAL,
+                profile.executionCount.get(),
+                profile.sampleCount,
+                lines
+            );
+        }
+    }
+
+    @Override
+    public void onStart() {
+        executor = Executors.newSingleThreadScheduledExecutor(ThreadFactories.namedThreadFactory("MAILRU_GROOVY_PROFILER"));
+        executor.scheduleWithFixedDelay(this::sample, SAMPLE_INTERVAL, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onStop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class Profile {
+        private final String scriptId;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicLong executionCount = new AtomicLong();
+        private volatile boolean active = true;
+        //guarded by profile
+        private long sampleCount;
+        //self and total sample count by line
+        private final Map<Integer, long[]> lines = new HashMap<>();
+        private final Map<String, Long> stacks = new HashMap<>();
+
+        private Profile(String scriptId) {
+            this.scriptId = scriptId;
+        }
+    }
+
+    public static final class Execution {
+        private final Profile profile;
+        private final Thread thread;
+        private final String fileName;
+
+        private Execution(Profile profile, Thread thread, String fileName) {
+            this.profile = profile;
+            this.thread = thread;
+            this.fileName = fileName;
+        }
+    }
+}
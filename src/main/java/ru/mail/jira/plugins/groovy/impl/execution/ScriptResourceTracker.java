@@ -0,0 +1,165 @@
+package ru.mail.jira.plugins.groovy.impl.execution;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.ScriptResourceStatsDto;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+//cpu time and allocations of every script execution on this node, aggregated by script id and type
+@Component
+public class ScriptResourceTracker {
+    private static final int MAX_SCRIPTS = Integer.getInteger("ru.mail.jira.plugins.groovy.resourceStats.maxScripts", 10000);
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocationMXBean;
+    private final boolean cpuTimeSupported;
+    private final Cache<ScriptKey, ResourceCounters> counters = Caffeine
+        .newBuilder()
+        .maximumSize(MAX_SCRIPTS)
+        .build();
+
+    public ScriptResourceTracker() {
+        this.cpuTimeSupported = threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean &&
+            ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported() &&
+            ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled()
+        ) {
+            this.allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        } else {
+            this.allocationMXBean = null;
+        }
+    }
+
+    public Measurement start() {
+        return new Measurement(
+            System.nanoTime(),
+            cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0,
+            allocationMXBean != null ? allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0
+        );
+    }
+
+    //values of nested script executions are included into values of outer script
+    public void finish(String scriptId, ScriptType type, Measurement measurement, boolean successful) {
+        long wallTime = System.nanoTime() - measurement.wallTime;
+        long cpuTime = cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() - measurement.cpuTime : 0;
+        long allocatedBytes = allocationMXBean != null ?
+            allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - measurement.allocatedBytes : 0;
+
+        counters
+            .get(new ScriptKey(scriptId, type), ignore -> new ResourceCounters())
+            .record(wallTime, cpuTime, allocatedBytes, successful);
+    }
+
+    public List<ScriptResourceStatsDto> getTopScripts(ResourceOrder order, int limit) {
+        return counters
+            .asMap()
+            .entrySet()
+            .stream()
+            .map(entry -> entry.getValue().buildDto(entry.getKey(), allocationMXBean != null))
+            .sorted(order.comparator.reversed())
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        counters.invalidateAll();
+    }
+
+    public enum ResourceOrder {
+        CPU(Comparator.comparingDouble(ScriptResourceStatsDto::getTotalCpuTime)),
+        ALLOCATION(Comparator.comparingLong(ScriptResourceStatsDto::getTotalAllocatedBytes)),
+        WALL(Comparator.comparingDouble(ScriptResourceStatsDto::getTotalWallTime)),
+        CALLS(Comparator.comparingLong(ScriptResourceStatsDto::getCallCount));
+
+        private final Comparator<ScriptResourceStatsDto> comparator;
+
+        ResourceOrder(Comparator<ScriptResourceStatsDto> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    public static final class Measurement {
+        private final long wallTime;
+        private final long cpuTime;
+        private final long allocatedBytes;
+
+        private Measurement(long wallTime, long cpuTime, long allocatedBytes) {
+            this.wallTime = wallTime;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    private static final class ResourceCounters {
+        private final LongAdder callCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder wallTime = new LongAdder();
+        private final LongAdder cpuTime = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private void record(long wallTime, long cpuTime, long allocatedBytes, boolean successful) {
+            this.callCount.increment();
+            if (!successful) {
+                this.errorCount.increment();
+            }
+            this.wallTime.add(wallTime);
+            this.cpuTime.add(cpuTime);
+            this.allocatedBytes.add(allocatedBytes);
+        }
+
+        private ScriptResourceStatsDto buildDto(ScriptKey key, boolean allocationSupported) {
+            long callCount = this.callCount.sum();
+            double cpuTime = toMillis(this.cpuTime.sum());
+            long allocatedBytes = allocationSupported ? this.allocatedBytes.sum() : -1;
+
+            return new ScriptResourceStatsDto(
+                key.scriptId,
+                key.type,
+                callCount,
+                errorCount.sum(),
+                toMillis(wallTime.sum()),
+                cpuTime,
+                callCount > 0 ? cpuTime / callCount : 0,
+                allocatedBytes,
+                allocationSupported && callCount > 0 ? allocatedBytes / callCount : -1
+            );
+        }
+
+        private static double toMillis(long nanos) {
+            return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    private static final class ScriptKey {
+        private final String scriptId;
+        private final ScriptType type;
+
+        private ScriptKey(String scriptId, ScriptType type) {
+            this.scriptId = scriptId;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ScriptKey that = (ScriptKey) o;
+            return Objects.equals(scriptId, that.scriptId) && type == that.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scriptId, type);
+        }
+    }
+}
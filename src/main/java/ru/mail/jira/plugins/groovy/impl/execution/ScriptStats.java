@@ -0,0 +1,160 @@
+package ru.mail.jira.plugins.groovy.impl.execution;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+//rolling execution stats of single script, executions are grouped into hourly buckets
+final class ScriptStats {
+    static final int BUCKET_COUNT = 14 * 24;
+    //bucket i contains executions that took [2^(i-1), 2^i) ms
+    static final int HISTOGRAM_SIZE = 25;
+
+    private final Bucket[] buckets = new Bucket[BUCKET_COUNT];
+
+    synchronized void record(long hour, long time, boolean successful, boolean slow) {
+        Bucket bucket = getBucket(hour);
+        bucket.count++;
+        if (!successful) {
+            bucket.errors++;
+        }
+        if (slow) {
+            bucket.slow++;
+        }
+        bucket.histogram[histogramIndex(time)]++;
+    }
+
+    synchronized void addTo(Aggregate aggregate, long fromHour, long toHour) {
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.hour >= fromHour && bucket.hour <= toHour) {
+                aggregate.add(bucket);
+            }
+        }
+    }
+
+    synchronized boolean isEmpty(long fromHour) {
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.hour >= fromHour) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    synchronized void write(DataOutputStream out, long fromHour) throws IOException {
+        int count = 0;
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.hour >= fromHour) {
+                count++;
+            }
+        }
+
+        out.writeInt(count);
+        for (Bucket bucket : buckets) {
+            if (bucket != null && bucket.hour >= fromHour) {
+                out.writeLong(bucket.hour);
+                out.writeLong(bucket.count);
+                out.writeLong(bucket.errors);
+                out.writeLong(bucket.slow);
+                for (long value : bucket.histogram) {
+                    out.writeLong(value);
+                }
+            }
+        }
+    }
+
+    static ScriptStats read(DataInputStream in) throws IOException {
+        ScriptStats result = new ScriptStats();
+
+        int count = in.readInt();
+        for (int i = 0; i < count; ++i) {
+            Bucket bucket = result.getBucket(in.readLong());
+            bucket.count += in.readLong();
+            bucket.errors += in.readLong();
+            bucket.slow += in.readLong();
+            for (int j = 0; j < HISTOGRAM_SIZE; ++j) {
+                bucket.histogram[j] += in.readLong();
+            }
+        }
+
+        return result;
+    }
+
+    private Bucket getBucket(long hour) {
+        int index = (int) (hour % BUCKET_COUNT);
+
+        Bucket bucket = buckets[index];
+        if (bucket == null || bucket.hour != hour) {
+            //bucket is reused after BUCKET_COUNT hours
+            bucket = new Bucket(hour);
+            buckets[index] = bucket;
+        }
+
+        return bucket;
+    }
+
+    private static int histogramIndex(long time) {
+        if (time <= 0) {
+            return 0;
+        }
+        return Math.min(HISTOGRAM_SIZE - 1, 64 - Long.numberOfLeadingZeros(time));
+    }
+
+    private static final class Bucket {
+        private final long hour;
+        private long count;
+        private long errors;
+        private long slow;
+        private final long[] histogram = new long[HISTOGRAM_SIZE];
+
+        private Bucket(long hour) {
+            this.hour = hour;
+        }
+    }
+
+    static final class Aggregate {
+        private long count;
+        private long errors;
+        private long slow;
+        private final long[] histogram = new long[HISTOGRAM_SIZE];
+
+        private void add(Bucket bucket) {
+            count += bucket.count;
+            errors += bucket.errors;
+            slow += bucket.slow;
+            for (int i = 0; i < HISTOGRAM_SIZE; ++i) {
+                histogram[i] += bucket.histogram[i];
+            }
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        long getSlow() {
+            return slow;
+        }
+
+        //upper bound of histogram bucket that contains requested percentile, in ms
+        long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long threshold = (long) Math.ceil(count * percentile);
+            long seen = 0;
+            for (int i = 0; i < HISTOGRAM_SIZE; ++i) {
+                seen += histogram[i];
+                if (seen >= threshold) {
+                    return i == 0 ? 0 : (1L << i) - 1;
+                }
+            }
+
+            return (1L << (HISTOGRAM_SIZE - 1)) - 1;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.mail.jira.plugins.groovy.impl.groovy;
+
+import ru.mail.jira.plugins.groovy.api.script.ScriptTimeoutException;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+
+//execution state of script in current thread, checks are injected into script bytecode by TimeoutExtension
+public final class ExecutionGuard {
+    private static final ThreadLocal<ExecutionGuard> CURRENT = new ThreadLocal<>();
+    //returned for scripts without budget, nothing is tracked for them
+    static final ExecutionGuard NONE = new ExecutionGuard(null, null, null, 0, 0, false, 0);
+
+    private final ExecutionGuard parent;
+    private final Thread thread;
+    private final String scriptId;
+    private final ScriptType type;
+    private final long wallTimeLimit;
+    private final long cpuTimeLimit;
+    private final boolean interrupt;
+    private final long startTime;
+    private final long startCpuTime;
+    private volatile ScriptTimeoutException timeout;
+    private boolean finished;
+
+    private ExecutionGuard(
+        ExecutionGuard parent, String scriptId, ScriptType type,
+        long wallTimeLimit, long cpuTimeLimit, boolean interrupt, long startCpuTime
+    ) {
+        this.parent = parent;
+        this.thread = Thread.currentThread();
+        this.scriptId = scriptId;
+        this.type = type;
+        this.wallTimeLimit = wallTimeLimit;
+        this.cpuTimeLimit = cpuTimeLimit;
+        this.interrupt = interrupt;
+        this.startTime = System.nanoTime();
+        this.startCpuTime = startCpuTime;
+    }
+
+    public static void check() {
+        ExecutionGuard guard = CURRENT.get();
+        if (guard != null) {
+            ScriptTimeoutException timeout = guard.getTimeout();
+            if (timeout != null) {
+                throw timeout;
+            }
+        }
+    }
+
+    static ExecutionGuard enter(
+        String scriptId, ScriptType type, long wallTimeLimit, long cpuTimeLimit, boolean interrupt, long startCpuTime
+    ) {
+        ExecutionGuard guard = new ExecutionGuard(
+            CURRENT.get(), scriptId, type, wallTimeLimit, cpuTimeLimit, interrupt, startCpuTime
+        );
+        CURRENT.set(guard);
+        return guard;
+    }
+
+    void exit() {
+        if (this == NONE) {
+            return;
+        }
+
+        synchronized (this) {
+            finished = true;
+        }
+
+        if (timeout != null && interrupt) {
+            //interruption from watchdog must not leak to code that is executed after script
+            Thread.interrupted();
+        }
+
+        if (parent != null) {
+            CURRENT.set(parent);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    //timeout of outer script stops nested scripts too
+    ScriptTimeoutException getTimeout() {
+        ScriptTimeoutException result = timeout;
+        if (result == null && parent != null) {
+            result = parent.getTimeout();
+        }
+        return result;
+    }
+
+    void stop(String budget, long limit) {
+        synchronized (this) {
+            if (finished || timeout != null) {
+                return;
+            }
+
+            timeout = new ScriptTimeoutException(scriptId, type, budget, limit);
+            if (interrupt) {
+                //unblocks script that waits for io or lock
+                thread.interrupt();
+            }
+        }
+    }
+
+    Thread getThread() {
+        return thread;
+    }
+
+    long getWallTimeLimit() {
+        return wallTimeLimit;
+    }
+
+    long getCpuTimeLimit() {
+        return cpuTimeLimit;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    long getStartCpuTime() {
+        return startCpuTime;
+    }
+}
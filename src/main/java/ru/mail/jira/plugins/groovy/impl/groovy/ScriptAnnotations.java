@@ -0,0 +1,42 @@
+package ru.mail.jira.plugins.groovy.impl.groovy;
+
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ImportNode;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.control.SourceUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//script options are declared with annotations on import or declaration, because script body can't be annotated
+public final class ScriptAnnotations {
+    private ScriptAnnotations() {
+    }
+
+    public static AnnotationNode find(SourceUnit source, Class annotationClass) {
+        String name = annotationClass.getSimpleName();
+
+        List<AnnotationNode> annotations = new ArrayList<>();
+        for (ClassNode classNode : source.getAST().getClasses()) {
+            annotations.addAll(classNode.getAnnotations());
+        }
+        for (ImportNode importNode : source.getAST().getImports()) {
+            annotations.addAll(importNode.getAnnotations());
+        }
+        for (Statement statement : source.getAST().getStatementBlock().getStatements()) {
+            if (statement instanceof ExpressionStatement) {
+                annotations.addAll(((ExpressionStatement) statement).getExpression().getAnnotations());
+            }
+        }
+
+        for (AnnotationNode annotation : annotations) {
+            if (annotation.getClassNode().getNameWithoutPackage().equals(name)) {
+                return annotation;
+            }
+        }
+
+        return null;
+    }
+}
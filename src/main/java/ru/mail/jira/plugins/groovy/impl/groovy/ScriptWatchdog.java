@@ -0,0 +1,151 @@
+package ru.mail.jira.plugins.groovy.impl.groovy;
+
+import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import com.atlassian.util.concurrent.ThreadFactories;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.script.ExecutionBudget;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//stops scripts that exceed wall-clock or cpu time budget, budgets are opt-in: by default scripts aren't limited
+@Component
+@ExportAsService(LifecycleAware.class)
+public class ScriptWatchdog implements LifecycleAware {
+    private static final String PROPERTY_PREFIX = "ru.mail.jira.plugins.groovy.timeout.";
+    //milliseconds
+    private static final long CHECK_INTERVAL = Long.getLong(PROPERTY_PREFIX + "checkInterval", 100);
+
+    private final Logger logger = LoggerFactory.getLogger(ScriptWatchdog.class);
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final Set<ExecutionGuard> executions = ConcurrentHashMap.newKeySet();
+    private final Cache<Class, Optional<ExecutionBudget>> scriptBudgets = Caffeine
+        .newBuilder()
+        .weakKeys()
+        .build();
+    private final Map<ScriptType, long[]> budgets;
+    private final boolean typeBudgetsConfigured;
+    private final boolean cpuTimeSupported;
+    private ScheduledExecutorService executor;
+
+    public ScriptWatchdog() {
+        ImmutableMap.Builder<ScriptType, long[]> budgets = ImmutableMap.builder();
+        for (ScriptType type : ScriptType.values()) {
+            //wall-clock and cpu time in milliseconds, 0 means no limit
+            String prefix = PROPERTY_PREFIX + type.name().toLowerCase() + ".";
+            budgets.put(type, new long[]{
+                Long.getLong(prefix + "wallTime", 0),
+                Long.getLong(prefix + "cpuTime", 0)
+            });
+        }
+        this.budgets = budgets.build();
+        this.typeBudgetsConfigured = this.budgets.values().stream().anyMatch(budget -> budget[0] > 0 || budget[1] > 0);
+        this.cpuTimeSupported = threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+    }
+
+    //budget declared in script with @ExecutionBudget overrides budget of script type
+    //script thread is interrupted only if script allows it, otherwise script is stopped at next check in its code
+    public ExecutionGuard start(String scriptId, ScriptType type, Class scriptClass) {
+        long[] typeBudget = type != null ? budgets.get(type) : new long[]{0, 0};
+        long wallTime = typeBudget[0];
+        long cpuTime = typeBudget[1];
+        boolean interrupt = false;
+
+        ExecutionBudget scriptBudget = scriptBudgets
+            .get(scriptClass, key -> Optional.ofNullable((ExecutionBudget) key.getAnnotation(ExecutionBudget.class)))
+            .orElse(null);
+        if (scriptBudget != null) {
+            if (scriptBudget.wallTime() >= 0) {
+                wallTime = scriptBudget.wallTime();
+            }
+            if (scriptBudget.cpuTime() >= 0) {
+                cpuTime = scriptBudget.cpuTime();
+            }
+            interrupt = scriptBudget.interrupt();
+        }
+
+        if (!cpuTimeSupported) {
+            cpuTime = 0;
+        }
+
+        //scripts without budget don't pay for tracking
+        if (wallTime <= 0 && cpuTime <= 0) {
+            return ExecutionGuard.NONE;
+        }
+
+        ExecutionGuard guard = ExecutionGuard.enter(
+            scriptId, type, wallTime, cpuTime, interrupt, cpuTime > 0 ? threadMXBean.getCurrentThreadCpuTime() : 0
+        );
+
+        executions.add(guard);
+
+        return guard;
+    }
+
+    public void finish(ExecutionGuard guard) {
+        if (guard == ExecutionGuard.NONE) {
+            return;
+        }
+
+        executions.remove(guard);
+        guard.exit();
+    }
+
+    //if budget is configured for any script type, checks must be compiled into all scripts
+    public boolean isTypeBudgetsConfigured() {
+        return typeBudgetsConfigured;
+    }
+
+    private void checkExecutions() {
+        long now = System.nanoTime();
+
+        for (ExecutionGuard guard : executions) {
+            try {
+                long wallTimeLimit = guard.getWallTimeLimit();
+                if (wallTimeLimit > 0 && now - guard.getStartTime() > TimeUnit.MILLISECONDS.toNanos(wallTimeLimit)) {
+                    logger.warn("stopping script on thread {}: wall-clock time budget exceeded", guard.getThread().getName());
+                    guard.stop("wall-clock time", wallTimeLimit);
+                    continue;
+                }
+
+                long cpuTimeLimit = guard.getCpuTimeLimit();
+                if (cpuTimeLimit > 0) {
+                    long cpuTime = threadMXBean.getThreadCpuTime(guard.getThread().getId());
+                    if (cpuTime >= 0 && cpuTime - guard.getStartCpuTime() > TimeUnit.MILLISECONDS.toNanos(cpuTimeLimit)) {
+                        logger.warn("stopping script on thread {}: cpu time budget exceeded", guard.getThread().getName());
+                        guard.stop("cpu time", cpuTimeLimit);
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("unable to check script execution", e);
+            }
+        }
+    }
+
+    @Override
+    public void onStart() {
+        executor = Executors.newSingleThreadScheduledExecutor(ThreadFactories.namedThreadFactory("MAILRU_GROOVY_WATCHDOG"));
+        executor.scheduleWithFixedDelay(this::checkExecutions, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onStop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ru.mail.jira.plugins.groovy.impl.groovy;
+
+import org.codehaus.groovy.ast.AnnotationNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.ClosureExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.stmt.BlockStatement;
+import org.codehaus.groovy.ast.stmt.DoWhileStatement;
+import org.codehaus.groovy.ast.stmt.ExpressionStatement;
+import org.codehaus.groovy.ast.stmt.ForStatement;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.ast.stmt.WhileStatement;
+import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilePhase;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+import ru.mail.jira.plugins.groovy.api.script.ExecutionBudget;
+
+//injects ExecutionGuard.check() into loops, closures and methods, so scripts can be stopped when budget is exceeded
+//checks are injected only into scripts with @ExecutionBudget, unless budget is configured for script types
+public class TimeoutExtension extends CompilationCustomizer {
+    private final boolean injectAlways;
+
+    public TimeoutExtension(boolean injectAlways) {
+        super(CompilePhase.CANONICALIZATION);
+        this.injectAlways = injectAlways;
+    }
+
+    public boolean isInjectAlways() {
+        return injectAlways;
+    }
+
+    @Override
+    public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws CompilationFailedException {
+        AnnotationNode budget = ScriptAnnotations.find(source, ExecutionBudget.class);
+        if (budget == null && !injectAlways) {
+            return;
+        }
+
+        if (classNode.isScript() && budget != null) {
+            copyBudgetAnnotation(classNode, budget);
+        }
+
+        CheckInjectingVisitor visitor = new CheckInjectingVisitor(source);
+
+        for (MethodNode method : classNode.getMethods()) {
+            if (method.isAbstract() || method.isSynthetic() || method.getCode() == null) {
+                continue;
+            }
+
+            method.setCode(prependCheck(method.getCode()));
+            visitor.visitMethod(method);
+        }
+    }
+
+    //budget annotation can be placed on import or declaration in script, it is moved to script class to be read at runtime
+    private static void copyBudgetAnnotation(ClassNode classNode, AnnotationNode annotation) {
+        if (classNode.getAnnotations(ClassHelper.make(ExecutionBudget.class)).isEmpty()) {
+            classNode.addAnnotation(annotation);
+        }
+    }
+
+    private static Statement prependCheck(Statement statement) {
+        BlockStatement result = new BlockStatement();
+        result.addStatement(new ExpressionStatement(
+            new StaticMethodCallExpression(ClassHelper.make(ExecutionGuard.class), "check", ArgumentListExpression.EMPTY_ARGUMENTS)
+        ));
+        if (statement instanceof BlockStatement) {
+            result.setVariableScope(((BlockStatement) statement).getVariableScope());
+        }
+        result.addStatement(statement);
+        return result;
+    }
+
+    private static class CheckInjectingVisitor extends ClassCodeVisitorSupport {
+        private final SourceUnit sourceUnit;
+
+        private CheckInjectingVisitor(SourceUnit sourceUnit) {
+            this.sourceUnit = sourceUnit;
+        }
+
+        @Override
+        protected SourceUnit getSourceUnit() {
+            return sourceUnit;
+        }
+
+        @Override
+        public void visitForLoop(ForStatement forLoop) {
+            forLoop.setLoopBlock(prependCheck(forLoop.getLoopBlock()));
+            super.visitForLoop(forLoop);
+        }
+
+        @Override
+        public void visitWhileLoop(WhileStatement loop) {
+            loop.setLoopBlock(prependCheck(loop.getLoopBlock()));
+            super.visitWhileLoop(loop);
+        }
+
+        @Override
+        public void visitDoWhileLoop(DoWhileStatement loop) {
+            loop.setLoopBlock(prependCheck(loop.getLoopBlock()));
+            super.visitDoWhileLoop(loop);
+        }
+
+        @Override
+        public void visitClosureExpression(ClosureExpression expression) {
+            expression.setCode(prependCheck(expression.getCode()));
+            super.visitClosureExpression(expression);
+        }
+    }
+}
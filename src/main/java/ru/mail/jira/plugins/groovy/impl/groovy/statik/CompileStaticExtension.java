@@ -11,8 +11,11 @@ import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilePhase;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.control.customizers.CompilationCustomizer;
+import ru.mail.jira.plugins.groovy.api.script.ParseContext;
+import ru.mail.jira.plugins.groovy.api.script.StaticScript;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.impl.groovy.ParseContextHolder;
+import ru.mail.jira.plugins.groovy.impl.groovy.ScriptAnnotations;
 
 public class CompileStaticExtension extends CompilationCustomizer implements CompilationUnitAware {
     private final AnnotationNode annotationNode = new AnnotationNode(new ClassNode(CompileStatic.class));
@@ -29,7 +32,19 @@ public class CompileStaticExtension extends CompilationCustomizer implements Com
     @Override
     public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws CompilationFailedException {
         try {
-            if (parseContextHolder.get().isCompileStatic()) {
+            ParseContext parseContext = parseContextHolder.get();
+
+            //dynamic scripts can opt into static compilation, types of bindings are provided by caller
+            //annotation is kept on script class, so it can be checked after compilation
+            AnnotationNode staticAnnotation = ScriptAnnotations.find(source, StaticScript.class);
+            if (staticAnnotation != null) {
+                parseContext.setCompileStatic(true);
+                if (classNode.isScript() && classNode.getAnnotations(staticAnnotation.getClassNode()).isEmpty()) {
+                    classNode.addAnnotation(staticAnnotation);
+                }
+            }
+
+            if (parseContext.isCompileStatic()) {
                 ExtendedStaticCompileTransformation transformation = new ExtendedStaticCompileTransformation(parseContextHolder, scriptService);
                 if (currentCompilationUnit.get() != null) {
                     transformation.setCompilationUnit(currentCompilationUnit.get());
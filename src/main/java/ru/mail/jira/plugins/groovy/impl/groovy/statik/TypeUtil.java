@@ -1,12 +1,17 @@
 package ru.mail.jira.plugins.groovy.impl.groovy.statik;
 
+import com.atlassian.jira.event.issue.IssueEvent;
 import com.atlassian.jira.issue.Issue;
 import com.atlassian.jira.issue.MutableIssue;
 import com.atlassian.jira.user.ApplicationUser;
 import com.google.common.collect.ImmutableMap;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionDescriptor;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionType;
+import ru.mail.jira.plugins.groovy.api.entity.ScheduledTaskType;
 
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.UriInfo;
+import java.util.List;
 import java.util.Map;
 
 public final class TypeUtil {
@@ -76,6 +81,29 @@ public final class TypeUtil {
         return velocityParamsEnabled ? FIELD_WITH_VARS : FIELD;
     }
 
+    //event type is taken from condition, so compiled script doesn't depend on class of received event
+    public static Map<String, Class> getListenerTypes(ConditionDescriptor condition) {
+        if (condition.getType() == ConditionType.ISSUE) {
+            //issue listeners always get event type ids, single id if event wasn't coalesced
+            return ImmutableMap.of(
+                "event", IssueEvent.class,
+                "mergedEventTypeIds", List.class
+            );
+        }
+        return getListenerTypes(condition.getClassInstance() != null ? condition.getClassInstance() : Object.class);
+    }
+
+    public static Map<String, Class> getListenerTypes(Class eventType) {
+        return ImmutableMap.of(
+            "event", eventType
+        );
+    }
+
+    public static Map<String, Class> getScheduledTypes(ScheduledTaskType type) {
+        boolean isMutableIssue = type == ScheduledTaskType.ISSUE_JQL_SCRIPT;
+        return getScheduledTypes(isMutableIssue || type == ScheduledTaskType.DOCUMENT_ISSUE_JQL_SCRIPT, isMutableIssue);
+    }
+
     public static Map<String, Class> getScheduledTypes(boolean withIssue, boolean isMutableIssue) {
         if (!withIssue) {
             return ImmutableMap.of();
@@ -0,0 +1,145 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.atlassian.util.concurrent.ThreadFactories;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.listener.AsyncListenerStatsDto;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.impl.ThreadContextWrapper;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//executes async listeners on single-threaded partitions, tasks with same key are always executed in submission order
+@Component
+public class AsyncListenerExecutor {
+    private static final int PARTITION_COUNT = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final long DRAIN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private final Logger logger = LoggerFactory.getLogger(AsyncListenerExecutor.class);
+    private final ThreadPoolExecutor[] partitions = new ThreadPoolExecutor[PARTITION_COUNT];
+    private final ThreadContextWrapper threadContextWrapper;
+    private final ExecutionRepository executionRepository;
+
+    private final LongAdder executedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final AtomicLong maxLag = new AtomicLong();
+    private volatile long lastLag;
+
+    @Autowired
+    public AsyncListenerExecutor(ThreadContextWrapper threadContextWrapper, ExecutionRepository executionRepository) {
+        this.threadContextWrapper = threadContextWrapper;
+        this.executionRepository = executionRepository;
+
+        ThreadFactory threadFactory = ThreadFactories.namedThreadFactory("MAILRU_GROOVY_ASYNC_LISTENER");
+        //listener is never executed in publishing thread, so slow listeners can't block jira
+        RejectedExecutionHandler rejectionHandler = (task, executor) -> onDropped((ListenerTask) task);
+        for (int i = 0; i < PARTITION_COUNT; ++i) {
+            partitions[i] = new ThreadPoolExecutor(
+                1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), threadFactory, rejectionHandler
+            );
+        }
+    }
+
+    //issueKey is null for events without issue
+    public void execute(long key, String listenerUuid, String issueKey, Object event, Runnable task) {
+        ThreadPoolExecutor partition = partitions[(int) Math.floorMod(key, PARTITION_COUNT)];
+        long submitTime = System.currentTimeMillis();
+
+        Runnable wrappedTask = threadContextWrapper.wrap(() -> {
+            long lag = System.currentTimeMillis() - submitTime;
+            lastLag = lag;
+            maxLag.accumulateAndGet(lag, Math::max);
+
+            try {
+                task.run();
+            } finally {
+                executedCount.increment();
+            }
+        });
+
+        //single worker thread per partition keeps submission order
+        partition.execute(new ListenerTask(listenerUuid, issueKey, event, wrappedTask));
+    }
+
+    //dropped execution is tracked as failed execution of listener, so it's visible in listener error count
+    private void onDropped(ListenerTask task) {
+        droppedCount.increment();
+        logger.warn(
+            "async listener queue is full or stopped, dropping execution of listener {} for issue {}",
+            task.listenerUuid, task.issueKey
+        );
+
+        ImmutableMap.Builder<String, String> params = ImmutableMap.<String, String>builder()
+            .put("event", String.valueOf(task.event))
+            .put("type", ScriptType.LISTENER.name());
+        if (task.issueKey != null) {
+            params.put("issue", task.issueKey);
+        }
+        executionRepository.trackInline(task.listenerUuid, 0, false, "async queue full, execution dropped", params.build());
+    }
+
+    public AsyncListenerStatsDto getStats() {
+        int queueSize = 0;
+        for (ThreadPoolExecutor partition : partitions) {
+            queueSize += partition.getQueue().size();
+        }
+
+        return new AsyncListenerStatsDto(
+            PARTITION_COUNT,
+            queueSize,
+            PARTITION_COUNT * QUEUE_CAPACITY,
+            executedCount.sum(),
+            droppedCount.sum(),
+            droppedCount.sum(),
+            lastLag,
+            maxLag.get()
+        );
+    }
+
+    public void stop() {
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.shutdown();
+        }
+
+        //let queued events drain
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT;
+        for (ThreadPoolExecutor partition : partitions) {
+            try {
+                long timeout = Math.max(0, deadline - System.currentTimeMillis());
+                if (!partition.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                    logger.warn("{} queued async listener executions were discarded", partition.shutdownNow().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                partition.shutdownNow();
+            }
+        }
+    }
+
+    private static final class ListenerTask implements Runnable {
+        private final String listenerUuid;
+        private final String issueKey;
+        private final Object event;
+        private final Runnable task;
+
+        private ListenerTask(String listenerUuid, String issueKey, Object event, Runnable task) {
+            this.listenerUuid = listenerUuid;
+            this.issueKey = issueKey;
+            this.event = event;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -4,22 +4,26 @@ import com.atlassian.event.api.EventListener;
 import com.atlassian.event.api.EventPublisher;
 import com.atlassian.jira.event.issue.IssueEvent;
 import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.user.ApplicationUser;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionDescriptor;
-import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionType;
 import ru.mail.jira.plugins.groovy.api.dto.listener.ScriptedEventListener;
 import ru.mail.jira.plugins.groovy.api.repository.EventListenerRepository;
 import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.impl.groovy.statik.TypeUtil;
 import ru.mail.jira.plugins.groovy.util.ExceptionHelper;
 
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class EventListenerInvoker {
@@ -30,18 +34,30 @@ public class EventListenerInvoker {
     private final EventListenerRepository eventListenerRepository;
     private final ScriptService scriptService;
     private final ExecutionRepository executionRepository;
+    private final AsyncListenerExecutor asyncListenerExecutor;
+    private final ListenerCircuitBreaker circuitBreaker;
+    private final IssueEventCoalescer coalescer = new IssueEventCoalescer(this::onCoalescedEvent);
+    private final JiraAuthenticationContext authenticationContext;
+
+    private volatile ListenerIndex index;
 
     @Autowired
     public EventListenerInvoker(
         @ComponentImport EventPublisher eventPublisher,
         EventListenerRepository eventListenerRepository,
         ScriptService scriptService,
-        ExecutionRepository executionRepository
+        @ComponentImport JiraAuthenticationContext authenticationContext,
+        ExecutionRepository executionRepository,
+        AsyncListenerExecutor asyncListenerExecutor,
+        ListenerCircuitBreaker circuitBreaker
     ) {
         this.eventPublisher = eventPublisher;
         this.eventListenerRepository = eventListenerRepository;
         this.scriptService = scriptService;
         this.executionRepository = executionRepository;
+        this.authenticationContext = authenticationContext;
+        this.asyncListenerExecutor = asyncListenerExecutor;
+        this.circuitBreaker = circuitBreaker;
     }
 
     public void onStart() {
@@ -50,6 +66,8 @@ public class EventListenerInvoker {
 
     public void onStop() {
         eventPublisher.unregister(this);
+        coalescer.stop();
+        asyncListenerExecutor.stop();
     }
 
     @EventListener
@@ -63,18 +81,20 @@ public class EventListenerInvoker {
             return;
         }
 
-        for (ScriptedEventListener listener : eventListenerRepository.getAllListeners()) {
-            ConditionDescriptor condition = listener.getCondition();
-            if (condition.getType() == ConditionType.ISSUE) {
-                Set<Long> typeIds = condition.getTypeIds();
-                Set<Long> projectIds = condition.getProjectIds();
-                Issue issue = event.getIssue();
-                if (
-                    (typeIds.isEmpty() || typeIds.contains(event.getEventTypeId())) &&
-                    (projectIds.isEmpty() || projectIds.contains(issue.getProjectId()))
-                ) {
-                    executeScript(listener, event);
-                }
+        Issue issue = event.getIssue();
+        for (ScriptedEventListener listener : getIndex().getIssueListeners(issue.getProjectId(), event.getEventTypeId())) {
+            Long debounceWindow = listener.getCondition().getDebounceWindow();
+            if (debounceWindow != null && debounceWindow > 0) {
+                coalescer.add(listener, event, debounceWindow);
+            } else {
+                dispatch(
+                    listener, event,
+                    ImmutableMap.of(
+                        "event", event,
+                        "mergedEventTypeIds", Collections.singletonList(event.getEventTypeId())
+                    ),
+                    issue.getId()
+                );
             }
         }
     }
@@ -90,20 +110,72 @@ public class EventListenerInvoker {
             return;
         }
 
-        for (ScriptedEventListener listener : eventListenerRepository.getAllListeners()) {
-            ConditionDescriptor condition = listener.getCondition();
-            if (condition.getType() == ConditionType.CLASS_NAME) {
-                if (condition.getClassInstance().isInstance(event)) {
-                    executeScript(listener, event);
-                }
-            }
+        for (ScriptedEventListener listener : getIndex().getClassListeners(event.getClass())) {
+            //events without issue are ordered per listener
+            dispatch(listener, event, ImmutableMap.of("event", event), listener.getId());
+        }
+    }
+
+    private ListenerIndex getIndex() {
+        //listener list is replaced when listeners are changed, index is rebuilt for new list
+        List<ScriptedEventListener> listeners = eventListenerRepository.getAllListeners();
+
+        ListenerIndex index = this.index;
+        if (index == null || !index.isBuiltFrom(listeners)) {
+            index = new ListenerIndex(listeners);
+            this.index = index;
+        }
+
+        return index;
+    }
+
+    private void dispatch(ScriptedEventListener listener, Object event, Map<String, Object> bindings, long partitionKey) {
+        if (listener.getCondition().isAsync()) {
+            executeAsync(listener, event, bindings, partitionKey, authenticationContext.getLoggedInUser());
+        } else {
+            executeScript(listener, event, bindings);
         }
     }
 
-    private void executeScript(ScriptedEventListener listener, Object event) {
+    private void onCoalescedEvent(ScriptedEventListener listener, IssueEvent event, List<Long> eventTypeIds) {
+        //coalesced events are always executed in background, ordered with other async listeners for same issue
+        executeAsync(
+            listener, event,
+            ImmutableMap.of(
+                "event", event,
+                "mergedEventTypeIds", ImmutableList.copyOf(eventTypeIds)
+            ),
+            event.getIssue().getId(),
+            event.getUser()
+        );
+    }
+
+    private void executeAsync(
+        ScriptedEventListener listener, Object event, Map<String, Object> bindings, long partitionKey, ApplicationUser user
+    ) {
+        String issueKey = event instanceof IssueEvent ? ((IssueEvent) event).getIssue().getKey() : null;
+        asyncListenerExecutor.execute(partitionKey, listener.getUuid(), issueKey, event, () -> {
+            //scripts expect same user as in thread that published event
+            ApplicationUser previousUser = authenticationContext.getLoggedInUser();
+            authenticationContext.setLoggedInUser(user);
+            try {
+                executeScript(listener, event, bindings);
+            } finally {
+                authenticationContext.setLoggedInUser(previousUser);
+            }
+        });
+    }
+
+    private void executeScript(ScriptedEventListener listener, Object event, Map<String, Object> bindings) {
         String uuid = listener.getUuid();
+
+        if (!circuitBreaker.allowExecution(uuid)) {
+            logger.debug("circuit breaker is open for listener {}/{}", listener.getId(), uuid);
+            return;
+        }
+
         long t = System.currentTimeMillis();
-        boolean successful = true;
+        boolean successful = false;
         String error = null;
 
         try {
@@ -111,14 +183,17 @@ public class EventListenerInvoker {
                 uuid,
                 listener.getScript(),
                 ScriptType.LISTENER,
-                ImmutableMap.of("event", event)
+                bindings,
+                TypeUtil.getListenerTypes(listener.getCondition())
             );
+            successful = true;
         } catch (Exception e) {
             logger.error("Was unable to execute listener {}/{}", listener.getId(), uuid, e);
-            successful = false;
             error = ExceptionHelper.writeExceptionToString(e);
         } finally {
             t = System.currentTimeMillis() - t;
+            //errors are reported too, so half-open breaker is always released
+            circuitBreaker.onExecuted(uuid, t, successful);
         }
 
         if (!successful || t >= ExecutionRepository.WARNING_THRESHOLD) {
@@ -0,0 +1,101 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.util.concurrent.ThreadFactories;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ScriptedEventListener;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+//collapses issue events for same listener and issue that are fired within listener debounce window
+final class IssueEventCoalescer {
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(
+        ThreadFactories.namedThreadFactory("MAILRU_GROOVY_EVENT_COALESCER")
+    );
+    private final Map<PendingKey, PendingEvent> pendingEvents = new ConcurrentHashMap<>();
+    private final FlushHandler flushHandler;
+
+    IssueEventCoalescer(FlushHandler flushHandler) {
+        this.flushHandler = flushHandler;
+    }
+
+    void add(ScriptedEventListener listener, IssueEvent event, long window) {
+        PendingKey key = new PendingKey(listener.getUuid(), event.getIssue().getId());
+
+        boolean[] created = {false};
+        pendingEvents.compute(key, (ignore, pending) -> {
+            if (pending == null) {
+                created[0] = true;
+                pending = new PendingEvent(listener);
+            }
+            pending.lastEvent = event;
+            pending.eventTypeIds.add(event.getEventTypeId());
+            return pending;
+        });
+
+        if (created[0]) {
+            try {
+                executorService.schedule(() -> flush(key), window, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flush(key);
+            }
+        }
+    }
+
+    int getPendingCount() {
+        return pendingEvents.size();
+    }
+
+    //executes all pending events immediately
+    void stop() {
+        executorService.shutdownNow();
+        for (PendingKey key : new ArrayList<>(pendingEvents.keySet())) {
+            flush(key);
+        }
+    }
+
+    private void flush(PendingKey key) {
+        PendingEvent pending = pendingEvents.remove(key);
+        if (pending != null) {
+            flushHandler.flush(pending.listener, pending.lastEvent, pending.eventTypeIds);
+        }
+    }
+
+    interface FlushHandler {
+        void flush(ScriptedEventListener listener, IssueEvent lastEvent, List<Long> eventTypeIds);
+    }
+
+    private static final class PendingEvent {
+        private final ScriptedEventListener listener;
+        private final List<Long> eventTypeIds = new ArrayList<>();
+        private IssueEvent lastEvent;
+
+        private PendingEvent(ScriptedEventListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    private static final class PendingKey {
+        private final String listenerUuid;
+        private final long issueId;
+
+        private PendingKey(String listenerUuid, long issueId) {
+            this.listenerUuid = listenerUuid;
+            this.issueId = issueId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PendingKey that = (PendingKey) o;
+            return issueId == that.issueId &&
+                Objects.equals(listenerUuid, that.listenerUuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(listenerUuid, issueId);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.atlassian.jira.cluster.ClusterMessageConsumer;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.sal.api.lifecycle.LifecycleAware;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.mail.jira.plugins.groovy.api.dto.listener.CircuitBreakerState;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+//stops executing listeners that keep failing or running slow, breakers are keyed by listener uuid
+@Component
+@ExportAsService(LifecycleAware.class)
+public class ListenerCircuitBreaker implements LifecycleAware {
+    private static final String CHANNEL = "ru.mail.groovy.lcb";
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final int SLOW_THRESHOLD = 5;
+    private static final long WINDOW = TimeUnit.MINUTES.toMillis(1);
+    private static final long COOL_DOWN = TimeUnit.MINUTES.toMillis(5);
+
+    private final Logger logger = LoggerFactory.getLogger(ListenerCircuitBreaker.class);
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+    private final MessageConsumer messageConsumer = new MessageConsumer();
+    private final ClusterMessagingService clusterMessagingService;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ListenerCircuitBreaker(
+        @ComponentImport ClusterMessagingService clusterMessagingService
+    ) {
+        this(clusterMessagingService, System::currentTimeMillis);
+    }
+
+    ListenerCircuitBreaker(ClusterMessagingService clusterMessagingService, LongSupplier clock) {
+        this.clusterMessagingService = clusterMessagingService;
+        this.clock = clock;
+    }
+
+    //if execution is allowed, onExecuted must be called after it, otherwise half-open breaker is never released
+    public boolean allowExecution(String uuid) {
+        Breaker breaker = breakers.get(uuid);
+        return breaker == null || breaker.allowExecution(clock.getAsLong());
+    }
+
+    public void onExecuted(String uuid, long time, boolean successful) {
+        boolean slow = successful && time >= ExecutionRepository.WARNING_THRESHOLD;
+
+        Breaker breaker = breakers.get(uuid);
+        if (breaker == null) {
+            if (successful && !slow) {
+                //nothing to track for healthy listeners
+                return;
+            }
+            breaker = breakers.computeIfAbsent(uuid, ignore -> new Breaker());
+        }
+
+        CircuitBreakerState previousState = breaker.getState();
+        CircuitBreakerState state = breaker.onExecuted(successful, slow, clock.getAsLong());
+
+        if (state != previousState) {
+            if (state == CircuitBreakerState.OPEN) {
+                logger.warn("opening circuit breaker for listener {}", uuid);
+                clusterMessagingService.sendRemote(CHANNEL, "O" + uuid);
+            } else if (state == CircuitBreakerState.CLOSED) {
+                logger.info("closing circuit breaker for listener {}", uuid);
+                clusterMessagingService.sendRemote(CHANNEL, "C" + uuid);
+            }
+        }
+    }
+
+    public CircuitBreakerState getState(String uuid) {
+        Breaker breaker = breakers.get(uuid);
+        return breaker != null ? breaker.getState() : CircuitBreakerState.CLOSED;
+    }
+
+    @Override
+    public void onStart() {
+        clusterMessagingService.registerListener(CHANNEL, messageConsumer);
+    }
+
+    @Override
+    public void onStop() {
+        clusterMessagingService.unregisterListener(CHANNEL, messageConsumer);
+    }
+
+    private static final class Breaker {
+        private final Deque<Long> failures = new ArrayDeque<>();
+        private final Deque<Long> slowRuns = new ArrayDeque<>();
+        private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+        private long openedAt;
+        private boolean probeInFlight;
+
+        private synchronized boolean allowExecution(long now) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (now - openedAt < COOL_DOWN) {
+                        return false;
+                    }
+                    state = CircuitBreakerState.HALF_OPEN;
+                    probeInFlight = true;
+                    return true;
+                case HALF_OPEN:
+                    if (probeInFlight) {
+                        return false;
+                    }
+                    probeInFlight = true;
+                    return true;
+                default:
+                    return true;
+            }
+        }
+
+        private synchronized CircuitBreakerState onExecuted(boolean successful, boolean slow, long now) {
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                probeInFlight = false;
+                if (successful && !slow) {
+                    close();
+                } else {
+                    open(now);
+                }
+                return state;
+            }
+
+            if (!successful) {
+                addAndPrune(failures, now);
+            } else if (slow) {
+                addAndPrune(slowRuns, now);
+            }
+
+            if (failures.size() >= FAILURE_THRESHOLD || slowRuns.size() >= SLOW_THRESHOLD) {
+                open(now);
+            }
+
+            return state;
+        }
+
+        private synchronized CircuitBreakerState getState() {
+            return state;
+        }
+
+        private synchronized void open(long now) {
+            state = CircuitBreakerState.OPEN;
+            openedAt = now;
+            probeInFlight = false;
+            failures.clear();
+            slowRuns.clear();
+        }
+
+        private synchronized void close() {
+            state = CircuitBreakerState.CLOSED;
+            probeInFlight = false;
+            failures.clear();
+            slowRuns.clear();
+        }
+
+        private static void addAndPrune(Deque<Long> timestamps, long now) {
+            timestamps.addLast(now);
+            while (!timestamps.isEmpty() && now - timestamps.peekFirst() > WINDOW) {
+                timestamps.removeFirst();
+            }
+        }
+    }
+
+    private class MessageConsumer implements ClusterMessageConsumer {
+        @Override
+        public void receive(String channel, String message, String senderId) {
+            if (CHANNEL.equals(channel) && message.length() > 1) {
+                String uuid = message.substring(1);
+                if (message.charAt(0) == 'O') {
+                    breakers.computeIfAbsent(uuid, ignore -> new Breaker()).open(clock.getAsLong());
+                } else if (message.charAt(0) == 'C') {
+                    Breaker breaker = breakers.get(uuid);
+                    if (breaker != null) {
+                        breaker.close();
+                    }
+                } else {
+                    logger.warn("Unsupported message {}", message);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionDescriptor;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionType;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ScriptedEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//dispatch index for listeners, matching listeners are computed once for each event class and (project, event type) pair
+final class ListenerIndex {
+    private final List<ScriptedEventListener> source;
+    private final List<ScriptedEventListener> classListeners;
+    private final List<ScriptedEventListener> issueListeners;
+    //event classes can come from other plugins, weak keys don't prevent them from being unloaded
+    private final Cache<Class<?>, List<ScriptedEventListener>> byEventClass = Caffeine.newBuilder().weakKeys().build();
+    private final Map<Long, Map<Long, List<ScriptedEventListener>>> byProjectAndType = new ConcurrentHashMap<>();
+
+    ListenerIndex(List<ScriptedEventListener> source) {
+        this.source = source;
+
+        ImmutableList.Builder<ScriptedEventListener> classListeners = ImmutableList.builder();
+        ImmutableList.Builder<ScriptedEventListener> issueListeners = ImmutableList.builder();
+        for (ScriptedEventListener listener : source) {
+            ConditionType type = listener.getCondition().getType();
+            if (type == ConditionType.CLASS_NAME) {
+                classListeners.add(listener);
+            } else if (type == ConditionType.ISSUE) {
+                issueListeners.add(listener);
+            }
+        }
+        this.classListeners = classListeners.build();
+        this.issueListeners = issueListeners.build();
+    }
+
+    boolean isBuiltFrom(List<ScriptedEventListener> listeners) {
+        return source == listeners;
+    }
+
+    List<ScriptedEventListener> getClassListeners(Class<?> eventClass) {
+        if (classListeners.isEmpty()) {
+            return classListeners;
+        }
+
+        return byEventClass.get(eventClass, this::findClassListeners);
+    }
+
+    List<ScriptedEventListener> getIssueListeners(Long projectId, Long eventTypeId) {
+        if (issueListeners.isEmpty()) {
+            return issueListeners;
+        }
+
+        return byProjectAndType
+            .computeIfAbsent(projectId, ignore -> new ConcurrentHashMap<>())
+            .computeIfAbsent(eventTypeId, ignore -> findIssueListeners(projectId, eventTypeId));
+    }
+
+    private List<ScriptedEventListener> findClassListeners(Class<?> eventClass) {
+        ImmutableList.Builder<ScriptedEventListener> result = ImmutableList.builder();
+        for (ScriptedEventListener listener : classListeners) {
+            if (listener.getCondition().getClassInstance().isAssignableFrom(eventClass)) {
+                result.add(listener);
+            }
+        }
+        return result.build();
+    }
+
+    private List<ScriptedEventListener> findIssueListeners(Long projectId, Long eventTypeId) {
+        ImmutableList.Builder<ScriptedEventListener> result = ImmutableList.builder();
+        for (ScriptedEventListener listener : issueListeners) {
+            ConditionDescriptor condition = listener.getCondition();
+            Set<Long> typeIds = condition.getTypeIds();
+            Set<Long> projectIds = condition.getProjectIds();
+            if (
+                (typeIds.isEmpty() || typeIds.contains(eventTypeId)) &&
+                (projectIds.isEmpty() || projectIds.contains(projectId))
+            ) {
+                result.add(listener);
+            }
+        }
+        return result.build();
+    }
+}
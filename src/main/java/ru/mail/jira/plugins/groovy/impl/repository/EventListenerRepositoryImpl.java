@@ -20,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.mail.jira.plugins.groovy.api.entity.*;
 import ru.mail.jira.plugins.groovy.impl.AuditService;
+import ru.mail.jira.plugins.groovy.impl.listener.ListenerCircuitBreaker;
 import ru.mail.jira.plugins.groovy.util.*;
 import ru.mail.jira.plugins.groovy.api.repository.EventListenerRepository;
 import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
@@ -51,6 +52,7 @@ public class EventListenerRepositoryImpl implements EventListenerRepository {
     private final ExecutionRepository executionRepository;
     private final AuditService auditService;
     private final DelegatingClassLoader classLoader;
+    private final ListenerCircuitBreaker circuitBreaker;
 
     @Autowired
     public EventListenerRepositoryImpl(
@@ -62,7 +64,8 @@ public class EventListenerRepositoryImpl implements EventListenerRepository {
         ScriptService scriptService,
         ExecutionRepository executionRepository,
         AuditService auditService,
-        DelegatingClassLoader classLoader
+        DelegatingClassLoader classLoader,
+        ListenerCircuitBreaker circuitBreaker
     ) {
         cache = cacheManager.getCache(EventListenerRepositoryImpl.class.getCanonicalName() + ".cache",
             new EventListenerCacheLoader(),
@@ -80,6 +83,7 @@ public class EventListenerRepositoryImpl implements EventListenerRepository {
         this.executionRepository = executionRepository;
         this.auditService = auditService;
         this.classLoader = classLoader;
+        this.circuitBreaker = circuitBreaker;
     }
 
     @Override
@@ -198,6 +202,7 @@ public class EventListenerRepositoryImpl implements EventListenerRepository {
         result.setScriptBody(listener.getScriptBody());
         result.setUuid(listener.getUuid());
         result.setCondition(jsonMapper.read(listener.getCondition(), ConditionDescriptor.class));
+        result.setCircuitBreakerState(circuitBreaker.getState(listener.getUuid()));
 
         if (includeChangelogs) {
             result.setChangelogs(changelogHelper.collect(listener.getChangelogs()));
@@ -255,6 +260,11 @@ public class EventListenerRepositoryImpl implements EventListenerRepository {
                 condition.setTypeIds(null);
             }
         }
+
+        if (condition.getType() != ConditionType.ISSUE || (condition.getDebounceWindow() != null && condition.getDebounceWindow() <= 0)) {
+            //debounce is only supported for issue events
+            condition.setDebounceWindow(null);
+        }
     }
 
     private ScriptedEventListener buildEventListener(Listener listener) throws ClassNotFoundException {
@@ -0,0 +1,206 @@
+package ru.mail.jira.plugins.groovy.impl.repository;
+
+import com.atlassian.adapter.jackson.ObjectMapper;
+import com.atlassian.pocketknife.api.querydsl.DatabaseAccessor;
+import com.atlassian.pocketknife.api.querydsl.util.OnRollback;
+import com.querydsl.sql.dml.SQLInsertClause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.mail.jira.plugins.groovy.api.dto.ExecutionLogStatsDto;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static ru.mail.jira.plugins.groovy.util.QueryDslTables.SCRIPT_EXECUTION;
+
+//buffers tracked executions in bounded queue and writes them with batch inserts
+class ExecutionLogWriter {
+    private static final String PROPERTY_PREFIX = "ru.mail.jira.plugins.groovy.executionLog.";
+    private static final int QUEUE_CAPACITY = Integer.getInteger(PROPERTY_PREFIX + "queueCapacity", 10000);
+    private static final int BATCH_SIZE = Integer.getInteger(PROPERTY_PREFIX + "batchSize", 500);
+    private static final long FLUSH_INTERVAL = Long.getLong(PROPERTY_PREFIX + "flushInterval", 1000);
+    //only 1 of SAMPLE_RATE successful executions is kept when queue is filled above SAMPLING_THRESHOLD
+    private static final int SAMPLE_RATE = Integer.getInteger(PROPERTY_PREFIX + "sampleRate", 10);
+    private static final int SAMPLING_THRESHOLD = QUEUE_CAPACITY * 3 / 4;
+
+    private final Logger logger = LoggerFactory.getLogger(ExecutionLogWriter.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<ExecutionRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final OverflowPolicy overflowPolicy = OverflowPolicy.fromString(System.getProperty(PROPERTY_PREFIX + "overflowPolicy"));
+    private final DatabaseAccessor databaseAccessor;
+    private final ScheduledExecutorService executorService;
+
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sampledOutCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder totalFlushTime = new LongAdder();
+    private final AtomicLong maxFlushTime = new AtomicLong();
+    private volatile long lastFlushTime;
+
+    private volatile ScheduledFuture<?> flushTask;
+
+    ExecutionLogWriter(DatabaseAccessor databaseAccessor, ScheduledExecutorService executorService) {
+        this.databaseAccessor = databaseAccessor;
+        this.executorService = executorService;
+    }
+
+    void start() {
+        flushTask = executorService.scheduleWithFixedDelay(this::flushSafe, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        ScheduledFuture<?> flushTask = this.flushTask;
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+
+        //write everything that is left before executor is shut down
+        executorService.execute(this::flushSafe);
+    }
+
+    void add(Integer scriptId, String inlineId, long time, boolean successful, String error, Map<String, String> params) {
+        if (overflowPolicy == OverflowPolicy.SAMPLE && successful && time < ExecutionRepository.WARNING_THRESHOLD) {
+            if (queue.size() >= SAMPLING_THRESHOLD && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) != 0) {
+                sampledOutCount.increment();
+                return;
+            }
+        }
+
+        ExecutionRecord record = new ExecutionRecord(
+            scriptId, inlineId, time, new Timestamp(System.currentTimeMillis()), successful, error, params
+        );
+
+        if (!queue.offer(record)) {
+            droppedCount.increment();
+            return;
+        }
+
+        if (queue.size() >= BATCH_SIZE && flushScheduled.compareAndSet(false, true)) {
+            executorService.execute(this::flushSafe);
+        }
+    }
+
+    ExecutionLogStatsDto getStats() {
+        return new ExecutionLogStatsDto(
+            overflowPolicy.name(),
+            queue.size(),
+            QUEUE_CAPACITY,
+            writtenCount.sum(),
+            droppedCount.sum(),
+            sampledOutCount.sum(),
+            failedCount.sum(),
+            flushCount.sum(),
+            lastFlushTime,
+            maxFlushTime.get(),
+            totalFlushTime.sum()
+        );
+    }
+
+    private void flushSafe() {
+        flushScheduled.set(false);
+
+        try {
+            List<ExecutionRecord> batch = new ArrayList<>(BATCH_SIZE);
+            while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        } catch (Exception e) {
+            logger.error("unable to flush executions", e);
+        }
+    }
+
+    private void write(List<ExecutionRecord> batch) {
+        long startTime = System.currentTimeMillis();
+
+        try {
+            databaseAccessor.run(connection -> {
+                SQLInsertClause insert = connection.insert(SCRIPT_EXECUTION);
+
+                for (ExecutionRecord record : batch) {
+                    insert
+                        .set(SCRIPT_EXECUTION.SCRIPT_ID, record.scriptId)
+                        .set(SCRIPT_EXECUTION.INLINE_ID, record.inlineId)
+                        .set(SCRIPT_EXECUTION.TIME, record.time)
+                        .set(SCRIPT_EXECUTION.DATE, record.date)
+                        .set(SCRIPT_EXECUTION.SUCCESSFUL, record.successful)
+                        .set(SCRIPT_EXECUTION.ERROR, record.error)
+                        .set(SCRIPT_EXECUTION.EXTRA_PARAMS, serializeParams(record.params))
+                        .addBatch();
+                }
+
+                return insert.execute();
+            }, OnRollback.NOOP);
+
+            writtenCount.add(batch.size());
+        } catch (Exception e) {
+            logger.error("unable to save {} executions", batch.size(), e);
+            failedCount.add(batch.size());
+        } finally {
+            long flushTime = System.currentTimeMillis() - startTime;
+
+            flushCount.increment();
+            totalFlushTime.add(flushTime);
+            maxFlushTime.accumulateAndGet(flushTime, Math::max);
+            lastFlushTime = flushTime;
+        }
+    }
+
+    private String serializeParams(Map<String, String> params) {
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (Exception e) {
+            logger.warn("unable to serialize execution params", e);
+            return "{}";
+        }
+    }
+
+    enum OverflowPolicy {
+        //new executions are discarded when queue is full
+        DROP,
+        //successful executions are sampled when queue is almost full
+        SAMPLE;
+
+        private static OverflowPolicy fromString(String value) {
+            if (value != null) {
+                try {
+                    return OverflowPolicy.valueOf(value.toUpperCase());
+                } catch (IllegalArgumentException ignore) {
+                }
+            }
+            return SAMPLE;
+        }
+    }
+
+    private static final class ExecutionRecord {
+        private final Integer scriptId;
+        private final String inlineId;
+        private final long time;
+        private final Timestamp date;
+        private final boolean successful;
+        private final String error;
+        private final Map<String, String> params;
+
+        private ExecutionRecord(
+            Integer scriptId, String inlineId, long time, Timestamp date, boolean successful, String error, Map<String, String> params
+        ) {
+            this.scriptId = scriptId;
+            this.inlineId = inlineId;
+            this.time = time;
+            this.date = date;
+            this.successful = successful;
+            this.error = error;
+            this.params = params;
+        }
+    }
+}
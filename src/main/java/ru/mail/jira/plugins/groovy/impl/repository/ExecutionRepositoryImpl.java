@@ -1,7 +1,6 @@
 package ru.mail.jira.plugins.groovy.impl.repository;
 
 import com.atlassian.activeobjects.external.ActiveObjects;
-import com.atlassian.adapter.jackson.ObjectMapper;
 import com.atlassian.jira.cluster.ClusterInfo;
 import com.atlassian.jira.datetime.DateTimeFormatter;
 import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
@@ -10,23 +9,27 @@ import com.atlassian.pocketknife.api.querydsl.DatabaseAccessor;
 import com.atlassian.pocketknife.api.querydsl.util.OnRollback;
 import com.atlassian.sal.api.lifecycle.LifecycleAware;
 import com.atlassian.util.concurrent.ThreadFactories;
-import net.java.ao.DBParam;
+import com.querydsl.core.Tuple;
 import net.java.ao.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+import ru.mail.jira.plugins.groovy.api.dto.ExecutionLogStatsDto;
+import ru.mail.jira.plugins.groovy.api.dto.ExecutionStatsDto;
 import ru.mail.jira.plugins.groovy.api.dto.ScriptExecutionDto;
 import ru.mail.jira.plugins.groovy.api.entity.ScriptExecution;
+import ru.mail.jira.plugins.groovy.impl.execution.ExecutionStatsService;
+import ru.mail.jira.plugins.groovy.impl.execution.ExecutionStatsService.StatsWindow;
 
 import java.sql.Timestamp;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static ru.mail.jira.plugins.groovy.util.QueryDslTables.REGISTRY_SCRIPT;
 import static ru.mail.jira.plugins.groovy.util.QueryDslTables.SCRIPT_EXECUTION;
@@ -39,113 +42,85 @@ public class ExecutionRepositoryImpl implements ExecutionRepository, LifecycleAw
     private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(
         ThreadFactories.namedThreadFactory("MAILRU_GROOVY_BG_THREAD")
     );
-    private final ObjectMapper objectMapper = new ObjectMapper();
     private final ActiveObjects ao;
     private final ClusterInfo clusterInfo;
     private final DateTimeFormatter dateTimeFormatter;
     private final DatabaseAccessor databaseAccessor;
+    private final ExecutionLogWriter logWriter;
+    private final ExecutionStatsService statsService;
 
     @Autowired
     public ExecutionRepositoryImpl(
         @ComponentImport ActiveObjects ao,
         @ComponentImport ClusterInfo clusterInfo,
         @ComponentImport DateTimeFormatter dateTimeFormatter,
-        DatabaseAccessor databaseAccessor
+        DatabaseAccessor databaseAccessor,
+        ExecutionStatsService statsService
     ) {
         this.ao = ao;
         this.clusterInfo = clusterInfo;
         this.dateTimeFormatter = dateTimeFormatter;
         this.databaseAccessor = databaseAccessor;
+        this.logWriter = new ExecutionLogWriter(databaseAccessor, executorService);
+        this.statsService = statsService;
     }
 
     @Override
     public void trackFromRegistry(int id, long time, boolean successful, String error, Map<String, String> additionalParams) {
-        executorService.execute(() -> {
-            try {
-                this.saveExecution(id, time, successful, error, objectMapper.writeValueAsString(getParams(additionalParams)));
-            } catch (Exception e) {
-                logger.error("unable to save execution", e);
-            }
-        });
+        statsService.record(id, null, time, successful);
+        logWriter.add(id, null, time, successful, error, getParams(additionalParams));
     }
 
     @Override
     public void trackInline(String id, long time, boolean successful, String error, Map<String, String> additionalParams) {
-        executorService.execute(() -> {
-            try {
-                this.saveExecution(id, time, successful, error, objectMapper.writeValueAsString(getParams(additionalParams)));
-            } catch (Exception e) {
-                logger.error("unable to save execution", e);
-            }
-        });
+        statsService.record(null, id, time, successful);
+        logWriter.add(null, id, time, successful, error, getParams(additionalParams));
     }
 
     @Override
     public Map<Integer, Long> getRegistryErrorCount() {
-        return databaseAccessor.run(connection ->
-                Stream.concat(
-                    connection
-                        .select(SCRIPT_EXECUTION.SCRIPT_ID, SCRIPT_EXECUTION.ID.count())
-                        .from(SCRIPT_EXECUTION)
-                        .where(
-                            SCRIPT_EXECUTION.SCRIPT_ID.isNotNull(),
-                            SCRIPT_EXECUTION.SUCCESSFUL.isFalse()
-                        )
-                        .groupBy(SCRIPT_EXECUTION.SCRIPT_ID)
-                        .fetch()
-                        .stream(),
-                    connection
-                        .select(REGISTRY_SCRIPT.ID, SCRIPT_EXECUTION.ID.count())
-                        .from(SCRIPT_EXECUTION)
-                        .join(REGISTRY_SCRIPT).on(SCRIPT_EXECUTION.INLINE_ID.eq(REGISTRY_SCRIPT.UUID))
-                        .where(SCRIPT_EXECUTION.SUCCESSFUL.isFalse())
-                        .groupBy(REGISTRY_SCRIPT.ID)
-                        .fetch()
-                        .stream()
-                )
-                .collect(Collectors.toMap(
-                    tuple -> tuple.get(0, Integer.class),
-                    tuple -> tuple.get(1, Long.class),
-                    (a, b) -> a + b
-                )),
-            OnRollback.NOOP
-        );
+        return getRegistryCount(ExecutionStatsDto::getErrorCount);
     }
 
     @Override
     public Map<Integer, Long> getRegistryWarningCount() {
-        return databaseAccessor.run(connection ->
-            Stream.concat(
-                connection
-                    .select(SCRIPT_EXECUTION.SCRIPT_ID, SCRIPT_EXECUTION.ID.count())
-                    .from(SCRIPT_EXECUTION)
-                    .where(
-                        SCRIPT_EXECUTION.SCRIPT_ID.isNotNull(),
-                        SCRIPT_EXECUTION.SUCCESSFUL.isTrue(),
-                        SCRIPT_EXECUTION.TIME.goe(WARNING_THRESHOLD)
-                    )
-                    .groupBy(SCRIPT_EXECUTION.SCRIPT_ID)
-                    .fetch()
-                    .stream(),
-                connection
-                    .select(REGISTRY_SCRIPT.ID, SCRIPT_EXECUTION.ID.count())
-                    .from(SCRIPT_EXECUTION)
-                    .join(REGISTRY_SCRIPT).on(SCRIPT_EXECUTION.INLINE_ID.eq(REGISTRY_SCRIPT.UUID))
-                    .where(
-                        SCRIPT_EXECUTION.SUCCESSFUL.isTrue(),
-                        SCRIPT_EXECUTION.TIME.goe(WARNING_THRESHOLD)
-                    )
-                    .groupBy(REGISTRY_SCRIPT.ID)
-                    .fetch()
-                    .stream()
-                )
-                .collect(Collectors.toMap(
-                    tuple -> tuple.get(0, Integer.class),
-                    tuple -> tuple.get(1, Long.class),
-                    (a, b) -> a + b
-                )),
-            OnRollback.NOOP
-        );
+        return getRegistryCount(ExecutionStatsDto::getWarningCount);
+    }
+
+    private Map<Integer, Long> getRegistryCount(ToLongFunction<ExecutionStatsDto> countFunction) {
+        Map<Integer, Long> result = new HashMap<>();
+
+        statsService
+            .getAllRegistryStats(StatsWindow.ALL)
+            .forEach((id, stats) -> addCount(result, id, countFunction.applyAsLong(stats)));
+
+        //registry scripts can also be tracked by uuid
+        Map<String, ExecutionStatsDto> inlineStats = statsService.getAllInlineStats(StatsWindow.ALL);
+        if (!inlineStats.isEmpty()) {
+            List<Tuple> scripts = databaseAccessor.run(connection ->
+                    connection
+                        .select(REGISTRY_SCRIPT.ID, REGISTRY_SCRIPT.UUID)
+                        .from(REGISTRY_SCRIPT)
+                        .fetch(),
+                OnRollback.NOOP
+            );
+
+            for (Tuple script : scripts) {
+                ExecutionStatsDto stats = inlineStats.get(script.get(REGISTRY_SCRIPT.UUID));
+                if (stats != null) {
+                    addCount(result, script.get(REGISTRY_SCRIPT.ID), countFunction.applyAsLong(stats));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static void addCount(Map<Integer, Long> counts, Integer id, long count) {
+        //scripts without errors or warnings are not included, same as with GROUP BY queries
+        if (count > 0) {
+            counts.merge(id, count, Long::sum);
+        }
     }
 
     @Override
@@ -212,48 +187,34 @@ public class ExecutionRepositoryImpl implements ExecutionRepository, LifecycleAw
         return result;
     }
 
-    private void saveExecution(int id, long time, boolean successful, String error, String additionalParams) {
-        ao.create(
-            ScriptExecution.class,
-            new DBParam("SCRIPT_ID", id),
-            new DBParam("TIME", time),
-            new DBParam("DATE", new Timestamp(System.currentTimeMillis())),
-            new DBParam("SUCCESSFUL", successful),
-            new DBParam("ERROR", error),
-            new DBParam("EXTRA_PARAMS", additionalParams)
-        );
-    }
-
-    private void saveExecution(String id, long time, boolean successful, String error, String additionalParams) {
-        ao.create(
-            ScriptExecution.class,
-            new DBParam("INLINE_ID", id),
-            new DBParam("TIME", time),
-            new DBParam("DATE", new Timestamp(System.currentTimeMillis())),
-            new DBParam("SUCCESSFUL", successful),
-            new DBParam("ERROR", error),
-            new DBParam("EXTRA_PARAMS", additionalParams)
-        );
-    }
-
     @Override
     public int getErrorCount(int id) {
-        return ao.count(ScriptExecution.class, Query.select().where("SCRIPT_ID = ? AND SUCCESSFUL = ?", id, Boolean.FALSE));
+        return (int) statsService.getRegistryStats(id, StatsWindow.ALL).getErrorCount();
     }
 
     @Override
     public int getErrorCount(String id) {
-        return ao.count(ScriptExecution.class, Query.select().where("INLINE_ID = ? AND SUCCESSFUL = ?", id, Boolean.FALSE));
+        return (int) statsService.getInlineStats(id, StatsWindow.ALL).getErrorCount();
     }
 
     @Override
     public int getWarningCount(int id) {
-        return ao.count(ScriptExecution.class, Query.select().where("SCRIPT_ID = ? AND TIME >= ?", id, WARNING_THRESHOLD));
+        return (int) statsService.getRegistryStats(id, StatsWindow.ALL).getWarningCount();
     }
 
     @Override
     public int getWarningCount(String id) {
-        return ao.count(ScriptExecution.class, Query.select().where("INLINE_ID = ? AND TIME >= ?", id, WARNING_THRESHOLD));
+        return (int) statsService.getInlineStats(id, StatsWindow.ALL).getWarningCount();
+    }
+
+    @Override
+    public Map<String, ExecutionStatsDto> getRegistryStats(int id) {
+        return statsService.getRegistryStats(id);
+    }
+
+    @Override
+    public Map<String, ExecutionStatsDto> getInlineStats(String id) {
+        return statsService.getInlineStats(id);
     }
 
     @Override
@@ -274,13 +235,22 @@ public class ExecutionRepositoryImpl implements ExecutionRepository, LifecycleAw
                 .execute(),
             OnRollback.NOOP
         );
+        statsService.resetRegistry(scriptId, until);
     }
 
     @Override
-    public void onStart() {}
+    public ExecutionLogStatsDto getLogStats() {
+        return logWriter.getStats();
+    }
+
+    @Override
+    public void onStart() {
+        logWriter.start();
+    }
 
     @Override
     public void onStop() {
+        logWriter.stop();
         executorService.shutdown();
     }
 }
@@ -163,7 +163,9 @@ public class FieldConfigRepositoryImpl implements FieldConfigRepository {
                 new DBParam("SCRIPT_BODY", form.getScriptBody()),
                 new DBParam("CACHEABLE", form.isCacheable()),
                 new DBParam("TEMPLATE", form.getTemplate()),
-                new DBParam("VELOCITY_PARAMS_ENABLED", form.isVelocityParamsEnabled())
+                new DBParam("VELOCITY_PARAMS_ENABLED", form.isVelocityParamsEnabled()),
+                new DBParam("CACHE_MAX_ENTRIES", form.getCacheMaxEntries()),
+                new DBParam("CACHE_TTL", form.getCacheTtl())
             );
 
             diff = changelogHelper.generateDiff(configId, "", "field", "", form.getScriptBody());
@@ -201,6 +203,8 @@ public class FieldConfigRepositoryImpl implements FieldConfigRepository {
             fieldConfig.setUuid(UUID.randomUUID().toString());
             fieldConfig.setTemplate(form.getTemplate());
             fieldConfig.setVelocityParamsEnabled(form.isVelocityParamsEnabled());
+            fieldConfig.setCacheMaxEntries(form.getCacheMaxEntries());
+            fieldConfig.setCacheTtl(form.getCacheTtl());
             fieldConfig.save();
 
             action = EntityAction.UPDATED;
@@ -242,7 +246,9 @@ public class FieldConfigRepositoryImpl implements FieldConfigRepository {
             fieldConfig.getScriptBody(),
             fieldConfig.getTemplate(),
             fieldConfig.getCacheable(),
-            fieldConfig.isVelocityParamsEnabled()
+            fieldConfig.isVelocityParamsEnabled(),
+            fieldConfig.getCacheMaxEntries(),
+            fieldConfig.getCacheTtl()
         );
     }
 
@@ -296,6 +302,14 @@ public class FieldConfigRepositoryImpl implements FieldConfigRepository {
             }
         }
 
+        if (form.getCacheMaxEntries() != null && form.getCacheMaxEntries() <= 0) {
+            throw new RestFieldException(i18nHelper.getText("ru.mail.jira.plugins.groovy.error.invalidValue"), "cacheMaxEntries");
+        }
+
+        if (form.getCacheTtl() != null && form.getCacheTtl() <= 0) {
+            throw new RestFieldException(i18nHelper.getText("ru.mail.jira.plugins.groovy.error.invalidValue"), "cacheTtl");
+        }
+
         if (template) {
             if (StringUtils.isEmpty(form.getTemplate())) {
                 throw new RestFieldException(i18nHelper.getText("ru.mail.jira.plugins.groovy.error.fieldRequired"), "template");
@@ -341,6 +355,8 @@ public class FieldConfigRepositoryImpl implements FieldConfigRepository {
         } else {
             result.setCacheable(fieldConfig.getCacheable());
             result.setVelocityParamsEnabled(fieldConfig.isVelocityParamsEnabled());
+            result.setCacheMaxEntries(fieldConfig.getCacheMaxEntries());
+            result.setCacheTtl(fieldConfig.getCacheTtl());
             result.setScriptBody(fieldConfig.getScriptBody());
             result.setUuid(fieldConfig.getUuid());
 
@@ -15,6 +15,8 @@ public class QScriptExecution extends EnhancedRelationalPathBase<QScriptExecutio
     public final BooleanPath SUCCESSFUL = createBooleanCol("SUCCESSFUL").notNull().build();
     public final DateTimePath<Timestamp> DATE = createDateTimeCol("DATE", Timestamp.class).notNull().build();
     public final NumberPath<Long> TIME = createLongCol("TIME").notNull().build();
+    public final StringPath ERROR = createStringCol("ERROR").build();
+    public final StringPath EXTRA_PARAMS = createStringCol("EXTRA_PARAMS").notNull().build();
 
     public QScriptExecution() {
         super(QScriptExecution.class, "AO_2FC5DA_SCRIPT_EXECUTION");
@@ -36,6 +36,7 @@ import ru.mail.jira.plugins.groovy.api.dto.scheduled.ScheduledTaskDto;
 import ru.mail.jira.plugins.groovy.api.script.ScriptType;
 import ru.mail.jira.plugins.groovy.api.service.ScheduledTaskService;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.groovy.statik.TypeUtil;
 import ru.mail.jira.plugins.groovy.util.Const;
 import ru.mail.jira.plugins.groovy.util.ExceptionHelper;
 
@@ -287,7 +288,7 @@ public class ScheduledTaskServiceImpl implements ScheduledTaskService {
         return TaskResult.fromJobRunnerResponse(jobRunnerResponse, System.currentTimeMillis() - t);
     }
 
-    private Exception runScript(ScheduledTaskDto taskInfo, Map<String, Object> bindings, boolean trackAll) {
+    private Exception runScript(ScheduledTaskDto taskInfo, Map<String, Object> bindings, Map<String, Class> types, boolean trackAll) {
         String uuid = taskInfo.getUuid();
         long t = System.currentTimeMillis();
         boolean successful = true;
@@ -299,7 +300,8 @@ public class ScheduledTaskServiceImpl implements ScheduledTaskService {
                 taskInfo.getUuid(),
                 taskInfo.getScriptBody(),
                 ScriptType.SCHEDULED_TASK,
-                bindings
+                bindings,
+                types
             );
         } catch (Exception e) {
             exception = e;
@@ -433,7 +435,7 @@ public class ScheduledTaskServiceImpl implements ScheduledTaskService {
                                 issueBinding = issueManager.getIssueObject(issue.getId());
                             }
 
-                            Exception error = runScript(task, ImmutableMap.of("issue", issueBinding), false);
+                            Exception error = runScript(task, ImmutableMap.of("issue", issueBinding), TypeUtil.getScheduledTypes(type), false);
 
                             if (error != null) {
                                 errors++;
@@ -455,7 +457,7 @@ public class ScheduledTaskServiceImpl implements ScheduledTaskService {
                     return JobRunnerResponse.failed(e);
                 }
             } else {
-                Exception exception = runScript(task, ImmutableMap.of(), true);
+                Exception exception = runScript(task, ImmutableMap.of(), TypeUtil.getScheduledTypes(type), true);
 
                 if (exception != null) {
                     return JobRunnerResponse.failed(exception);
@@ -17,6 +17,7 @@ import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.api.dto.directory.RegistryScriptDto;
 import ru.mail.jira.plugins.groovy.api.dto.ScriptParamDto;
 import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.impl.groovy.statik.TypeUtil;
 import ru.mail.jira.plugins.groovy.impl.param.ScriptParamFactory;
 import ru.mail.jira.plugins.groovy.util.Base64Util;
 import ru.mail.jira.plugins.groovy.util.Const;
@@ -150,7 +151,8 @@ public class WorkflowHelper {
                 id,
                 script.getScriptBody(),
                 type,
-                bindings
+                bindings,
+                TypeUtil.getWorkflowTypes()
             );
         } catch (WorkflowException e) {
             rethrow = e;
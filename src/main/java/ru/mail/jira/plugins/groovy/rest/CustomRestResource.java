@@ -15,6 +15,7 @@ import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.api.dto.rest.HttpMethod;
 import ru.mail.jira.plugins.groovy.api.dto.rest.Script;
 import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.impl.groovy.statik.TypeUtil;
 import ru.mail.jira.plugins.groovy.util.ExceptionHelper;
 
 import javax.ws.rs.*;
@@ -127,7 +128,8 @@ public class CustomRestResource {
                 script.getId(),
                 script.getScript(),
                 ScriptType.REST,
-                bindings
+                bindings,
+                TypeUtil.getRestTypes()
             );
         } catch (Exception e) {
             successful = false;
@@ -45,6 +45,16 @@ public class ExecutionResource {
         }).getResponse();
     }
 
+    @GET
+    @Path("/forRegistry/{scriptId}/stats")
+    public Response getStats(@PathParam("scriptId") int scriptId) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return executionRepository.getRegistryStats(scriptId);
+        }).getResponse();
+    }
+
     @GET
     @Path("/forInline/{scriptId}")
     public Response getExecutions(@PathParam("scriptId") String scriptId) {
@@ -64,4 +74,14 @@ public class ExecutionResource {
             return executionRepository.getLastInlineExecutions(scriptId);
         }).getResponse();
     }
+
+    @GET
+    @Path("/forInline/{scriptId}/stats")
+    public Response getStats(@PathParam("scriptId") String scriptId) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return executionRepository.getInlineStats(scriptId);
+        }).getResponse();
+    }
 }
@@ -3,11 +3,14 @@ package ru.mail.jira.plugins.groovy.rest;
 import com.atlassian.plugin.spring.scanner.annotation.component.Scanned;
 import com.atlassian.sal.api.websudo.WebSudoRequired;
 import ru.mail.jira.plugins.groovy.api.repository.EventListenerRepository;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
 import ru.mail.jira.plugins.groovy.api.repository.FieldConfigRepository;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.impl.PermissionHelper;
 import ru.mail.jira.plugins.groovy.impl.ScriptInvalidationService;
+import ru.mail.jira.plugins.groovy.impl.ScriptWarmUpService;
 import ru.mail.jira.plugins.groovy.impl.cf.FieldValueExtractor;
+import ru.mail.jira.plugins.groovy.impl.execution.ScriptResourceTracker;
 import ru.mail.jira.plugins.groovy.util.RestExecutor;
 
 import javax.ws.rs.*;
@@ -25,6 +28,9 @@ public class ExtrasResource {
     private final FieldValueExtractor fieldValueExtractor;
     private final FieldConfigRepository fieldConfigRepository;
     private final ScriptService scriptService;
+    private final ScriptWarmUpService scriptWarmUpService;
+    private final ExecutionRepository executionRepository;
+    private final ScriptResourceTracker resourceTracker;
 
     public ExtrasResource(
         PermissionHelper permissionHelper,
@@ -32,7 +38,10 @@ public class ExtrasResource {
         EventListenerRepository listenerRepository,
         FieldValueExtractor fieldValueExtractor,
         FieldConfigRepository fieldConfigRepository,
-        ScriptService scriptService
+        ScriptService scriptService,
+        ScriptWarmUpService scriptWarmUpService,
+        ExecutionRepository executionRepository,
+        ScriptResourceTracker resourceTracker
     ) {
         this.permissionHelper = permissionHelper;
         this.scriptInvalidationService = scriptInvalidationService;
@@ -40,6 +49,9 @@ public class ExtrasResource {
         this.fieldValueExtractor = fieldValueExtractor;
         this.fieldConfigRepository = fieldConfigRepository;
         this.scriptService = scriptService;
+        this.scriptWarmUpService = scriptWarmUpService;
+        this.executionRepository = executionRepository;
+        this.resourceTracker = resourceTracker;
     }
 
     @POST
@@ -70,4 +82,66 @@ public class ExtrasResource {
             return scriptService.getCacheStats();
         }).getResponse();
     }
+
+    @GET
+    @Path("/executionLogStats")
+    @WebSudoRequired
+    public Response getExecutionLogStats() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return executionRepository.getLogStats();
+        }).getResponse();
+    }
+
+    @GET
+    @Path("/resourceStats")
+    @WebSudoRequired
+    public Response getResourceStats(
+        @QueryParam("orderBy") @DefaultValue("CPU") ScriptResourceTracker.ResourceOrder orderBy,
+        @QueryParam("limit") @DefaultValue("50") int limit
+    ) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return resourceTracker.getTopScripts(orderBy, limit);
+        }).getResponse();
+    }
+
+    @DELETE
+    @Path("/resourceStats")
+    @WebSudoRequired
+    public Response resetResourceStats() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            resourceTracker.reset();
+
+            return null;
+        }).getResponse();
+    }
+
+    @GET
+    @Path("/warmUp")
+    @WebSudoRequired
+    public Response getWarmUpStatus() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return scriptWarmUpService.getStatus();
+        }).getResponse();
+    }
+
+    @POST
+    @Path("/warmUp")
+    @WebSudoRequired
+    public Response startWarmUp() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            scriptWarmUpService.onStart();
+
+            return scriptWarmUpService.getStatus();
+        }).getResponse();
+    }
 }
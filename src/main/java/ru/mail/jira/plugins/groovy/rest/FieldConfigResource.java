@@ -10,6 +10,9 @@ import ru.mail.jira.plugins.groovy.api.repository.FieldConfigRepository;
 import ru.mail.jira.plugins.groovy.api.dto.cf.FieldConfigForm;
 import ru.mail.jira.plugins.groovy.impl.PermissionHelper;
 import ru.mail.jira.plugins.groovy.impl.cf.FieldPreviewService;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldReindexContext;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldTemplateService;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldValueCache;
 import ru.mail.jira.plugins.groovy.util.ExceptionHelper;
 import ru.mail.jira.plugins.groovy.util.RestExecutor;
 
@@ -27,17 +30,26 @@ public class FieldConfigResource {
     private final PermissionHelper permissionHelper;
     private final FieldConfigRepository fieldConfigRepository;
     private final FieldPreviewService fieldPreviewService;
+    private final FieldValueCache fieldValueCache;
+    private final FieldTemplateService fieldTemplateService;
+    private final FieldReindexContext fieldReindexContext;
 
     public FieldConfigResource(
         @ComponentImport JiraAuthenticationContext authenticationContext,
         PermissionHelper permissionHelper,
         FieldConfigRepository fieldConfigRepository,
-        FieldPreviewService fieldPreviewService
+        FieldPreviewService fieldPreviewService,
+        FieldValueCache fieldValueCache,
+        FieldTemplateService fieldTemplateService,
+        FieldReindexContext fieldReindexContext
     ) {
         this.authenticationContext = authenticationContext;
         this.permissionHelper = permissionHelper;
         this.fieldConfigRepository = fieldConfigRepository;
         this.fieldPreviewService = fieldPreviewService;
+        this.fieldValueCache = fieldValueCache;
+        this.fieldTemplateService = fieldTemplateService;
+        this.fieldReindexContext = fieldReindexContext;
     }
 
     @Path("/all")
@@ -50,6 +62,36 @@ public class FieldConfigResource {
         }).getResponse();
     }
 
+    @Path("/cacheStats")
+    @GET
+    public Response getCacheStats() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return fieldValueCache.getStats();
+        }).getResponse();
+    }
+
+    @Path("/templateStats")
+    @GET
+    public Response getTemplateStats() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return fieldTemplateService.getStats();
+        }).getResponse();
+    }
+
+    @Path("/reindexStats")
+    @GET
+    public Response getReindexStats() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return fieldReindexContext.getStats();
+        }).getResponse();
+    }
+
     @Path("/{id}")
     @GET
     public Response getFieldConfig(@PathParam("id") long id) {
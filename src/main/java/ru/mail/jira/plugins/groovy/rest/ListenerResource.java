@@ -8,6 +8,7 @@ import org.codehaus.groovy.control.MultipleCompilationErrorsException;
 import ru.mail.jira.plugins.groovy.api.repository.EventListenerRepository;
 import ru.mail.jira.plugins.groovy.api.dto.listener.EventListenerForm;
 import ru.mail.jira.plugins.groovy.impl.PermissionHelper;
+import ru.mail.jira.plugins.groovy.impl.listener.AsyncListenerExecutor;
 import ru.mail.jira.plugins.groovy.util.ExceptionHelper;
 import ru.mail.jira.plugins.groovy.util.RestExecutor;
 
@@ -23,15 +24,18 @@ public class ListenerResource {
     private final JiraAuthenticationContext authenticationContext;
     private final EventListenerRepository listenerRepository;
     private final PermissionHelper permissionHelper;
+    private final AsyncListenerExecutor asyncListenerExecutor;
 
     public ListenerResource(
         @ComponentImport JiraAuthenticationContext authenticationContext,
         EventListenerRepository listenerRepository,
-        PermissionHelper permissionHelper
+        PermissionHelper permissionHelper,
+        AsyncListenerExecutor asyncListenerExecutor
     ) {
         this.authenticationContext = authenticationContext;
         this.listenerRepository = listenerRepository;
         this.permissionHelper = permissionHelper;
+        this.asyncListenerExecutor = asyncListenerExecutor;
     }
 
     @GET
@@ -45,6 +49,17 @@ public class ListenerResource {
         }).getResponse();
     }
 
+    @GET
+    @Path("/asyncStats")
+    @WebSudoRequired
+    public Response getAsyncStats() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return asyncListenerExecutor.getStats();
+        }).getResponse();
+    }
+
     @GET
     @Path("/{id}")
     @WebSudoRequired
@@ -0,0 +1,105 @@
+package ru.mail.jira.plugins.groovy.rest;
+
+import com.atlassian.plugin.spring.scanner.annotation.component.Scanned;
+import com.atlassian.sal.api.websudo.WebSudoRequired;
+import ru.mail.jira.plugins.groovy.api.dto.ScriptProfileDto;
+import ru.mail.jira.plugins.groovy.impl.PermissionHelper;
+import ru.mail.jira.plugins.groovy.impl.execution.ScriptProfiler;
+import ru.mail.jira.plugins.groovy.util.RestExecutor;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+@Scanned
+@Path("/profiler")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@WebSudoRequired
+public class ProfilerResource {
+    private final PermissionHelper permissionHelper;
+    private final ScriptProfiler scriptProfiler;
+
+    public ProfilerResource(
+        PermissionHelper permissionHelper,
+        ScriptProfiler scriptProfiler
+    ) {
+        this.permissionHelper = permissionHelper;
+        this.scriptProfiler = scriptProfiler;
+    }
+
+    @GET
+    @Path("/all")
+    public Response getProfiles() {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            return scriptProfiler.getProfiles();
+        }).getResponse();
+    }
+
+    @GET
+    @Path("/{scriptId}")
+    public Response getProfile(@PathParam("scriptId") String scriptId) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            ScriptProfileDto profile = scriptProfiler.getProfile(scriptId);
+            if (profile == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return profile;
+        }).getResponse();
+    }
+
+    @GET
+    @Path("/{scriptId}/collapsed")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getCollapsedStacks(@PathParam("scriptId") String scriptId) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            String stacks = scriptProfiler.getCollapsedStacks(scriptId);
+            if (stacks == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return Response.ok(stacks, MediaType.TEXT_PLAIN_TYPE).build();
+        }).getResponse();
+    }
+
+    @POST
+    @Path("/{scriptId}")
+    public Response startProfiling(@PathParam("scriptId") String scriptId) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            scriptProfiler.start(scriptId);
+
+            return scriptProfiler.getProfile(scriptId);
+        }).getResponse();
+    }
+
+    @POST
+    @Path("/{scriptId}/stop")
+    public Response stopProfiling(@PathParam("scriptId") String scriptId) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            scriptProfiler.stop(scriptId);
+
+            return scriptProfiler.getProfile(scriptId);
+        }).getResponse();
+    }
+
+    @DELETE
+    @Path("/{scriptId}")
+    public Response deleteProfile(@PathParam("scriptId") String scriptId) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            scriptProfiler.remove(scriptId);
+
+            return null;
+        }).getResponse();
+    }
+}
@@ -8,11 +8,13 @@ import org.codehaus.groovy.runtime.InvokerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.mail.jira.plugins.groovy.api.dto.StaticCheckForm;
+import ru.mail.jira.plugins.groovy.api.dto.StaticQualificationDto;
 import ru.mail.jira.plugins.groovy.api.dto.error.PositionedCompilationMessage;
 import ru.mail.jira.plugins.groovy.api.jql.ScriptedJqlFunction;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
 import ru.mail.jira.plugins.groovy.impl.PermissionHelper;
 import ru.mail.jira.plugins.groovy.api.script.ParseContext;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
 import ru.mail.jira.plugins.groovy.impl.groovy.statik.TypeUtil;
 import ru.mail.jira.plugins.groovy.util.DelegatingClassLoader;
 import ru.mail.jira.plugins.groovy.util.ExceptionHelper;
@@ -21,6 +23,7 @@ import ru.mail.jira.plugins.groovy.util.RestExecutor;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.Response;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -48,96 +51,33 @@ public class StaticCheckResource {
         return new RestExecutor<>(() -> {
             permissionHelper.checkIfAdmin();
 
-            Map<String, String> additionalParams = form.getAdditionalParams();
-
-            ParseContext parseContext = null;
-
-            switch (form.getScriptType()) {
-                case ADMIN_SCRIPT:
-                    parseContext = scriptService.parseScriptStatic(form.getScriptBody(), TypeUtil.getAdminTypes());
-                    break;
-                case CONSOLE:
-                    parseContext = scriptService.parseScriptStatic(form.getScriptBody(), TypeUtil.getConsoleTypes());
-                    break;
-                case WORKFLOW_GENERIC:
-                    parseContext = scriptService.parseScriptStatic(form.getScriptBody(), TypeUtil.getWorkflowTypes());
-                    break;
-                case REST:
-                    parseContext = scriptService.parseScriptStatic(form.getScriptBody(), TypeUtil.getRestTypes());
-                    break;
-                case CUSTOM_FIELD:
-                    boolean velocityParamsEnabled = false;
-
-                    if (additionalParams != null && additionalParams.containsKey("velocityParamsEnabled")) {
-                        velocityParamsEnabled = "true".equals(additionalParams.get("velocityParamsEnabled"));
-                    }
-
-                    parseContext = scriptService.parseScriptStatic(form.getScriptBody(), TypeUtil.getFieldTypes(velocityParamsEnabled));
-                    break;
-                case SCHEDULED_TASK:
-                    boolean isMutableIssue = false;
-                    boolean withIssue = false;
-
-                    if (additionalParams != null)
-                        if (additionalParams.containsKey("withIssue")) {
-                            withIssue = "true".equals(additionalParams.get("withIssue"));
-                        }
-                        if (additionalParams.containsKey("isMutableIssue")) {
-                            isMutableIssue = "true".equals(additionalParams.get("isMutableIssue"));
-                        }
-
-                    parseContext = scriptService.parseScriptStatic(form.getScriptBody(), TypeUtil.getScheduledTypes(withIssue, isMutableIssue));
-                    break;
-                case JQL:
-                    Class<?> functionClass = scriptService.parseClassStatic(form.getScriptBody(), false, ImmutableMap.of());
-                    InvokerHelper.removeClass(functionClass);
-                    if (!ScriptedJqlFunction.class.isAssignableFrom(functionClass)) {
-                        return Response
-                            .status(400)
-                            .entity(ImmutableMap.of(
-                                "error", ImmutableList.of(
-                                    ImmutableMap.of(
-                                        "message", "Must implement ru.mail.jira.plugins.groovy.api.jql.ScriptedJqlFunction"
-                                    )
+            if (form.getScriptType() == ScriptType.JQL) {
+                Class<?> functionClass = scriptService.parseClassStatic(form.getScriptBody(), false, ImmutableMap.of());
+                InvokerHelper.removeClass(functionClass);
+                if (!ScriptedJqlFunction.class.isAssignableFrom(functionClass)) {
+                    return Response
+                        .status(400)
+                        .entity(ImmutableMap.of(
+                            "error", ImmutableList.of(
+                                ImmutableMap.of(
+                                    "message", "Must implement ru.mail.jira.plugins.groovy.api.jql.ScriptedJqlFunction"
                                 )
-                            ))
-                            .build();
-                    }
-                    break;
-                case LISTENER:
-                    Map<String, Class> types = ImmutableMap.of();
-
-                    if (additionalParams.containsKey("className")) {
-                        String className = additionalParams.get("className");
-
-                        Class type;
-                        try {
-                            type = classLoader.loadClass(className);
-                        } catch (ClassNotFoundException e) {
-                            PositionedCompilationMessage error = new PositionedCompilationMessage();
-                            error.setStartLine(0);
-                            error.setEndLine(0);
-                            error.setStartColumn(0);
-                            error.setEndColumn(0);
-                            error.setMessage("Can't load class \"" + className + "\"");
-                            error.setType("error");
-
-                            return ImmutableList.of(error);
-                        }
-
-                        if (type != null) {
-                            types = ImmutableMap.of(
-                                "event", type
-                            );
-                        }
-                    }
-
-                    parseContext = scriptService.parseScriptStatic(form.getScriptBody(), types);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported script type");
+                            )
+                        ))
+                        .build();
+                }
+                return ImmutableList.of();
+            }
+
+            Map<String, Class> types;
+            try {
+                types = getTypes(form);
+            } catch (ClassNotFoundException e) {
+                return ImmutableList.of(buildClassNotFoundError(e));
             }
 
+            ParseContext parseContext = scriptService.parseScriptStatic(form.getScriptBody(), types);
+
             if (parseContext != null) {
                 if (parseContext.getWarnings() == null) {
                     logger.error("warnings is null");
@@ -155,4 +95,86 @@ public class StaticCheckResource {
             .withExceptionMapper(MultipleCompilationErrorsException.class, Response.Status.BAD_REQUEST, e -> ExceptionHelper.mapCompilationException("scriptBody", e))
             .getResponse();
     }
+
+    //checks if script can be executed in static mode with binding types of its script type
+    @POST
+    @Path("/qualification")
+    public Response checkQualification(StaticCheckForm form) {
+        return new RestExecutor<>(() -> {
+            permissionHelper.checkIfAdmin();
+
+            if (form.getScriptType() == ScriptType.JQL) {
+                throw new IllegalArgumentException("JQL functions don't have static mode");
+            }
+
+            Map<String, Class> types;
+            try {
+                types = getTypes(form);
+            } catch (ClassNotFoundException e) {
+                return new StaticQualificationDto(false, ImmutableList.of(buildClassNotFoundError(e)));
+            }
+
+            Class<?> scriptClass;
+            try {
+                scriptClass = scriptService.parseClassStatic(form.getScriptBody(), false, types);
+            } catch (MultipleCompilationErrorsException e) {
+                List<Object> errors = e
+                    .getErrorCollector()
+                    .getErrors()
+                    .stream()
+                    .map(msg -> ExceptionHelper.mapCompilationMessage("error", msg))
+                    .collect(Collectors.toList());
+                return new StaticQualificationDto(false, errors);
+            }
+            InvokerHelper.removeClass(scriptClass);
+
+            return new StaticQualificationDto(true, ImmutableList.of());
+        }).getResponse();
+    }
+
+    private Map<String, Class> getTypes(StaticCheckForm form) throws ClassNotFoundException {
+        Map<String, String> additionalParams = form.getAdditionalParams();
+        if (additionalParams == null) {
+            additionalParams = ImmutableMap.of();
+        }
+
+        switch (form.getScriptType()) {
+            case ADMIN_SCRIPT:
+                return TypeUtil.getAdminTypes();
+            case CONSOLE:
+                return TypeUtil.getConsoleTypes();
+            case WORKFLOW_GENERIC:
+                return TypeUtil.getWorkflowTypes();
+            case REST:
+                return TypeUtil.getRestTypes();
+            case CUSTOM_FIELD:
+                boolean velocityParamsEnabled = "true".equals(additionalParams.get("velocityParamsEnabled"));
+
+                return TypeUtil.getFieldTypes(velocityParamsEnabled);
+            case SCHEDULED_TASK:
+                boolean withIssue = "true".equals(additionalParams.get("withIssue"));
+                boolean isMutableIssue = "true".equals(additionalParams.get("isMutableIssue"));
+
+                return TypeUtil.getScheduledTypes(withIssue, isMutableIssue);
+            case LISTENER:
+                if (additionalParams.containsKey("className")) {
+                    return TypeUtil.getListenerTypes(classLoader.loadClass(additionalParams.get("className")));
+                }
+
+                return ImmutableMap.of();
+            default:
+                throw new IllegalArgumentException("Unsupported script type");
+        }
+    }
+
+    private static PositionedCompilationMessage buildClassNotFoundError(ClassNotFoundException e) {
+        PositionedCompilationMessage error = new PositionedCompilationMessage();
+        error.setStartLine(0);
+        error.setEndLine(0);
+        error.setStartColumn(0);
+        error.setEndColumn(0);
+        error.setMessage("Can't load class \"" + e.getMessage() + "\"");
+        error.setType("error");
+        return error;
+    }
 }
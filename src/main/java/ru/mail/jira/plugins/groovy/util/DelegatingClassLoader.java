@@ -3,77 +3,143 @@ package ru.mail.jira.plugins.groovy.util;
 import com.atlassian.jira.util.JiraUtils;
 import com.atlassian.plugin.Plugin;
 import com.atlassian.plugin.PluginState;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class DelegatingClassLoader extends ClassLoader {
-    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
     private final Logger logger = LoggerFactory.getLogger(DelegatingClassLoader.class);
-    //todo: maybe change to Map<String, String(plugin key)> with LoadingCache<String, ClassLoader>
-    private final Map<String, WeakReference<ClassLoader>> classLoaders;
+    private final Object writeLock = new Object();
+    //copy-on-write, readers don't need any locks
+    private volatile Map<String, WeakReference<ClassLoader>> classLoaders;
+    //class name -> key of class loader that was able to load it
+    private final Map<String, String> classOwners = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> missingClasses = Caffeine
+        .newBuilder()
+        .maximumSize(10000)
+        .build();
 
     public DelegatingClassLoader() {
         super(null);
-        this.classLoaders = new LinkedHashMap<>();
-        this.classLoaders.put("__local", new WeakReference<>(Thread.currentThread().getContextClassLoader()));
+        Map<String, WeakReference<ClassLoader>> classLoaders = new LinkedHashMap<>();
+        classLoaders.put("__local", new WeakReference<>(Thread.currentThread().getContextClassLoader()));
         //loader for jira core classes
-        this.classLoaders.put("__jira", new WeakReference<>(JiraUtils.class.getClassLoader()));
+        classLoaders.put("__jira", new WeakReference<>(JiraUtils.class.getClassLoader()));
+        this.classLoaders = Collections.unmodifiableMap(classLoaders);
     }
 
     public void ensureAvailability(Set<Plugin> plugins) {
-        Lock lock = rwLock.writeLock();
-        lock.lock();
-        try {
+        boolean changed = false;
+
+        Map<String, WeakReference<ClassLoader>> current = this.classLoaders;
+        for (Plugin plugin : plugins) {
+            if (plugin.getPluginState() != PluginState.ENABLED) {
+                throw new RuntimeException("Plugin " + plugin.getKey() + " is not enabled");
+            }
+
+            WeakReference<ClassLoader> reference = current.get(plugin.getKey());
+            if (reference == null || reference.get() != plugin.getClassLoader()) {
+                changed = true;
+            }
+        }
+
+        //fast path, nothing to update
+        if (!changed) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            Map<String, WeakReference<ClassLoader>> updated = new LinkedHashMap<>(this.classLoaders);
             for (Plugin plugin : plugins) {
-                if (plugin.getPluginState() != PluginState.ENABLED) {
-                    throw new RuntimeException("Plugin " + plugin.getKey() + " is not enabled");
+                WeakReference<ClassLoader> previous = updated.put(plugin.getKey(), new WeakReference<>(plugin.getClassLoader()));
+                if (previous != null && previous.get() != plugin.getClassLoader()) {
+                    removeOwners(plugin.getKey());
                 }
-                classLoaders.put(plugin.getKey(), new WeakReference<>(plugin.getClassLoader()));
             }
-        } finally {
-            lock.unlock();
+            this.classLoaders = Collections.unmodifiableMap(updated);
+
+            //new class loaders might be able to load classes that were missing before
+            missingClasses.invalidateAll();
         }
     }
 
     public void unloadPlugin(String key) {
-        classLoaders.remove(key);
+        synchronized (writeLock) {
+            Map<String, WeakReference<ClassLoader>> updated = new LinkedHashMap<>(this.classLoaders);
+            updated.remove(key);
+            this.classLoaders = Collections.unmodifiableMap(updated);
+
+            removeOwners(key);
+        }
     }
 
     @Override
     protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-        Lock lock = rwLock.readLock();
-        lock.lock();
-        try {
-            for (Map.Entry<String, WeakReference<ClassLoader>> entry : classLoaders.entrySet()) {
-                try {
-                    ClassLoader classLoader = entry.getValue().get();
+        Map<String, WeakReference<ClassLoader>> classLoaders = this.classLoaders;
 
-                    if (classLoader == null) {
-                        logger.warn("classloader for {} is not present", entry.getKey());
-                        continue;
-                    }
+        String ownerKey = classOwners.get(name);
+        if (ownerKey != null) {
+            ClassLoader classLoader = getClassLoader(classLoaders, ownerKey);
 
+            if (classLoader != null) {
+                try {
                     return classLoader.loadClass(name);
                 } catch (ClassNotFoundException ignore) {
                 }
             }
+
+            classOwners.remove(name, ownerKey);
+        }
+
+        if (missingClasses.getIfPresent(name) != null) {
             throw new ClassNotFoundException(name);
-        } finally {
-            lock.unlock();
         }
+
+        for (Map.Entry<String, WeakReference<ClassLoader>> entry : classLoaders.entrySet()) {
+            try {
+                ClassLoader classLoader = entry.getValue().get();
+
+                if (classLoader == null) {
+                    logger.warn("classloader for {} is not present", entry.getKey());
+                    continue;
+                }
+
+                Class<?> result = classLoader.loadClass(name);
+                classOwners.put(name, entry.getKey());
+                return result;
+            } catch (ClassNotFoundException ignore) {
+            }
+        }
+
+        missingClasses.put(name, Boolean.TRUE);
+        if (this.classLoaders != classLoaders) {
+            //class loaders were changed during lookup
+            missingClasses.invalidate(name);
+        }
+
+        throw new ClassNotFoundException(name);
     }
 
     public ClassLoader getJiraClassLoader() {
         return this.classLoaders.get("__jira").get();
     }
+
+    private void removeOwners(String key) {
+        classOwners.values().removeIf(key::equals);
+    }
+
+    private static ClassLoader getClassLoader(Map<String, WeakReference<ClassLoader>> classLoaders, String key) {
+        WeakReference<ClassLoader> reference = classLoaders.get(key);
+        return reference != null ? reference.get() : null;
+    }
 }
@@ -104,6 +104,15 @@ define('mailru/groovy/i18n-react', [], function() {
             deleteListener: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.deleteListener'),
             addCondition: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.addCondition'),
             noListeners: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.noListeners'),
+            async: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.async'),
+            circuitBreaker: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.circuitBreaker'),
+            debounceWindow: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.debounceWindow'),
+            debounceWindowDescription: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.debounceWindowDescription'),
+            circuitBreakerState: {
+                closed: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.circuitBreakerState.closed'),
+                open: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.circuitBreakerState.open'),
+                halfOpen: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.circuitBreakerState.halfOpen')
+            },
             type: {
                 className: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.type.className'),
                 issueEvent: AJS.I18n.getText('ru.mail.jira.plugins.groovy.listener.type.issueEvent')
@@ -145,7 +154,19 @@ define('mailru/groovy/i18n-react', [], function() {
             scriptFor: function(...params) {
                 return AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.scriptFor', ...params);
             },
-            noFields: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.noFields')
+            noFields: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.noFields'),
+            cacheMaxEntries: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.cacheMaxEntries'),
+            cacheMaxEntriesDescription: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.cacheMaxEntriesDescription'),
+            cacheTtl: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.cacheTtl'),
+            cacheTtlDescription: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.cacheTtlDescription'),
+            benchmarkJql: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.benchmarkJql'),
+            benchmarkJqlDescription: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.benchmarkJqlDescription'),
+            benchmarkSampleSize: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.benchmarkSampleSize'),
+            benchmarkResult: function(...params) {
+                return AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.benchmarkResult', ...params);
+            },
+            benchmarkErrors: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.benchmarkErrors'),
+            benchmarkAllocation: AJS.I18n.getText('ru.mail.jira.plugins.groovy.field.benchmarkAllocation')
         },
         titles: {
             console: AJS.I18n.getText('ru.mail.jira.plugins.groovy.link.console'),
@@ -200,6 +221,32 @@ define('mailru/groovy/i18n-react', [], function() {
             builtIn: AJS.I18n.getText('ru.mail.jira.plugins.groovy.adminScripts.builtIn'),
             runAgain: AJS.I18n.getText('ru.mail.jira.plugins.groovy.adminScripts.runAgain'),
             modifyAndRun: AJS.I18n.getText('ru.mail.jira.plugins.groovy.adminScripts.modifyAndRun')
+        },
+        extras: {
+            warmUp: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.warmUp'),
+            warmUpProgress: function(...params) {
+                return AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.warmUpProgress', ...params);
+            },
+            warmUpFailures: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.warmUpFailures'),
+            startWarmUp: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.startWarmUp'),
+            notStarted: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.notStarted'),
+            running: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.running'),
+            completed: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.completed'),
+            cancelled: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.cancelled'),
+            topScripts: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.topScripts'),
+            resetStats: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.resetStats'),
+            scriptId: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.scriptId'),
+            calls: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.calls'),
+            errors: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.errors'),
+            cpuTime: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.cpuTime'),
+            averageCpuTime: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.averageCpuTime'),
+            allocated: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.allocated'),
+            averageAllocated: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.averageAllocated'),
+            wallTime: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.wallTime'),
+            byCpu: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.byCpu'),
+            byAllocation: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.byAllocation'),
+            byWallTime: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.byWallTime'),
+            byCalls: AJS.I18n.getText('ru.mail.jira.plugins.groovy.extras.byCalls')
         }
     };
 });
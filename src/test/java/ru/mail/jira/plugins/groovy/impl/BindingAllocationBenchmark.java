@@ -0,0 +1,119 @@
+package ru.mail.jira.plugins.groovy.impl;
+
+import com.google.common.collect.ImmutableMap;
+import groovy.lang.Binding;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.groovy.ScriptWatchdog;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+//compares memory allocated per execution by bindings copied into HashMap and by layered bindings, run manually
+@Disabled
+@RunWith(JUnitPlatform.class)
+class BindingAllocationBenchmark {
+    private static final int EXECUTIONS = 10000;
+    //typical number of injections and global functions in template and of variables passed by caller
+    private static final int TEMPLATE_SIZE = 20;
+    private static final int EXTERNAL_SIZE = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(BindingAllocationBenchmark.class);
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private ScriptService scriptService;
+    private ScriptWatchdog scriptWatchdog;
+    private File bytecodeDirectory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        bytecodeDirectory = Files.createTempDirectory("groovy-classes").toFile();
+        scriptWatchdog = new ScriptWatchdog();
+        scriptWatchdog.onStart();
+        scriptService = ScriptServiceImplTest.createScriptService(bytecodeDirectory, scriptWatchdog);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scriptWatchdog.onStop();
+        FileUtil.deleteRecursively(bytecodeDirectory);
+    }
+
+    @Test
+    public void bindingAllocationBenchmark() throws Exception {
+        String script = FileUtil.readExample("inject-var");
+        Map<String, Object> template = createVariables("template", TEMPLATE_SIZE);
+        Map<String, Object> external = createVariables("external", EXTERNAL_SIZE);
+
+        //first round is warmup
+        for (int i = 0; i < 2; ++i) {
+            long executionBytes = measureAllocation(() -> scriptService.executeScript("benchmark", script, ScriptType.CONSOLE, external));
+            //bindings are built same way as in ScriptServiceImpl before and after binding template was introduced
+            long copiedBytes = measureAllocation(() -> copyBindings(template, external));
+            long layeredBytes = measureAllocation(() -> layerBindings(template, external));
+
+            logger.info(
+                "execution with layered bindings: {} bytes, estimated execution with copied bindings: {} bytes, " +
+                    "bindings: copied {} bytes, layered {} bytes",
+                executionBytes, executionBytes - layeredBytes + copiedBytes, copiedBytes, layeredBytes
+            );
+        }
+    }
+
+    private static Object copyBindings(Map<String, Object> template, Map<String, Object> external) {
+        HashMap<String, Object> bindings = new HashMap<>(external);
+        bindings.put("scriptType", ScriptType.CONSOLE);
+        for (Map.Entry<String, Object> entry : template.entrySet()) {
+            bindings.put(entry.getKey(), entry.getValue());
+        }
+        return new Binding(bindings);
+    }
+
+    private static Object layerBindings(Map<String, Object> template, Map<String, Object> external) {
+        Map<String, Object> callBindings = new HashMap<>();
+        callBindings.put("scriptType", ScriptType.CONSOLE);
+        return new Binding(new LayeredBindingMap(callBindings, template, external));
+    }
+
+    private static Map<String, Object> createVariables(String prefix, int count) {
+        ImmutableMap.Builder<String, Object> result = ImmutableMap.builder();
+        for (int i = 0; i < count; ++i) {
+            result.put(prefix + i, new Object());
+        }
+        return Collections.unmodifiableMap(result.build());
+    }
+
+    //average bytes allocated by current thread per call
+    private long measureAllocation(Action action) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        Object sink = null;
+
+        long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < EXECUTIONS; ++i) {
+            sink = action.run();
+        }
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        if (sink == null) {
+            logger.debug("no result");
+        }
+
+        return allocatedBytes / EXECUTIONS;
+    }
+
+    private interface Action {
+        Object run() throws Exception;
+    }
+}
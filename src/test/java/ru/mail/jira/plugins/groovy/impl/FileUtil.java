@@ -2,10 +2,15 @@ package ru.mail.jira.plugins.groovy.impl;
 
 import com.atlassian.core.util.ClassLoaderUtils;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
 
 public class FileUtil {
     private FileUtil() {}
@@ -28,4 +33,19 @@ public class FileUtil {
             return new String(buffer);
         }
     }
+
+    public static void deleteRecursively(File directory) {
+        if (directory == null || !directory.exists()) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
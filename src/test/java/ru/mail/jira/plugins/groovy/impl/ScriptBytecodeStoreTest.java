@@ -0,0 +1,73 @@
+package ru.mail.jira.plugins.groovy.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(JUnitPlatform.class)
+class ScriptBytecodeStoreTest {
+    private static final String FINGERPRINT = "fingerprint";
+
+    private File directory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("groovy-classes").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtil.deleteRecursively(directory);
+    }
+
+    @Test
+    public void loadTest() {
+        ScriptBytecodeStore store = new ScriptBytecodeStore(directory, "800000");
+        store.save("key", FINGERPRINT, createEntry(), plugin -> "1.0");
+
+        ScriptBytecodeStore.Entry entry = store.load("key", FINGERPRINT, plugin -> "1.0");
+
+        assertNotNull(entry);
+        assertEquals("script1", entry.getMainClass());
+        assertEquals(ImmutableSet.of("testPlugin"), entry.getPlugins());
+        assertArrayEquals(new byte[]{1, 2, 3}, entry.getClasses().get("script1"));
+    }
+
+    @Test
+    public void pluginUpgradeTest() {
+        ScriptBytecodeStore store = new ScriptBytecodeStore(directory, "800000");
+        store.save("key", FINGERPRINT, createEntry(), plugin -> "1.0");
+
+        assertNull(store.load("key", FINGERPRINT, plugin -> "1.1"));
+        //stale entry is deleted
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void jiraUpgradeTest() {
+        new ScriptBytecodeStore(directory, "800000").save("key", FINGERPRINT, createEntry(), plugin -> "1.0");
+
+        assertNull(new ScriptBytecodeStore(directory, "800001").load("key", FINGERPRINT, plugin -> "1.0"));
+    }
+
+    private static ScriptBytecodeStore.Entry createEntry() {
+        return new ScriptBytecodeStore.Entry(
+            "script1",
+            ImmutableMap.of("script1", new byte[]{1, 2, 3}),
+            ImmutableSet.of("testPlugin"),
+            ImmutableList.of(),
+            ImmutableList.of()
+        );
+    }
+}
@@ -12,7 +12,9 @@ import com.atlassian.plugin.event.impl.DefaultPluginEventManager;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import groovy.lang.MissingMethodException;
 import org.codehaus.groovy.control.MultipleCompilationErrorsException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -21,17 +23,30 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.dto.CacheStatsDto;
 import ru.mail.jira.plugins.groovy.api.dto.ScriptParamDto;
 import ru.mail.jira.plugins.groovy.api.script.ParamType;
+import ru.mail.jira.plugins.groovy.api.script.ScriptTimeoutException;
 import ru.mail.jira.plugins.groovy.api.script.ScriptType;
 import ru.mail.jira.plugins.groovy.api.service.GlobalFunctionManager;
 import ru.mail.jira.plugins.groovy.api.service.InjectionResolver;
 import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.execution.ScriptProfiler;
+import ru.mail.jira.plugins.groovy.impl.execution.ScriptResourceTracker;
+import ru.mail.jira.plugins.groovy.impl.groovy.ScriptWatchdog;
 import ru.mail.jira.plugins.groovy.api.script.ParseContext;
 import ru.mail.jira.plugins.groovy.util.DelegatingClassLoader;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,9 +54,28 @@ import static org.junit.jupiter.api.Assertions.*;
 @RunWith(JUnitPlatform.class)
 class ScriptServiceImplTest {
     private ScriptService scriptService;
+    private ScriptWatchdog scriptWatchdog;
+    private File bytecodeDirectory;
 
     @BeforeEach
-    public void setup() {
+    public void setup() throws IOException {
+        bytecodeDirectory = Files.createTempDirectory("groovy-classes").toFile();
+        scriptWatchdog = new ScriptWatchdog();
+        scriptWatchdog.onStart();
+        scriptService = createScriptService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scriptWatchdog.onStop();
+        FileUtil.deleteRecursively(bytecodeDirectory);
+    }
+
+    private ScriptService createScriptService() {
+        return createScriptService(bytecodeDirectory, scriptWatchdog);
+    }
+
+    static ScriptService createScriptService(File bytecodeDirectory, ScriptWatchdog scriptWatchdog) {
         PluginEventManager pluginEventManager = new DefaultPluginEventManager();
         GlobalFunctionManager globalFunctionManager = new GlobalFunctionManagerImpl();
         DelegatingClassLoader delegatingClassLoader = new DelegatingClassLoader();
@@ -56,11 +90,15 @@ class ScriptServiceImplTest {
             )
         );
 
-        scriptService = new ScriptServiceImpl(
+        return new ScriptServiceImpl(
             pluginEventManager,
             injectionResolver,
             globalFunctionManager,
-            delegatingClassLoader
+            delegatingClassLoader,
+            new ScriptBytecodeStore(bytecodeDirectory, "800000"),
+            scriptWatchdog,
+            new ScriptResourceTracker(),
+            new ScriptProfiler()
         );
     }
 
@@ -239,7 +277,267 @@ class ScriptServiceImplTest {
         assertEquals(parseContext.getPlugins(), ImmutableSet.of("testPlugin"));
     }
 
-    private ApplicationUser testUser() {
+    @ParameterizedTest(name = "static: {0}")
+    @MethodSource("createBooleanValues")
+    public void sameBodyCompiledOnceTest(boolean isStatic) throws Exception {
+        String script = "return 'ok'";
+
+        for (String id : ImmutableList.of("first", "second", "first")) {
+            Object result;
+            if (isStatic) {
+                result = scriptService.executeScriptStatic(id, script, ScriptType.CONSOLE, ImmutableMap.of(), ImmutableMap.of());
+            } else {
+                result = scriptService.executeScript(id, script, ScriptType.CONSOLE, ImmutableMap.of());
+            }
+            assertEquals(result, "ok");
+        }
+
+        CacheStatsDto stats = scriptService.getCacheStats();
+
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getBodyHitCount());
+        assertEquals(1, stats.getBodyMissCount());
+    }
+
+    @ParameterizedTest(name = "static: {0}")
+    @MethodSource("createBooleanValues")
+    public void storedBytecodeTest(boolean isStatic) throws Exception {
+        String script = "return { it * 2 }(21)";
+
+        for (int i = 0; i < 2; ++i) {
+            //new service doesn't have anything in memory, so classes are defined from stored bytecode
+            ScriptService service = i == 0 ? scriptService : createScriptService();
+
+            Object result;
+            if (isStatic) {
+                result = service.executeScriptStatic("stored", script, ScriptType.CONSOLE, ImmutableMap.of(), ImmutableMap.of());
+            } else {
+                result = service.executeScript("stored", script, ScriptType.CONSOLE, ImmutableMap.of());
+            }
+
+            assertEquals(result, 42);
+            assertEquals(1, bytecodeDirectory.listFiles().length);
+        }
+    }
+
+    @Test
+    public void concurrentCompilationTest() throws Exception {
+        String script = "return 'ok'";
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 32; ++i) {
+                String id = "script" + (i % 4);
+                results.add(executorService.submit(() -> scriptService.executeScript(id, script, ScriptType.CONSOLE, ImmutableMap.of())));
+            }
+
+            for (Future<Object> result : results) {
+                assertEquals(result.get(), "ok");
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        CacheStatsDto stats = scriptService.getCacheStats();
+
+        assertEquals(4, stats.getMissCount());
+        assertEquals(1, stats.getBodyMissCount());
+    }
+
+    @Test
+    public void saturatedCompilationTest() throws Exception {
+        //more distinct scripts than compiler threads, extra scripts are compiled by calling threads
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 16; ++i) {
+                String id = "script" + i;
+                String script = "return 'ok" + i + "'";
+                results.add(executorService.submit(() -> scriptService.executeScript(id, script, ScriptType.CONSOLE, ImmutableMap.of())));
+            }
+
+            for (int i = 0; i < results.size(); ++i) {
+                assertEquals("ok" + i, results.get(i).get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(16, scriptService.getCacheStats().getBodyMissCount());
+    }
+
+    @Test
+    public void bindingRemoveTest() throws Exception {
+        String script = "binding.variables.remove('value')\n" +
+            "return [binding.hasVariable('value'), binding.variables.containsKey('value'), binding.variables.keySet().contains('value')]";
+
+        Map<String, Object> bindings = ImmutableMap.of("value", 1);
+
+        //removed variable is hidden, even if it comes from external bindings
+        assertEquals(ImmutableList.of(false, false, false), scriptService.executeScript("remove", script, ScriptType.CONSOLE, bindings));
+        assertEquals(1, bindings.get("value"));
+    }
+
+    @Test
+    public void bindingSizeTest() throws Exception {
+        String script = "binding.variables.remove('removed')\n" +
+            "binding.setVariable('added', 1)\n" +
+            "binding.setVariable('value', 2)\n" +
+            "return [binding.variables.size(), binding.variables.entrySet().size()]";
+
+        Map<String, Object> bindings = ImmutableMap.of("value", 1, "removed", 1, "other", 1);
+
+        //size is counted without merging layers, it must be same as size of merged variables
+        List result = (List) scriptService.executeScript("size", script, ScriptType.CONSOLE, bindings);
+        assertEquals(result.get(1), result.get(0));
+    }
+
+    @Test
+    public void bindingOverlayTest() throws Exception {
+        String script = "binding.setVariable('value', value + 1); return value";
+
+        Map<String, Object> bindings = ImmutableMap.of("value", 1);
+
+        for (int i = 0; i < 2; ++i) {
+            //variables assigned by script must not leak into external bindings or next executions
+            assertEquals(2, scriptService.executeScript("overlay", script, ScriptType.CONSOLE, bindings));
+        }
+        assertEquals(1, bindings.get("value"));
+    }
+
+    @Test
+    public void metaClassIsolationTest() throws Exception {
+        String script = "def result = respondsTo('leaked') ? 'leaked' : 'clean'\ngetClass().metaClass.leaked = { -> 1 }\nreturn result";
+
+        for (int i = 0; i < 2; ++i) {
+            //metaclass changes made by previous execution of cached script must not be visible
+            assertEquals("clean", scriptService.executeScript("metaclass", script, ScriptType.CONSOLE, ImmutableMap.of()));
+        }
+    }
+
+    @Test
+    public void metaClassReuseTest() throws Exception {
+        System.setProperty("ru.mail.jira.plugins.groovy.reuseMetaClass", "true");
+        try {
+            scriptService = createScriptService();
+        } finally {
+            System.clearProperty("ru.mail.jira.plugins.groovy.reuseMetaClass");
+        }
+
+        String script = "def result = respondsTo('leaked') ? 'leaked' : 'clean'\ngetClass().metaClass.leaked = { -> 1 }\nreturn result";
+
+        assertEquals("clean", scriptService.executeScript("metaclass", script, ScriptType.CONSOLE, ImmutableMap.of()));
+        //metaclass is kept only when reuse is enabled explicitly
+        assertEquals("leaked", scriptService.executeScript("metaclass", script, ScriptType.CONSOLE, ImmutableMap.of()));
+    }
+
+    @ParameterizedTest(name = "static: {0}")
+    @MethodSource("createBooleanValues")
+    public void executionBudgetTest(boolean isStatic) {
+        String script = "@ExecutionBudget(wallTime = 200L) int i = 0\nwhile (true) { i++ }";
+
+        ScriptTimeoutException exception = assertThrows(ScriptTimeoutException.class, () -> {
+            if (isStatic) {
+                scriptService.executeScriptStatic("budget", script, ScriptType.CONSOLE, ImmutableMap.of(), ImmutableMap.of());
+            } else {
+                scriptService.executeScript("budget", script, ScriptType.CONSOLE, ImmutableMap.of());
+            }
+        });
+
+        assertEquals(200, exception.getLimit());
+        //interruption from watchdog must not leak into caller thread
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void executionBudgetWithoutInterruptTest() {
+        //blocked script isn't interrupted, it is stopped after it is unblocked
+        String script = "@ExecutionBudget(wallTime = 200L) def i = 0\nThread.sleep(500)\nreturn i";
+
+        assertThrows(
+            ScriptTimeoutException.class,
+            () -> scriptService.executeScript("budget", script, ScriptType.CONSOLE, ImmutableMap.of())
+        );
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void executionBudgetInterruptTest() {
+        String script = "@ExecutionBudget(wallTime = 200L, interrupt = true) def i = 0\nThread.sleep(10000)\nreturn i";
+
+        assertThrows(
+            InterruptedException.class,
+            () -> scriptService.executeScript("budget", script, ScriptType.CONSOLE, ImmutableMap.of())
+        );
+        //interruption from watchdog must not leak into caller thread
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void staticScriptTest() throws Exception {
+        Map<String, Object> bindings = ImmutableMap.of("user", testUser());
+        Map<String, Class> types = ImmutableMap.of("user", ApplicationUser.class);
+
+        assertEquals(
+            "userName1337",
+            scriptService.executeScript("static", "@StaticScript String name = user.name\nreturn name", ScriptType.CONSOLE, bindings, types)
+        );
+
+        //types are checked only for scripts that opt into static mode
+        String invalidScript = "String name = user.nonExistingMethod()\nreturn name";
+        assertThrows(
+            MissingMethodException.class,
+            () -> scriptService.executeScript("dynamic", invalidScript, ScriptType.CONSOLE, bindings, types)
+        );
+        assertThrows(
+            MultipleCompilationErrorsException.class,
+            () -> scriptService.executeScript("invalid", "@StaticScript " + invalidScript, ScriptType.CONSOLE, bindings, types)
+        );
+    }
+
+    //representative scripts must produce same result in dynamic and static modes
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("createStaticModeScripts")
+    public void staticModeEqualityTest(String name, String body) throws Exception {
+        Map<String, Object> bindings = ImmutableMap.of("user", testUser());
+        Map<String, Class> types = ImmutableMap.of("user", ApplicationUser.class);
+
+        assertEquals(
+            scriptService.executeScript(name + "-dynamic", "int iterations = 1000\n" + body, ScriptType.CONSOLE, bindings, types),
+            scriptService.executeScript(name + "-static", "@StaticScript int iterations = 1000\n" + body, ScriptType.CONSOLE, bindings, types)
+        );
+    }
+
+    static Stream<Arguments> createStaticModeScripts() {
+        return Stream.of(
+            Arguments.of(
+                "properties",
+                "int length = 0\n" +
+                "for (int i = 0; i < iterations; i++) {\n" +
+                "    length += user.name.length() + user.emailAddress.length()\n" +
+                "}\n" +
+                "return length"
+            ),
+            Arguments.of(
+                "collections",
+                "List<Integer> values = (1..iterations).collect { it * 2 }\n" +
+                "return values.findAll { it % 3 == 0 }.sum()"
+            ),
+            Arguments.of(
+                "maps",
+                "Map<String, Integer> counts = [:]\n" +
+                "for (int i = 0; i < iterations; i++) {\n" +
+                "    String key = 'key' + (i % 10)\n" +
+                "    counts[key] = (counts[key] ?: 0) + 1\n" +
+                "}\n" +
+                "return counts.size()"
+            )
+        );
+    }
+
+    static ApplicationUser testUser() {
         return new MockApplicationUser("12323", "userName1337", "User Name 1337", "username@test.test");
     }
 }
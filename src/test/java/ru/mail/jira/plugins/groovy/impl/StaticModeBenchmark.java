@@ -0,0 +1,78 @@
+package ru.mail.jira.plugins.groovy.impl;
+
+import com.atlassian.jira.user.ApplicationUser;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.groovy.ScriptWatchdog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+//compares throughput of representative scripts in dynamic and static modes, run manually
+@Disabled
+@RunWith(JUnitPlatform.class)
+class StaticModeBenchmark {
+    private static final int EXECUTIONS = 500;
+
+    private final Logger logger = LoggerFactory.getLogger(StaticModeBenchmark.class);
+    private ScriptService scriptService;
+    private ScriptWatchdog scriptWatchdog;
+    private File bytecodeDirectory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        bytecodeDirectory = Files.createTempDirectory("groovy-classes").toFile();
+        scriptWatchdog = new ScriptWatchdog();
+        scriptWatchdog.onStart();
+        scriptService = ScriptServiceImplTest.createScriptService(bytecodeDirectory, scriptWatchdog);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scriptWatchdog.onStop();
+        FileUtil.deleteRecursively(bytecodeDirectory);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("ru.mail.jira.plugins.groovy.impl.ScriptServiceImplTest#createStaticModeScripts")
+    public void staticModeBenchmark(String name, String body) throws Exception {
+        Map<String, Object> bindings = ImmutableMap.of("user", ScriptServiceImplTest.testUser());
+        Map<String, Class> types = ImmutableMap.of("user", ApplicationUser.class);
+
+        String dynamicScript = "int iterations = 1000\n" + body;
+        String staticScript = "@StaticScript int iterations = 1000\n" + body;
+
+        //first round is warmup
+        measureThroughput(name + "-dynamic", dynamicScript, bindings, types);
+        measureThroughput(name + "-static", staticScript, bindings, types);
+
+        double dynamicThroughput = measureThroughput(name + "-dynamic", dynamicScript, bindings, types);
+        double staticThroughput = measureThroughput(name + "-static", staticScript, bindings, types);
+
+        logger.info(
+            "{}: dynamic {} ops/s, static {} ops/s, x{}",
+            name, Math.round(dynamicThroughput), Math.round(staticThroughput),
+            String.format("%.2f", staticThroughput / dynamicThroughput)
+        );
+    }
+
+    private double measureThroughput(String id, String script, Map<String, Object> bindings, Map<String, Class> types) throws Exception {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < EXECUTIONS; ++i) {
+            scriptService.executeScript(id, script, ScriptType.CONSOLE, bindings, types);
+        }
+        return EXECUTIONS / ((System.nanoTime() - startTime) / 1e9);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(JUnitPlatform.class)
+class FieldTemplateServiceTest {
+    private static final String VIEW_TEMPLATE = "src/main/resources/ru/mail/jira/plugins/groovy/templates/template-cf.vm";
+
+    private FieldTemplateService templateService;
+    private VelocityEngine velocityEngine;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        templateService = new FieldTemplateService(() -> ImmutableMap.of("i18n", new TestI18n()));
+        velocityEngine = new VelocityEngine();
+        velocityEngine.init();
+    }
+
+    @Test
+    public void jiraParamsTest() throws Exception {
+        String template = "$i18n.getText('label'): $value #foreach($item in $items)$item#end";
+        Map<String, Object> params = new HashMap<>();
+        params.put("items", ImmutableMap.of("a", 1).keySet());
+
+        Object compiledTemplate = templateService.prepare(1, 2, template, params, ImmutableMap.of(), () -> "test");
+        String result = ((FieldTemplateService.LazyTemplate) compiledTemplate).render();
+
+        assertEquals("text.label: test a", result);
+        assertEquals(renderView(template, false, "test"), renderView(template, true, "test"));
+    }
+
+    @Test
+    public void viewContextParamsTest() throws Exception {
+        String template = "$i18n.getText('label') #if($displayParams.excel_view)excel#else html#end";
+
+        Object compiledTemplate = templateService.prepare(1, 2, template, new HashMap<>(), ImmutableMap.of(), () -> "test");
+
+        //template depends on view context, it must be evaluated by view instead of being rendered with reduced context
+        assertNull(((FieldTemplateService.LazyTemplate) compiledTemplate).render());
+        assertNull(((FieldTemplateService.LazyTemplate) compiledTemplate).render());
+        assertEquals("text.label excel", renderView(template, true, "test"));
+        assertEquals(renderView(template, false, "test"), renderView(template, true, "test"));
+    }
+
+    @Test
+    public void nullValueTest() throws Exception {
+        String template = "#if($value)$value#else empty#end";
+
+        Object compiledTemplate = templateService.prepare(1, 2, template, new HashMap<>(), ImmutableMap.of(), () -> null);
+
+        assertEquals(" empty", ((FieldTemplateService.LazyTemplate) compiledTemplate).render());
+    }
+
+    @Test
+    public void previewTest() {
+        String template = "$i18n.getText('label'): $value";
+        Map<String, Object> params = ImmutableMap.of("i18n", new TestI18n(), "value", "test");
+
+        assertEquals("text.label: test", templateService.renderPreview(1, template, params));
+        assertNull(templateService.renderPreview(1, "$displayParams.excel_view", params));
+
+        //unsaved templates aren't counted in render stats of field
+        assertTrue(templateService.getStats().isEmpty());
+
+        assertEquals("text.label: test", templateService.render(1, 2, template, params));
+        assertEquals(1, templateService.getStats().size());
+        assertEquals(1, templateService.getStats().get(0).getFieldId());
+    }
+
+    //renders view of template field with context, that contains params added by jira
+    private String renderView(String template, boolean withCache, Object value) throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("template", template);
+        if (withCache) {
+            params.put("hasCompiledTemplate", true);
+            params.put("compiledTemplate", templateService.prepare(1, 2, template, params, ImmutableMap.of(), () -> value));
+        }
+
+        VelocityContext context = new VelocityContext(new HashMap<>(params));
+        context.put("i18n", new TestI18n());
+        context.put("displayParams", ImmutableMap.of("excel_view", true));
+        context.put("value", value);
+
+        //jira specific macro
+        String view = new String(Files.readAllBytes(Paths.get(VIEW_TEMPLATE)), StandardCharsets.UTF_8)
+            .replace("#disable_html_escaping()", "");
+
+        StringWriter writer = new StringWriter();
+        velocityEngine.evaluate(context, writer, "view", view);
+        return writer.toString().trim();
+    }
+
+    public static class TestI18n {
+        public String getText(String key) {
+            return "text." + key;
+        }
+    }
+}
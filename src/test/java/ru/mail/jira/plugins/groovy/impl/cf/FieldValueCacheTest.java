@@ -0,0 +1,214 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldCacheStatsDto;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldValueCacheStatsDto;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldValueCache.RefreshState;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(JUnitPlatform.class)
+class FieldValueCacheTest {
+    private static final long FIELD_ID = 1;
+    private static final long OTHER_FIELD_ID = 2;
+    private static final long TTL = 60;
+
+    private FieldScript script;
+    private FieldValueCache cache;
+    private long nanos;
+
+    @BeforeEach
+    public void setup() {
+        nanos = 0;
+        script = new FieldScript();
+        script.setCacheTtl(TTL);
+        cache = new FieldValueCache(Long.MAX_VALUE, () -> nanos);
+    }
+
+    @Test
+    public void loadTest() {
+        ValueHolder first = holder(1, "first");
+        ValueHolder second = holder(1, "second value");
+
+        cache.get(FIELD_ID, script, 10, ignore -> first);
+        cache.get(FIELD_ID, script, 11, ignore -> second);
+        //cached value is returned, loader is not called
+        cache.get(FIELD_ID, script, 10, ignore -> fail("value must be cached"));
+        //null values are not cached
+        cache.get(FIELD_ID, script, 12, ignore -> null);
+
+        assertWeight(FIELD_ID, weigh(first) + weigh(second));
+    }
+
+    @Test
+    public void replaceTest() {
+        ValueHolder initial = holder(2, "initial");
+        cache.get(FIELD_ID, script, 10, ignore -> initial);
+
+        ValueHolder newer = holder(3, "newer value");
+        cache.replace(FIELD_ID, 10, newer);
+        assertSame(newer, cache.peek(FIELD_ID, 10));
+        assertWeight(FIELD_ID, weigh(newer));
+
+        //older value must not replace newer one
+        cache.replace(FIELD_ID, 10, holder(1, "older value with much longer text"));
+        assertSame(newer, cache.peek(FIELD_ID, 10));
+        assertWeight(FIELD_ID, weigh(newer));
+
+        //absent values are not added
+        cache.replace(FIELD_ID, 11, holder(3, "absent"));
+        assertNull(cache.peek(FIELD_ID, 11));
+        assertWeight(FIELD_ID, weigh(newer));
+    }
+
+    @Test
+    public void putAllTest() {
+        ValueHolder first = holder(2, "first");
+        ValueHolder second = holder(2, "second");
+        cache.putAll(FIELD_ID, script, ImmutableMap.of(10L, first, 11L, second));
+        assertWeight(FIELD_ID, weigh(first) + weigh(second));
+
+        ValueHolder olderFirst = holder(1, "older first value");
+        ValueHolder newerSecond = holder(3, "newer second value");
+        ValueHolder third = holder(3, "third");
+        cache.putAll(FIELD_ID, script, ImmutableMap.of(10L, olderFirst, 11L, newerSecond, 12L, third));
+
+        assertSame(first, cache.peek(FIELD_ID, 10));
+        assertSame(newerSecond, cache.peek(FIELD_ID, 11));
+        assertSame(third, cache.peek(FIELD_ID, 12));
+        assertWeight(FIELD_ID, weigh(first) + weigh(newerSecond) + weigh(third));
+    }
+
+    @Test
+    public void expiryTest() {
+        ValueHolder initial = holder(1, "initial");
+        cache.get(FIELD_ID, script, 10, ignore -> initial);
+        assertWeight(FIELD_ID, weigh(initial));
+
+        nanos += TimeUnit.SECONDS.toNanos(TTL + 1);
+
+        ValueHolder reloaded = holder(2, "reloaded value");
+        assertSame(reloaded, cache.get(FIELD_ID, script, 10, ignore -> reloaded));
+        assertWeight(FIELD_ID, weigh(reloaded));
+    }
+
+    @Test
+    public void invalidateTest() {
+        ValueHolder first = holder(1, "first");
+        ValueHolder second = holder(1, "second");
+        cache.get(FIELD_ID, script, 10, ignore -> first);
+        cache.get(FIELD_ID, script, 11, ignore -> second);
+
+        cache.invalidate(FIELD_ID, 10);
+
+        assertNull(cache.peek(FIELD_ID, 10));
+        assertWeight(FIELD_ID, weigh(second));
+    }
+
+    @Test
+    public void invalidateFieldTest() {
+        ValueHolder value = holder(1, "value");
+        ValueHolder otherValue = holder(1, "other value");
+        cache.get(FIELD_ID, script, 10, ignore -> value);
+        cache.get(OTHER_FIELD_ID, script, 10, ignore -> otherValue);
+
+        cache.invalidateField(FIELD_ID);
+
+        assertNull(cache.peek(FIELD_ID, 10));
+        assertSame(otherValue, cache.peek(OTHER_FIELD_ID, 10));
+        assertEquals(weigh(otherValue), cache.getStats().getWeight());
+    }
+
+    @Test
+    public void invalidateDependentFieldTest() {
+        cache.get(FIELD_ID, script, 10, ignore -> holder(1, "value"));
+        cache.get(OTHER_FIELD_ID, script, 10, ignore -> holder(1, "other value"));
+        cache.addDependency(OTHER_FIELD_ID, FIELD_ID);
+
+        cache.invalidateField(FIELD_ID);
+
+        assertNull(cache.peek(FIELD_ID, 10));
+        assertNull(cache.peek(OTHER_FIELD_ID, 10));
+        assertEquals(0, cache.getStats().getWeight());
+        assertTrue(cache.getStats().getFields().isEmpty());
+    }
+
+    @Test
+    public void refreshStateTest() {
+        cache.get(FIELD_ID, script, 10, ignore -> holder(1, "value"));
+
+        assertEquals(RefreshState.STARTED, cache.startRefresh(FIELD_ID, 10));
+        assertEquals(RefreshState.IN_PROGRESS, cache.startRefresh(FIELD_ID, 10));
+        assertEquals(RefreshState.STARTED, cache.startRefresh(FIELD_ID, 11));
+
+        cache.finishRefresh(FIELD_ID, 10);
+        assertEquals(RefreshState.STARTED, cache.startRefresh(FIELD_ID, 10));
+
+        //segment is dropped with its refreshes, stale value read before invalidation must be recalculated by reader
+        cache.invalidateField(FIELD_ID);
+        assertEquals(RefreshState.NOT_CACHED, cache.startRefresh(FIELD_ID, 10));
+        assertEquals(RefreshState.NOT_CACHED, cache.startRefresh(OTHER_FIELD_ID, 10));
+        cache.finishRefresh(FIELD_ID, 10);
+    }
+
+    @Test
+    public void budgetEvictionTest() {
+        ValueHolder small = holder(1, "small");
+        long largeWeight = weigh(largeHolder());
+        long maxWeight = weigh(small) + 3 * largeWeight + largeWeight / 2;
+        cache = new FieldValueCache(maxWeight, () -> nanos);
+
+        cache.get(OTHER_FIELD_ID, script, 10, ignore -> small);
+        for (long issueId = 0; issueId < 10; ++issueId) {
+            cache.get(FIELD_ID, script, issueId, ignore -> largeHolder());
+            assertTrue(cache.getStats().getWeight() <= maxWeight);
+        }
+
+        long remainingWeight = 0;
+        for (long issueId = 0; issueId < 10; ++issueId) {
+            ValueHolder holder = cache.peek(FIELD_ID, issueId);
+            if (holder != null) {
+                remainingWeight += weigh(holder);
+            }
+        }
+
+        //values are evicted from largest segment
+        assertSame(small, cache.peek(OTHER_FIELD_ID, 10));
+        assertWeight(FIELD_ID, remainingWeight);
+        assertEquals(remainingWeight + weigh(small), cache.getStats().getWeight());
+    }
+
+    //checks weight of field segment and consistency of total weight with segment weights
+    private void assertWeight(long fieldId, long expected) {
+        FieldValueCacheStatsDto stats = cache.getStats();
+        FieldCacheStatsDto fieldStats = stats
+            .getFields()
+            .stream()
+            .filter(it -> it.getFieldId() == fieldId)
+            .findAny()
+            .orElseThrow(AssertionError::new);
+
+        assertEquals(expected, fieldStats.getWeight());
+        assertEquals(stats.getFields().stream().mapToLong(FieldCacheStatsDto::getWeight).sum(), stats.getWeight());
+    }
+
+    private static ValueHolder largeHolder() {
+        return holder(1, Strings.repeat("x", 1000));
+    }
+
+    private static ValueHolder holder(long lastModified, String value) {
+        return new ValueHolder<>(lastModified, value, null);
+    }
+
+    private static long weigh(ValueHolder holder) {
+        return ValueWeigher.weigh(holder);
+    }
+}
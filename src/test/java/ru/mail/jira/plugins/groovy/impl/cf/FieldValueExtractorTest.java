@@ -0,0 +1,101 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.issue.fields.config.FieldConfig;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+import ru.mail.jira.plugins.groovy.api.repository.FieldConfigRepository;
+import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+import ru.mail.jira.plugins.groovy.impl.ThreadContextWrapper;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnitPlatform.class)
+class FieldValueExtractorTest {
+    private static final long FIELD_ID = 1;
+    private static final long UPSTREAM_FIELD_ID = 2;
+    private static final long CONFIG_ID = 3;
+    private static final long ISSUE_ID = 10;
+
+    private FieldValueCache cache;
+    private FieldValueExtractor valueExtractor;
+    private CustomField field;
+    private Issue issue;
+    private FieldScript script;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        issue = mock(Issue.class);
+        when(issue.getId()).thenReturn(ISSUE_ID);
+        when(issue.getUpdated()).thenReturn(new Timestamp(1000));
+
+        FieldConfig config = mock(FieldConfig.class);
+        when(config.getId()).thenReturn(CONFIG_ID);
+        field = mock(CustomField.class);
+        when(field.getIdAsLong()).thenReturn(FIELD_ID);
+        when(field.getRelevantConfig(issue)).thenReturn(config);
+
+        //upstream field has no config for issue, so it has no value
+        CustomField upstreamField = mock(CustomField.class);
+        when(upstreamField.getIdAsLong()).thenReturn(UPSTREAM_FIELD_ID);
+
+        script = new FieldScript();
+        script.setId("field");
+        script.setScriptBody("return null");
+        FieldConfigRepository fieldConfigRepository = mock(FieldConfigRepository.class);
+        when(fieldConfigRepository.getScript(CONFIG_ID)).thenReturn(script);
+
+        //script of field reads value of upstream field
+        ScriptService scriptService = mock(ScriptService.class);
+        when(scriptService.executeScript(anyString(), anyString(), any(), anyMap(), anyMap()))
+            .thenAnswer(invocation -> valueExtractor.extractValue(upstreamField, issue, Object.class));
+
+        cache = new FieldValueCache();
+        valueExtractor = new FieldValueExtractor(
+            mock(JiraAuthenticationContext.class), fieldConfigRepository, scriptService, mock(ExecutionRepository.class),
+            cache, mock(FieldReindexContext.class), new ThreadContextWrapper(mock(JiraThreadLocalUtil.class))
+        );
+
+        cache.get(FIELD_ID, script, ISSUE_ID, ignore -> new ValueHolder<>(1, "value", null));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        valueExtractor.onStop();
+    }
+
+    @Test
+    public void dependencyTest() {
+        valueExtractor.extractValue(field, issue, Object.class);
+
+        //value of field is invalidated with value of field that it reads
+        cache.invalidateField(UPSTREAM_FIELD_ID);
+        assertNull(cache.peek(FIELD_ID, ISSUE_ID));
+    }
+
+    @Test
+    public void previewDependencyTest() throws Exception {
+        FieldScript previewScript = new FieldScript();
+        previewScript.setId("preview");
+        previewScript.setScriptBody("return null");
+
+        valueExtractor.preview(issue, field, previewScript);
+        valueExtractor.evaluate(issue, field, previewScript);
+
+        //unsaved script doesn't add dependencies of field
+        cache.invalidateField(UPSTREAM_FIELD_ID);
+        assertNotNull(cache.peek(FIELD_ID, ISSUE_ID));
+    }
+}
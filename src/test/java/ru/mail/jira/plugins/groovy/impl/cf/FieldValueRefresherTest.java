@@ -0,0 +1,129 @@
+package ru.mail.jira.plugins.groovy.impl.cf;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.issue.CustomFieldManager;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.issue.IssueManager;
+import com.atlassian.jira.issue.fields.CustomField;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.user.ApplicationUser;
+import com.atlassian.jira.util.thread.JiraThreadLocalUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.dto.cf.FieldScript;
+import ru.mail.jira.plugins.groovy.impl.ThreadContextWrapper;
+import ru.mail.jira.plugins.groovy.impl.cf.FieldValueCache.RefreshState;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnitPlatform.class)
+class FieldValueRefresherTest {
+    private static final long FIELD_ID = 1;
+    private static final long ISSUE_ID = 10;
+    private static final long OTHER_ISSUE_ID = 11;
+
+    private JiraAuthenticationContext authenticationContext;
+    private FieldValueCache cache;
+    private FieldValueExtractor valueExtractor;
+    private FieldValueRefresher refresher;
+    private CustomField field;
+    private Issue issue;
+
+    @BeforeEach
+    public void setup() {
+        issue = mockIssue(ISSUE_ID);
+        field = mock(CustomField.class);
+
+        IssueManager issueManager = mock(IssueManager.class);
+        when(issueManager.getIssueObject(ISSUE_ID)).thenReturn(issue);
+        CustomFieldManager customFieldManager = mock(CustomFieldManager.class);
+        when(customFieldManager.getCustomFieldObject(FIELD_ID)).thenReturn(field);
+
+        authenticationContext = mock(JiraAuthenticationContext.class);
+        cache = new FieldValueCache();
+        valueExtractor = mock(FieldValueExtractor.class);
+
+        refresher = new FieldValueRefresher(
+            mock(EventPublisher.class), issueManager, customFieldManager, authenticationContext,
+            cache, valueExtractor, new ThreadContextWrapper(mock(JiraThreadLocalUtil.class))
+        );
+
+        FieldScript script = new FieldScript();
+        script.setCacheable(true);
+        cache.get(FIELD_ID, script, ISSUE_ID, ignore -> new ValueHolder<>(1, "value", null));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        refresher.onStop();
+    }
+
+    @Test
+    public void refreshAheadTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(valueExtractor).refreshValue(field, issue);
+
+        ApplicationUser user = mock(ApplicationUser.class);
+        refresher.onIssueEvent(mockEvent(issue, user));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        //readers return cached value while it is recalculated in background
+        assertEquals(RefreshState.IN_PROGRESS, cache.startRefresh(FIELD_ID, ISSUE_ID));
+
+        //value that is already being recalculated isn't scheduled again
+        refresher.onIssueEvent(mockEvent(issue, user));
+        release.countDown();
+
+        verify(valueExtractor, timeout(10000)).refreshValue(field, issue);
+        verify(authenticationContext, timeout(10000)).setLoggedInUser(user);
+        waitForRefresh(FIELD_ID, ISSUE_ID);
+        verify(valueExtractor, times(1)).refreshValue(field, issue);
+    }
+
+    @Test
+    public void notCachedTest() {
+        //only cached values are recalculated
+        refresher.onIssueEvent(mockEvent(mockIssue(OTHER_ISSUE_ID), null));
+        cache.invalidateField(FIELD_ID);
+        refresher.onIssueEvent(mockEvent(issue, null));
+
+        verifyZeroInteractions(valueExtractor);
+        assertEquals(RefreshState.NOT_CACHED, cache.startRefresh(FIELD_ID, ISSUE_ID));
+    }
+
+    //waits until background refresh is finished and value can be refreshed again
+    private void waitForRefresh(long fieldId, long issueId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (cache.startRefresh(fieldId, issueId) != RefreshState.STARTED) {
+            assertTrue(System.currentTimeMillis() < deadline, "refresh wasn't finished");
+            Thread.sleep(10);
+        }
+        cache.finishRefresh(fieldId, issueId);
+    }
+
+    private static Issue mockIssue(long issueId) {
+        Issue issue = mock(Issue.class);
+        when(issue.getId()).thenReturn(issueId);
+        return issue;
+    }
+
+    private static IssueEvent mockEvent(Issue issue, ApplicationUser user) {
+        IssueEvent event = mock(IssueEvent.class);
+        when(event.getIssue()).thenReturn(issue);
+        when(event.getUser()).thenReturn(user);
+        return event;
+    }
+}
@@ -0,0 +1,145 @@
+package ru.mail.jira.plugins.groovy.impl.execution;
+
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.pocketknife.api.querydsl.DatabaseAccessor;
+import com.atlassian.pocketknife.api.querydsl.util.OnRollback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.dto.ExecutionStatsDto;
+import ru.mail.jira.plugins.groovy.impl.FileUtil;
+import ru.mail.jira.plugins.groovy.impl.execution.ExecutionStatsService.StatsWindow;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnitPlatform.class)
+class ExecutionStatsServiceTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private Path directory;
+    private ClusterMessagingService clusterMessagingService;
+    private DatabaseAccessor databaseAccessor;
+    private List<ExecutionStatsService> services;
+    private long now;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("groovy-stats");
+        clusterMessagingService = mock(ClusterMessagingService.class);
+        //execution table is empty
+        databaseAccessor = mock(DatabaseAccessor.class);
+        now = 1000 * HOUR;
+        services = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        services.forEach(ExecutionStatsService::onStop);
+        FileUtil.deleteRecursively(directory.toFile());
+    }
+
+    @Test
+    public void pruneTest() {
+        ExecutionStatsService statsService = createService("local");
+        statsService.record(1, null, 10, true);
+        statsService.record(null, "inline", 10, false);
+
+        statsService.checkpoint();
+        assertEquals(2, statsService.getLocalScriptCount());
+
+        now += (ScriptStats.BUCKET_COUNT - 1) * HOUR;
+        statsService.record(2, null, 10, true);
+        statsService.checkpoint();
+        assertEquals(3, statsService.getLocalScriptCount());
+
+        //all executions of first scripts are out of retention period
+        now += HOUR;
+        statsService.checkpoint();
+        assertEquals(1, statsService.getLocalScriptCount());
+        assertEquals(0, statsService.getInlineStats("inline", StatsWindow.ALL).getCount());
+        assertEquals(1, statsService.getRegistryStats(2, StatsWindow.ALL).getCount());
+
+        //pruned script is tracked again after new execution
+        statsService.record(1, null, 10, true);
+        assertEquals(1, statsService.getRegistryStats(1, StatsWindow.HOUR).getCount());
+        assertEquals(2, statsService.getLocalScriptCount());
+    }
+
+    @Test
+    public void remoteStatsTest() {
+        ExecutionStatsService statsService = createService("node1");
+        ExecutionStatsService remoteStatsService = createService("node2");
+
+        remoteStatsService.record(1, null, 10, false);
+        remoteStatsService.record(null, "inline", 10, true);
+        remoteStatsService.checkpoint();
+
+        statsService.record(1, null, 10, true);
+        statsService.checkpoint();
+
+        assertStats(statsService.getRegistryStats(1, StatsWindow.HOUR), 2, 1);
+        assertStats(statsService.getInlineStats("inline", StatsWindow.DAY), 1, 0);
+        assertEquals(1, statsService.getAllRegistryStats(StatsWindow.ALL).size());
+    }
+
+    @Test
+    public void resetRegistryTest() throws Exception {
+        ExecutionStatsService statsService = createService("node1");
+        ExecutionStatsService remoteStatsService = createService("node2");
+        remoteStatsService.record(1, null, 10, false);
+        remoteStatsService.record(2, null, 10, true);
+        remoteStatsService.checkpoint();
+
+        statsService.record(1, null, 10, true);
+        statsService.record(2, null, 10, true);
+        statsService.checkpoint();
+        assertStats(statsService.getRegistryStats(1, StatsWindow.ALL), 2, 1);
+
+        statsService.resetRegistry(1, new Timestamp(now - HOUR));
+
+        verify(clusterMessagingService).sendRemote(anyString(), eq("1"));
+        //stats of script are dropped on this node and from snapshots of other nodes
+        assertStats(statsService.getRegistryStats(1, StatsWindow.ALL), 0, 0);
+        assertStats(statsService.getRegistryStats(2, StatsWindow.ALL), 2, 0);
+
+        //stats are rebuilt from execution table in background
+        waitForFile(directory.resolve("__seed.stats"));
+        verify(databaseAccessor).run(any(), eq(OnRollback.NOOP));
+        assertStats(statsService.getRegistryStats(1, StatsWindow.ALL), 0, 0);
+
+        statsService.record(1, null, 10, true);
+        assertStats(statsService.getRegistryStats(1, StatsWindow.ALL), 1, 0);
+    }
+
+    private ExecutionStatsService createService(String nodeId) {
+        ExecutionStatsService statsService = new ExecutionStatsService(
+            directory, nodeId, clusterMessagingService, databaseAccessor, () -> now
+        );
+        services.add(statsService);
+        return statsService;
+    }
+
+    private static void assertStats(ExecutionStatsDto stats, long count, long errorCount) {
+        assertEquals(count, stats.getCount());
+        assertEquals(errorCount, stats.getErrorCount());
+    }
+
+    private static void waitForFile(Path file) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!Files.exists(file)) {
+            assertTrue(System.currentTimeMillis() < deadline, "file wasn't created " + file);
+            Thread.sleep(10);
+        }
+    }
+}
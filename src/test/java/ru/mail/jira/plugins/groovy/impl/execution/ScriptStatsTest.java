@@ -0,0 +1,125 @@
+package ru.mail.jira.plugins.groovy.impl.execution;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(JUnitPlatform.class)
+class ScriptStatsTest {
+    @Test
+    public void recordTest() {
+        ScriptStats stats = new ScriptStats();
+        stats.record(10, 5, true, false);
+        stats.record(10, 5, false, false);
+        stats.record(11, 5000, true, true);
+
+        assertAggregate(stats, 10, 11, 3, 1, 1);
+        assertAggregate(stats, 10, 10, 2, 1, 0);
+        assertAggregate(stats, 11, 11, 1, 0, 1);
+        assertAggregate(stats, 12, 20, 0, 0, 0);
+    }
+
+    @Test
+    public void bucketReuseTest() {
+        ScriptStats stats = new ScriptStats();
+        stats.record(10, 5, true, false);
+        stats.record(10, 5, true, false);
+        assertFalse(stats.isEmpty(10));
+
+        //same bucket is used for hour that is BUCKET_COUNT hours later, old executions are dropped
+        long hour = 10 + ScriptStats.BUCKET_COUNT;
+        stats.record(hour, 5, false, true);
+
+        assertAggregate(stats, 0, hour, 1, 1, 1);
+        assertAggregate(stats, 0, hour - 1, 0, 0, 0);
+        assertTrue(stats.isEmpty(hour + 1));
+        assertFalse(stats.isEmpty(hour));
+    }
+
+    @Test
+    public void percentileTest() {
+        ScriptStats stats = new ScriptStats();
+        for (int i = 0; i < 90; ++i) {
+            stats.record(10, 1, true, false);
+        }
+        for (int i = 0; i < 9; ++i) {
+            stats.record(10, 100, true, false);
+        }
+        stats.record(10, 5000, true, false);
+
+        ScriptStats.Aggregate aggregate = new ScriptStats.Aggregate();
+        stats.addTo(aggregate, 10, 10);
+
+        //percentiles are upper bounds of histogram buckets
+        assertEquals(1, aggregate.getPercentile(0.5));
+        assertEquals(1, aggregate.getPercentile(0.9));
+        assertEquals(127, aggregate.getPercentile(0.95));
+        assertEquals(127, aggregate.getPercentile(0.99));
+        assertEquals(8191, aggregate.getPercentile(1));
+
+        assertEquals(0, new ScriptStats.Aggregate().getPercentile(0.5));
+    }
+
+    @Test
+    public void longExecutionPercentileTest() {
+        ScriptStats stats = new ScriptStats();
+        stats.record(10, 0, true, false);
+        stats.record(10, Long.MAX_VALUE, true, true);
+
+        ScriptStats.Aggregate aggregate = new ScriptStats.Aggregate();
+        stats.addTo(aggregate, 10, 10);
+
+        assertEquals(0, aggregate.getPercentile(0.5));
+        //executions longer than histogram range are counted in last bucket
+        assertEquals((1L << (ScriptStats.HISTOGRAM_SIZE - 1)) - 1, aggregate.getPercentile(0.99));
+    }
+
+    @Test
+    public void writeReadTest() throws Exception {
+        ScriptStats stats = new ScriptStats();
+        stats.record(10, 5, true, false);
+        stats.record(11, 100, false, false);
+        stats.record(12, 5000, true, true);
+        stats.record(12, 1, false, false);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            //buckets before fromHour aren't written
+            stats.write(out, 11);
+        }
+
+        ScriptStats result;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            result = ScriptStats.read(in);
+            assertEquals(-1, in.read());
+        }
+
+        assertAggregate(result, 10, 10, 0, 0, 0);
+        assertAggregate(result, 11, 11, 1, 1, 0);
+        assertAggregate(result, 12, 12, 2, 1, 1);
+
+        ScriptStats.Aggregate expected = new ScriptStats.Aggregate();
+        stats.addTo(expected, 11, 12);
+        ScriptStats.Aggregate actual = new ScriptStats.Aggregate();
+        result.addTo(actual, 11, 12);
+        for (double percentile : new double[]{0.25, 0.5, 0.75, 1}) {
+            assertEquals(expected.getPercentile(percentile), actual.getPercentile(percentile));
+        }
+    }
+
+    private static void assertAggregate(ScriptStats stats, long fromHour, long toHour, long count, long errors, long slow) {
+        ScriptStats.Aggregate aggregate = new ScriptStats.Aggregate();
+        stats.addTo(aggregate, fromHour, toHour);
+
+        assertEquals(count, aggregate.getCount());
+        assertEquals(errors, aggregate.getErrors());
+        assertEquals(slow, aggregate.getSlow());
+    }
+}
@@ -0,0 +1,91 @@
+package ru.mail.jira.plugins.groovy.impl.groovy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.script.ExecutionBudget;
+import ru.mail.jira.plugins.groovy.api.script.ScriptTimeoutException;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(JUnitPlatform.class)
+class ScriptWatchdogTest {
+    private ScriptWatchdog scriptWatchdog;
+
+    @BeforeEach
+    public void setup() {
+        scriptWatchdog = new ScriptWatchdog();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ExecutionGuard.check();
+    }
+
+    @Test
+    public void noBudgetTest() {
+        assertFalse(scriptWatchdog.isTypeBudgetsConfigured());
+
+        //scripts without budget aren't tracked
+        ExecutionGuard guard = scriptWatchdog.start("script", ScriptType.CONSOLE, Object.class);
+        assertSame(ExecutionGuard.NONE, guard);
+        scriptWatchdog.finish(guard);
+    }
+
+    @Test
+    public void typeBudgetTest() {
+        System.setProperty("ru.mail.jira.plugins.groovy.timeout.console.wallTime", "100");
+        try {
+            scriptWatchdog = new ScriptWatchdog();
+        } finally {
+            System.clearProperty("ru.mail.jira.plugins.groovy.timeout.console.wallTime");
+        }
+
+        assertTrue(scriptWatchdog.isTypeBudgetsConfigured());
+
+        ExecutionGuard guard = scriptWatchdog.start("script", ScriptType.CONSOLE, Object.class);
+        try {
+            assertEquals(100, guard.getWallTimeLimit());
+        } finally {
+            scriptWatchdog.finish(guard);
+        }
+
+        assertSame(ExecutionGuard.NONE, scriptWatchdog.start("script", ScriptType.LISTENER, Object.class));
+    }
+
+    @Test
+    public void scriptBudgetTest() {
+        ExecutionGuard guard = scriptWatchdog.start("script", ScriptType.CONSOLE, BudgetedScript.class);
+        try {
+            assertNotSame(ExecutionGuard.NONE, guard);
+            assertEquals(100, guard.getWallTimeLimit());
+
+            guard.stop("wall-clock time", 100);
+            assertThrows(ScriptTimeoutException.class, ExecutionGuard::check);
+        } finally {
+            scriptWatchdog.finish(guard);
+        }
+    }
+
+    @Test
+    public void nestedScriptWithoutBudgetTest() {
+        ExecutionGuard outer = scriptWatchdog.start("outer", ScriptType.CONSOLE, BudgetedScript.class);
+        try {
+            ExecutionGuard inner = scriptWatchdog.start("inner", ScriptType.CONSOLE, Object.class);
+            scriptWatchdog.finish(inner);
+
+            //budget of outer script is still checked after nested script is finished
+            outer.stop("wall-clock time", 100);
+            assertThrows(ScriptTimeoutException.class, ExecutionGuard::check);
+        } finally {
+            scriptWatchdog.finish(outer);
+        }
+    }
+
+    @ExecutionBudget(wallTime = 100)
+    private static class BudgetedScript {
+    }
+}
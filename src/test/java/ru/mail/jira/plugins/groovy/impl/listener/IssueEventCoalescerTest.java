@@ -0,0 +1,182 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.issue.IssueEvent;
+import com.atlassian.jira.issue.Issue;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.atlassian.jira.user.ApplicationUser;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ScriptedEventListener;
+import ru.mail.jira.plugins.groovy.api.repository.EventListenerRepository;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnitPlatform.class)
+class IssueEventCoalescerTest {
+    private static final long SHORT_WINDOW = 500;
+    private static final long LONG_WINDOW = TimeUnit.HOURS.toMillis(1);
+
+    private BlockingQueue<Flush> flushes;
+    private IssueEventCoalescer coalescer;
+
+    @BeforeEach
+    public void setup() {
+        flushes = new LinkedBlockingQueue<>();
+        coalescer = new IssueEventCoalescer((listener, lastEvent, eventTypeIds) -> flushes.add(new Flush(listener, lastEvent, eventTypeIds)));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        coalescer.stop();
+    }
+
+    @Test
+    public void mergeTest() throws Exception {
+        ScriptedEventListener listener = ListenerIndexTest.issueListener(1, ImmutableSet.of(), ImmutableSet.of());
+        IssueEvent firstEvent = mockEvent(100L, 1L, null);
+        IssueEvent secondEvent = mockEvent(100L, 2L, null);
+
+        coalescer.add(listener, firstEvent, SHORT_WINDOW);
+        coalescer.add(listener, secondEvent, SHORT_WINDOW);
+        assertEquals(1, coalescer.getPendingCount());
+
+        Flush flush = flushes.poll(10, TimeUnit.SECONDS);
+        assertNotNull(flush);
+        assertSame(listener, flush.listener);
+        assertSame(secondEvent, flush.lastEvent);
+        assertEquals(ImmutableList.of(1L, 2L), flush.eventTypeIds);
+
+        assertEquals(0, coalescer.getPendingCount());
+        assertNull(flushes.poll(SHORT_WINDOW * 2, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void separateKeysTest() throws Exception {
+        ScriptedEventListener listener = ListenerIndexTest.issueListener(1, ImmutableSet.of(), ImmutableSet.of());
+        ScriptedEventListener otherListener = ListenerIndexTest.issueListener(2, ImmutableSet.of(), ImmutableSet.of());
+
+        coalescer.add(listener, mockEvent(100L, 1L, null), SHORT_WINDOW);
+        coalescer.add(listener, mockEvent(200L, 2L, null), SHORT_WINDOW);
+        coalescer.add(otherListener, mockEvent(100L, 3L, null), SHORT_WINDOW);
+        //events for different issues or listeners aren't merged
+        assertEquals(3, coalescer.getPendingCount());
+
+        Set<List<Long>> eventTypeIds = new HashSet<>();
+        for (int i = 0; i < 3; ++i) {
+            Flush flush = flushes.poll(10, TimeUnit.SECONDS);
+            assertNotNull(flush);
+            eventTypeIds.add(flush.eventTypeIds);
+        }
+
+        assertEquals(ImmutableSet.of(ImmutableList.of(1L), ImmutableList.of(2L), ImmutableList.of(3L)), eventTypeIds);
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    public void stopTest() {
+        ScriptedEventListener listener = ListenerIndexTest.issueListener(1, ImmutableSet.of(), ImmutableSet.of());
+        IssueEvent firstEvent = mockEvent(100L, 1L, null);
+        IssueEvent secondEvent = mockEvent(200L, 2L, null);
+
+        coalescer.add(listener, firstEvent, LONG_WINDOW);
+        coalescer.add(listener, secondEvent, LONG_WINDOW);
+        assertTrue(flushes.isEmpty());
+
+        //pending events are executed on stop instead of being lost
+        coalescer.stop();
+        assertEquals(2, flushes.size());
+        assertEquals(0, coalescer.getPendingCount());
+
+        //events added after stop are flushed immediately
+        coalescer.add(listener, firstEvent, LONG_WINDOW);
+        assertEquals(3, flushes.size());
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    public void lastEventUserTest() throws Exception {
+        ScriptedEventListener listener = ListenerIndexTest.issueListener(1, ImmutableSet.of(), ImmutableSet.of());
+        listener.getCondition().setDebounceWindow(LONG_WINDOW);
+
+        ApplicationUser firstUser = mock(ApplicationUser.class);
+        ApplicationUser secondUser = mock(ApplicationUser.class);
+        IssueEvent firstEvent = mockEvent(100L, 1L, firstUser);
+        IssueEvent secondEvent = mockEvent(100L, 2L, secondUser);
+
+        EventListenerRepository repository = mock(EventListenerRepository.class);
+        when(repository.getAllListeners()).thenReturn(ImmutableList.of(listener));
+        ScriptService scriptService = mock(ScriptService.class);
+        JiraAuthenticationContext authenticationContext = mock(JiraAuthenticationContext.class);
+        AsyncListenerExecutor asyncListenerExecutor = mock(AsyncListenerExecutor.class);
+        ListenerCircuitBreaker circuitBreaker = mock(ListenerCircuitBreaker.class);
+        when(circuitBreaker.allowExecution(anyString())).thenReturn(true);
+
+        EventListenerInvoker invoker = new EventListenerInvoker(
+            mock(EventPublisher.class), repository, scriptService, authenticationContext,
+            mock(ExecutionRepository.class), asyncListenerExecutor, circuitBreaker
+        );
+
+        invoker.onIssueEvent(firstEvent);
+        invoker.onIssueEvent(secondEvent);
+        verifyZeroInteractions(asyncListenerExecutor);
+
+        //flushes coalesced event
+        invoker.onStop();
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(asyncListenerExecutor).execute(eq(100L), eq(listener.getUuid()), any(), same(secondEvent), task.capture());
+        task.getValue().run();
+
+        //script is executed as user of last event
+        verify(authenticationContext).setLoggedInUser(secondUser);
+        verify(authenticationContext, never()).setLoggedInUser(firstUser);
+        verify(scriptService).executeScript(
+            eq(listener.getUuid()), anyString(), eq(ScriptType.LISTENER),
+            eq(ImmutableMap.of("event", secondEvent, "mergedEventTypeIds", ImmutableList.of(1L, 2L))), anyMap()
+        );
+    }
+
+    private static IssueEvent mockEvent(Long issueId, Long eventTypeId, ApplicationUser user) {
+        Issue issue = mock(Issue.class);
+        when(issue.getId()).thenReturn(issueId);
+        when(issue.getProjectId()).thenReturn(10L);
+
+        IssueEvent event = mock(IssueEvent.class);
+        when(event.getIssue()).thenReturn(issue);
+        when(event.getEventTypeId()).thenReturn(eventTypeId);
+        when(event.getUser()).thenReturn(user);
+        return event;
+    }
+
+    private static final class Flush {
+        private final ScriptedEventListener listener;
+        private final IssueEvent lastEvent;
+        private final List<Long> eventTypeIds;
+
+        private Flush(ScriptedEventListener listener, IssueEvent lastEvent, List<Long> eventTypeIds) {
+            this.listener = listener;
+            this.lastEvent = lastEvent;
+            this.eventTypeIds = eventTypeIds;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.dto.listener.CircuitBreakerState;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnitPlatform.class)
+class ListenerCircuitBreakerTest {
+    private static final String UUID = "listener";
+
+    private ClusterMessagingService clusterMessagingService;
+    private ListenerCircuitBreaker circuitBreaker;
+    private long now;
+
+    @BeforeEach
+    public void setup() {
+        now = 1000000;
+        clusterMessagingService = mock(ClusterMessagingService.class);
+        circuitBreaker = new ListenerCircuitBreaker(clusterMessagingService, () -> now);
+    }
+
+    @Test
+    public void closedByDefaultTest() {
+        assertTrue(circuitBreaker.allowExecution(UUID));
+        circuitBreaker.onExecuted(UUID, 10, true);
+
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState(UUID));
+        assertTrue(circuitBreaker.allowExecution(UUID));
+    }
+
+    @Test
+    public void opensAfterFailuresTest() {
+        for (int i = 0; i < 4; ++i) {
+            circuitBreaker.onExecuted(UUID, 10, false);
+        }
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState(UUID));
+
+        circuitBreaker.onExecuted(UUID, 10, false);
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState(UUID));
+        assertFalse(circuitBreaker.allowExecution(UUID));
+        verify(clusterMessagingService).sendRemote(anyString(), eq("O" + UUID));
+    }
+
+    @Test
+    public void opensAfterSlowRunsTest() {
+        for (int i = 0; i < 5; ++i) {
+            circuitBreaker.onExecuted(UUID, ExecutionRepository.WARNING_THRESHOLD, true);
+        }
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState(UUID));
+    }
+
+    @Test
+    public void failuresOutsideOfWindowAreIgnoredTest() {
+        for (int i = 0; i < 4; ++i) {
+            circuitBreaker.onExecuted(UUID, 10, false);
+        }
+
+        now += TimeUnit.MINUTES.toMillis(2);
+        circuitBreaker.onExecuted(UUID, 10, false);
+
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState(UUID));
+    }
+
+    @Test
+    public void successfulProbeClosesTest() {
+        open();
+
+        now += TimeUnit.MINUTES.toMillis(5);
+        assertTrue(circuitBreaker.allowExecution(UUID));
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState(UUID));
+        //only single probe is allowed
+        assertFalse(circuitBreaker.allowExecution(UUID));
+
+        circuitBreaker.onExecuted(UUID, 10, true);
+
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState(UUID));
+        assertTrue(circuitBreaker.allowExecution(UUID));
+        verify(clusterMessagingService).sendRemote(anyString(), eq("C" + UUID));
+    }
+
+    @Test
+    public void failedProbeReopensTest() {
+        open();
+
+        now += TimeUnit.MINUTES.toMillis(5);
+        assertTrue(circuitBreaker.allowExecution(UUID));
+        circuitBreaker.onExecuted(UUID, 10, false);
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState(UUID));
+        assertFalse(circuitBreaker.allowExecution(UUID));
+
+        //probe is allowed again after next cool down
+        now += TimeUnit.MINUTES.toMillis(5);
+        assertTrue(circuitBreaker.allowExecution(UUID));
+    }
+
+    @Test
+    public void slowProbeReopensTest() {
+        open();
+
+        now += TimeUnit.MINUTES.toMillis(5);
+        assertTrue(circuitBreaker.allowExecution(UUID));
+        circuitBreaker.onExecuted(UUID, ExecutionRepository.WARNING_THRESHOLD, true);
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState(UUID));
+    }
+
+    private void open() {
+        for (int i = 0; i < 5; ++i) {
+            circuitBreaker.onExecuted(UUID, 10, false);
+        }
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState(UUID));
+    }
+}
@@ -0,0 +1,124 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionDescriptor;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionType;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ScriptedEventListener;
+
+import java.util.List;
+import java.util.Set;
+
+//compares listener lookup through index with linear scan over all listeners, run manually
+@Disabled
+@RunWith(JUnitPlatform.class)
+class ListenerDispatchBenchmark {
+    private static final int LISTENERS = 500;
+    private static final int EVENTS = 1000000;
+    private static final int PROJECTS = 50;
+    private static final int EVENT_TYPES = 20;
+
+    private final Logger logger = LoggerFactory.getLogger(ListenerDispatchBenchmark.class);
+
+    @Test
+    public void listenerDispatchBenchmark() {
+        List<ScriptedEventListener> listeners = createListeners();
+        Class<?>[] eventClasses = {String.class, Integer.class, Long.class, Object.class};
+
+        //first round is warmup
+        for (int i = 0; i < 2; ++i) {
+            ListenerIndex index = new ListenerIndex(listeners);
+
+            long issueScan = measureThroughput("issue-scan", e -> scanIssueListeners(listeners, projectId(e), eventTypeId(e)));
+            long issueIndex = measureThroughput("issue-index", e -> index.getIssueListeners(projectId(e), eventTypeId(e)).size());
+            long classScan = measureThroughput("class-scan", e -> scanClassListeners(listeners, eventClasses[e % eventClasses.length]));
+            long classIndex = measureThroughput("class-index", e -> index.getClassListeners(eventClasses[e % eventClasses.length]).size());
+
+            logger.info(
+                "{} listeners, issue events: scan {} ops/s, index {} ops/s; other events: scan {} ops/s, index {} ops/s",
+                LISTENERS, issueScan, issueIndex, classScan, classIndex
+            );
+        }
+    }
+
+    //same matching as in EventListenerInvoker before index was introduced
+    private static int scanIssueListeners(List<ScriptedEventListener> listeners, Long projectId, Long eventTypeId) {
+        int result = 0;
+        for (ScriptedEventListener listener : listeners) {
+            ConditionDescriptor condition = listener.getCondition();
+            if (condition.getType() == ConditionType.ISSUE) {
+                Set<Long> typeIds = condition.getTypeIds();
+                Set<Long> projectIds = condition.getProjectIds();
+                if (
+                    (typeIds.isEmpty() || typeIds.contains(eventTypeId)) &&
+                    (projectIds.isEmpty() || projectIds.contains(projectId))
+                ) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int scanClassListeners(List<ScriptedEventListener> listeners, Class<?> eventClass) {
+        int result = 0;
+        for (ScriptedEventListener listener : listeners) {
+            ConditionDescriptor condition = listener.getCondition();
+            if (condition.getType() == ConditionType.CLASS_NAME) {
+                if (condition.getClassInstance().isAssignableFrom(eventClass)) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    //most listeners are bound to single project and event type, some of them to all projects or event types
+    private static List<ScriptedEventListener> createListeners() {
+        Class<?>[] listenerClasses = {Number.class, CharSequence.class, Runnable.class};
+
+        ImmutableList.Builder<ScriptedEventListener> result = ImmutableList.builder();
+        for (int i = 0; i < LISTENERS; ++i) {
+            if (i % 5 == 0) {
+                result.add(ListenerIndexTest.classListener(i, listenerClasses[i % listenerClasses.length]));
+            } else {
+                Set<Long> projectIds = i % 7 == 0 ? ImmutableSet.of() : ImmutableSet.of((long) (i % PROJECTS));
+                Set<Long> typeIds = i % 11 == 0 ? ImmutableSet.of() : ImmutableSet.of((long) (i % EVENT_TYPES));
+                result.add(ListenerIndexTest.issueListener(i, projectIds, typeIds));
+            }
+        }
+        return result.build();
+    }
+
+    private static Long projectId(int event) {
+        return (long) (event % PROJECTS);
+    }
+
+    private static Long eventTypeId(int event) {
+        return (long) (event / PROJECTS % EVENT_TYPES);
+    }
+
+    private long measureThroughput(String name, Lookup lookup) {
+        long matched = 0;
+
+        long t = System.nanoTime();
+        for (int i = 0; i < EVENTS; ++i) {
+            matched += lookup.find(i);
+        }
+        t = System.nanoTime() - t;
+
+        logger.debug("{}: {} listeners matched", name, matched);
+
+        return EVENTS * 1000000000L / t;
+    }
+
+    private interface Lookup {
+        int find(int event);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.mail.jira.plugins.groovy.impl.listener;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.security.JiraAuthenticationContext;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionDescriptor;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ConditionType;
+import ru.mail.jira.plugins.groovy.api.dto.listener.ScriptedEventListener;
+import ru.mail.jira.plugins.groovy.api.repository.EventListenerRepository;
+import ru.mail.jira.plugins.groovy.api.repository.ExecutionRepository;
+import ru.mail.jira.plugins.groovy.api.script.ScriptType;
+import ru.mail.jira.plugins.groovy.api.service.ScriptService;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnitPlatform.class)
+class ListenerIndexTest {
+    @Test
+    public void classListenersTest() {
+        ScriptedEventListener numberListener = classListener(1, Number.class);
+        ScriptedEventListener integerListener = classListener(2, Integer.class);
+        ScriptedEventListener issueListener = issueListener(3, ImmutableSet.of(), ImmutableSet.of());
+        ListenerIndex index = new ListenerIndex(ImmutableList.of(numberListener, integerListener, issueListener));
+
+        List<ScriptedEventListener> listeners = index.getClassListeners(Integer.class);
+        assertEquals(ImmutableList.of(numberListener, integerListener), listeners);
+        assertEquals(ImmutableList.of(numberListener), index.getClassListeners(Long.class));
+        assertEquals(ImmutableList.of(), index.getClassListeners(String.class));
+
+        //matching listeners are computed once for each event class
+        assertSame(listeners, index.getClassListeners(Integer.class));
+    }
+
+    @Test
+    public void issueListenersTest() {
+        ScriptedEventListener projectAndType = issueListener(1, ImmutableSet.of(10L), ImmutableSet.of(100L));
+        ScriptedEventListener allProjects = issueListener(2, ImmutableSet.of(), ImmutableSet.of(100L));
+        ScriptedEventListener allTypes = issueListener(3, ImmutableSet.of(10L), ImmutableSet.of());
+        ScriptedEventListener all = issueListener(4, ImmutableSet.of(), ImmutableSet.of());
+        ScriptedEventListener classListener = classListener(5, Object.class);
+        ListenerIndex index = new ListenerIndex(ImmutableList.of(projectAndType, allProjects, allTypes, all, classListener));
+
+        List<ScriptedEventListener> listeners = index.getIssueListeners(10L, 100L);
+        assertEquals(ImmutableList.of(projectAndType, allProjects, allTypes, all), listeners);
+        assertEquals(ImmutableList.of(allProjects, all), index.getIssueListeners(20L, 100L));
+        assertEquals(ImmutableList.of(allTypes, all), index.getIssueListeners(10L, 200L));
+        assertEquals(ImmutableList.of(all), index.getIssueListeners(20L, 200L));
+
+        //matching listeners are computed once for each project and event type
+        assertSame(listeners, index.getIssueListeners(10L, 100L));
+        assertEquals(ImmutableList.of(classListener), index.getClassListeners(Object.class));
+    }
+
+    @Test
+    public void emptyIndexTest() {
+        ListenerIndex index = new ListenerIndex(ImmutableList.of());
+
+        assertTrue(index.getClassListeners(Object.class).isEmpty());
+        assertTrue(index.getIssueListeners(10L, 100L).isEmpty());
+    }
+
+    @Test
+    public void rebuildTest() throws Exception {
+        ScriptedEventListener first = classListener(1, Object.class);
+        ScriptedEventListener second = classListener(2, Object.class);
+        List<ScriptedEventListener> initialListeners = ImmutableList.of(first);
+        List<ScriptedEventListener> updatedListeners = ImmutableList.of(second);
+
+        EventListenerRepository repository = mock(EventListenerRepository.class);
+        ScriptService scriptService = mock(ScriptService.class);
+        ListenerCircuitBreaker circuitBreaker = mock(ListenerCircuitBreaker.class);
+        when(circuitBreaker.allowExecution(anyString())).thenReturn(true);
+
+        EventListenerInvoker invoker = new EventListenerInvoker(
+            mock(EventPublisher.class), repository, scriptService, mock(JiraAuthenticationContext.class),
+            mock(ExecutionRepository.class), mock(AsyncListenerExecutor.class), circuitBreaker
+        );
+
+        try {
+            when(repository.getAllListeners()).thenReturn(initialListeners);
+            invoker.onEvent("event");
+            invoker.onEvent("event");
+            verify(scriptService, times(2)).executeScript(eq(first.getUuid()), anyString(), eq(ScriptType.LISTENER), anyMap(), anyMap());
+
+            //repository returns new list when listeners are changed, index must be rebuilt for it
+            when(repository.getAllListeners()).thenReturn(updatedListeners);
+            invoker.onEvent("event");
+            verify(scriptService).executeScript(eq(second.getUuid()), anyString(), eq(ScriptType.LISTENER), anyMap(), anyMap());
+            verify(scriptService, times(2)).executeScript(eq(first.getUuid()), anyString(), eq(ScriptType.LISTENER), anyMap(), anyMap());
+        } finally {
+            invoker.onStop();
+        }
+
+        ListenerIndex index = new ListenerIndex(initialListeners);
+        assertTrue(index.isBuiltFrom(initialListeners));
+        assertFalse(index.isBuiltFrom(ImmutableList.of(first)));
+    }
+
+    static ScriptedEventListener classListener(int id, Class eventClass) {
+        ConditionDescriptor condition = new ConditionDescriptor();
+        condition.setType(ConditionType.CLASS_NAME);
+        condition.setClassName(eventClass.getName());
+        condition.setClassInstance(eventClass);
+        return new ScriptedEventListener(id, "return null", "listener" + id, condition);
+    }
+
+    static ScriptedEventListener issueListener(int id, Set<Long> projectIds, Set<Long> typeIds) {
+        ConditionDescriptor condition = new ConditionDescriptor();
+        condition.setType(ConditionType.ISSUE);
+        condition.setProjectIds(projectIds);
+        condition.setTypeIds(typeIds);
+        return new ScriptedEventListener(id, "return null", "listener" + id, condition);
+    }
+}